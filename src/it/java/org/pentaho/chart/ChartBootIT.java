@@ -0,0 +1,77 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart;
+
+import java.net.URL;
+
+import junit.framework.TestCase;
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.parser.ChartXMLParser;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+/**
+ * Tests for the resource manager that <code>ChartBoot</code> shares across the charting API
+ */
+public class ChartBootIT extends TestCase {
+
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    // Boot the charting library - required for parsing configuration
+    ChartBoot.getInstance().start();
+  }
+
+  /**
+   * The charting API boots one resource manager and shares it
+   */
+  public void testResourceManagerIsShared() {
+    final ChartBoot boot = ChartBoot.getInstance();
+    assertSame(boot.getResourceManager(), boot.getResourceManager());
+    assertTrue(boot.getResourceManager() instanceof ChartResourceManager);
+    assertSame(boot.getResourceManager(), ChartFactory.getChartDocumentCache().getResourceManager());
+  }
+
+  /**
+   * The parser hands every caller its own copy of a document the shared manager may have cached
+   */
+  public void testParserHandsOutCopies() throws ResourceException {
+    final URL chartURL = getClass().getResource("test1.xml");
+    final ChartXMLParser parser = new ChartXMLParser();
+    final ChartDocument first = parser.parseChartDocument(chartURL);
+    assertSame(ChartBoot.getInstance().getResourceManager(), first.getResourceManager());
+
+    first.getRootElement().setAttribute("changed", "true");
+    final ChartDocument second = new ChartXMLParser().parseChartDocument(chartURL);
+    assertNotSame(first, second);
+    assertNotSame(first.getRootElement(), second.getRootElement());
+    assertNull(second.getRootElement().getAttribute("changed"));
+  }
+
+  /**
+   * Chart definitions loaded with the shared manager each keep their own copy of the document
+   */
+  public void testChartDefinitionsHoldCopies() throws ResourceException {
+    final ResourceManager manager = ChartBoot.getInstance().getResourceManager();
+    final ResourceKey chartKey = manager.createKey(getClass().getResource("test1.xml"));
+    final ChartDefinition first = ChartDefinitionFactory.createChartDefinition(chartKey);
+    assertSame(manager, first.getChartResourceManager());
+
+    first.getChartDocument().getRootElement().setAttribute("changed", "true");
+    final ChartDefinition second = ChartDefinitionFactory.createChartDefinition(chartKey);
+    assertNotSame(first.getChartDocument(), second.getChartDocument());
+    assertNull(second.getChartDocument().getRootElement().getAttribute("changed"));
+  }
+}
@@ -0,0 +1,185 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.ChartElement;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceCreationException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceLoadingException;
+
+/**
+ * Tests for the <code>ChartDocumentCache</code> class
+ */
+public class ChartDocumentCacheIT extends TestCase {
+  private static final String CHART = "<chart xmlns=\"http://reporting.pentaho.org/namespaces/charting/1.0\">"
+      + "<title/><plot style=\"color: BLUE\"/></chart>";
+
+  private CountingResourceManager manager;
+
+  private ChartDocumentCache cache;
+
+  private File chartFile;
+
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    // Boot the charting library - required for parsing configuration
+    ChartBoot.getInstance().start();
+
+    manager = new CountingResourceManager();
+    manager.registerDefaults();
+    cache = new ChartDocumentCache(manager, 2);
+    chartFile = File.createTempFile("ChartDocumentCacheIT", ".xml");
+    writeChart(CHART, 0);
+  }
+
+  protected void tearDown() throws Exception {
+    chartFile.delete();
+    super.tearDown();
+  }
+
+  /**
+   * A chart definition that has not changed is parsed once, and every caller gets its own copy of it
+   */
+  public void testHitReturnsCopy() throws ResourceException, IOException {
+    final ChartDocument first = cache.getChartDocument(chartFile.toURI().toURL(), true);
+    final ChartDocument second = cache.getChartDocument(chartFile.toURI().toURL(), true);
+
+    assertEquals(1, manager.chartDocumentCount);
+    assertNotSame(first, second);
+    assertNotSame(first.getRootElement(), second.getRootElement());
+    assertNotNull(second.getRootElement().getLayoutStyle());
+  }
+
+  /**
+   * Changes a caller makes to its copy are not seen by later callers
+   */
+  public void testCopiesAreIndependent() throws ResourceException, IOException {
+    final ChartDocument first = cache.getChartDocument(chartFile.toURI().toURL(), true);
+    first.getRootElement().setAttribute("changed", "true");
+    first.getRootElement().addChildElement(new ChartElement());
+
+    final ChartDocument second = cache.getChartDocument(chartFile.toURI().toURL(), true);
+    assertNull(second.getRootElement().getAttribute("changed"));
+    assertEquals("plot", second.getRootElement().getLastChildItem().getTagName());
+  }
+
+  /**
+   * Once the cache is full, the least recently used chart document is dropped
+   */
+  public void testLeastRecentlyUsedIsEvicted() throws ResourceException, IOException {
+    final File secondFile = File.createTempFile("ChartDocumentCacheIT", ".xml");
+    final File thirdFile = File.createTempFile("ChartDocumentCacheIT", ".xml");
+    try {
+      copyChart(secondFile);
+      copyChart(thirdFile);
+
+      cache.getChartDocument(chartFile.toURI().toURL(), false);
+      cache.getChartDocument(secondFile.toURI().toURL(), false);
+      cache.getChartDocument(chartFile.toURI().toURL(), false);
+      cache.getChartDocument(thirdFile.toURI().toURL(), false);
+      assertEquals(3, manager.chartDocumentCount);
+
+      cache.getChartDocument(chartFile.toURI().toURL(), false);
+      assertEquals(3, manager.chartDocumentCount);
+      cache.getChartDocument(secondFile.toURI().toURL(), false);
+      assertEquals(4, manager.chartDocumentCount);
+    } finally {
+      secondFile.delete();
+      thirdFile.delete();
+    }
+  }
+
+  public void testInvalidArguments() {
+    try {
+      new ChartDocumentCache(null, 1);
+      fail("A resource manager is required");
+    } catch (IllegalArgumentException e) {
+      // correct
+    }
+    try {
+      new ChartDocumentCache(manager, 0);
+      fail("The cache must hold at least one entry");
+    } catch (IllegalArgumentException e) {
+      // correct
+    }
+  }
+
+  /**
+   * Chart documents with and without resolved styles are cached separately
+   */
+  public void testCascadeStylesIsPartOfKey() throws ResourceException, IOException {
+    cache.getChartDocument(chartFile.toURI().toURL(), true);
+    cache.getChartDocument(chartFile.toURI().toURL(), false);
+    cache.getChartDocument(chartFile.toURI().toURL(), false);
+
+    assertEquals(2, manager.chartDocumentCount);
+  }
+
+  /**
+   * A chart definition whose file has changed is parsed again
+   */
+  public void testChangedFileIsReloaded() throws ResourceException, IOException {
+    cache.getChartDocument(chartFile.toURI().toURL(), true);
+    writeChart(CHART.replace("BLUE", "RED"), 10000);
+    cache.getChartDocument(chartFile.toURI().toURL(), true);
+    assertEquals(2, manager.chartDocumentCount);
+
+    cache.clear();
+    cache.getChartDocument(chartFile.toURI().toURL(), true);
+    assertEquals(3, manager.chartDocumentCount);
+  }
+
+  private void writeChart(final String content, final long age) throws IOException {
+    writeChart(chartFile, content, age);
+  }
+
+  private static void copyChart(final File file) throws IOException {
+    writeChart(file, CHART, 0);
+  }
+
+  private static void writeChart(final File file, final String content, final long age) throws IOException {
+    final FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(content.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    // The file resource loader tells changes apart by modification time
+    file.setLastModified(System.currentTimeMillis() + age);
+  }
+
+  /**
+   * Counts how often a chart document is parsed
+   */
+  private static class CountingResourceManager extends ChartResourceManager {
+    private int chartDocumentCount;
+
+    public Resource create(final ResourceKey key, final ResourceKey context, final Class[] target)
+        throws ResourceLoadingException, ResourceCreationException {
+      if (target != null && target.length == 1 && target[0] == ChartDocument.class) {
+        chartDocumentCount++;
+      }
+      return super.create(key, context, target);
+    }
+  }
+}
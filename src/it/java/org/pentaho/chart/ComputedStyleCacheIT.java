@@ -0,0 +1,99 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart;
+
+import junit.framework.TestCase;
+
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.chart.core.ChartElement;
+import org.pentaho.chart.core.parser.ChartXMLParser;
+import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
+import org.pentaho.reporting.libraries.css.model.StyleKey;
+import org.pentaho.reporting.libraries.css.model.StyleKeyRegistry;
+import org.pentaho.reporting.libraries.css.resolver.StyleResolver;
+
+/**
+ * Tests that resolving the styles of a chart with the <code>ComputedStyleCache</code> gives every element the style
+ * the cascade would give it
+ */
+public class ComputedStyleCacheIT extends TestCase {
+  /**
+   * Performs the ChartBoot before performing the tests
+   *
+   * @throws Exception
+   */
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    // Boot the charting library - required for parsing configuration
+    ChartBoot.getInstance().start();
+  }
+
+  /**
+   * Tests repeated series elements styled by class, <code>:first-child</code> and descendant selectors
+   */
+  public void testCachedStylesWithoutSiblingSelectors() throws Exception {
+    assertSameStyles("style_cache_first_child.xml");
+  }
+
+  /**
+   * Tests repeated series elements styled by chains of sibling selectors, which look past the preceding sibling
+   */
+  public void testCachedStylesWithSiblingSelectors() throws Exception {
+    assertSameStyles("style_cache_siblings.xml");
+  }
+
+  private void assertSameStyles(final String resource) throws Exception {
+    final ChartXMLParser parser = new ChartXMLParser();
+
+    // Resolve one copy through the cache
+    final ChartDocument cached = parser.parseChartDocument(getClass().getResource(resource));
+    ChartFactory.resolveStyles(cached, new ChartDocumentContext(cached));
+
+    // Resolve the other by running the cascade for every element
+    final ChartDocument uncached = parser.parseChartDocument(getClass().getResource(resource));
+    final StyleResolver sr = ChartFactory.getStyleResolver(new ChartDocumentContext(uncached));
+    ChartElement element = uncached.getRootElement();
+    while (element != null) {
+      sr.resolveStyle(element);
+      element = element.getNextDepthFirstItem();
+    }
+
+    final StyleKey[] keys = StyleKeyRegistry.getRegistry().getKeys();
+    ChartElement cachedElement = cached.getRootElement();
+    ChartElement uncachedElement = uncached.getRootElement();
+    int index = 0;
+    int series = 0;
+    while (uncachedElement != null) {
+      assertNotNull(cachedElement);
+      assertEquals(uncachedElement.getTagName(), cachedElement.getTagName());
+      if ("series".equals(uncachedElement.getTagName())) {
+        series++;
+      }
+
+      final LayoutStyle expected = uncachedElement.getLayoutStyle();
+      final LayoutStyle actual = cachedElement.getLayoutStyle();
+      for (final StyleKey key : keys) {
+        assertEquals("Element " + index + " (" + uncachedElement.getTagName() + "), " + key.getName(),
+            expected.getValue(key), actual.getValue(key));
+      }
+
+      cachedElement = cachedElement.getNextDepthFirstItem();
+      uncachedElement = uncachedElement.getNextDepthFirstItem();
+      index++;
+    }
+    assertNull(cachedElement);
+    assertTrue(series > 30);
+  }
+}
@@ -0,0 +1,148 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.css;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+import org.pentaho.chart.ChartBoot;
+import org.pentaho.chart.ChartResourceManager;
+import org.pentaho.reporting.libraries.css.model.StyleSheet;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+/**
+ * Tests for the <code>StyleSheetCache</code> class, as used by the <code>ChartResourceManager</code>
+ */
+public class StyleSheetCacheIT extends TestCase {
+  private StyleSheetCache cache;
+
+  private ResourceManager manager;
+
+  private File styleSheetFile;
+
+  protected void setUp() throws Exception {
+    super.setUp();
+
+    // Boot the charting library - required for parsing style sheets
+    ChartBoot.getInstance().start();
+
+    cache = new StyleSheetCache(2);
+    manager = new ChartResourceManager(cache);
+    manager.registerDefaults();
+    styleSheetFile = File.createTempFile("StyleSheetCacheIT", ".css");
+    writeStyleSheet(".test1 { color: RED }", 0);
+  }
+
+  protected void tearDown() throws Exception {
+    styleSheetFile.delete();
+    super.tearDown();
+  }
+
+  /**
+   * A style sheet that has not changed is parsed once
+   */
+  public void testHitAndMiss() throws ResourceException {
+    final ResourceKey key = manager.createKey(styleSheetFile);
+    final StyleSheet first = loadStyleSheet(key);
+    final StyleSheet second = loadStyleSheet(key);
+
+    assertSame(first, second);
+    assertEquals(1, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  /**
+   * A style sheet whose file has changed is parsed again
+   */
+  public void testChangedFileIsReloaded() throws ResourceException, IOException {
+    final ResourceKey key = manager.createKey(styleSheetFile);
+    final StyleSheet first = loadStyleSheet(key);
+    assertEquals(1, first.getRuleCount());
+
+    writeStyleSheet(".test1 { color: RED } .test2 { color: BLUE }", 10000);
+    final StyleSheet second = loadStyleSheet(key);
+
+    assertNotSame(first, second);
+    assertEquals(2, second.getRuleCount());
+    assertEquals(2, cache.getMissCount());
+    assertEquals(0, cache.getHitCount());
+  }
+
+  /**
+   * A cached style sheet whose rules were changed by a caller is not handed to the next caller
+   */
+  public void testModifiedStyleSheetIsReloaded() throws ResourceException {
+    final ResourceKey key = manager.createKey(styleSheetFile);
+    final StyleSheet first = loadStyleSheet(key);
+    first.addRule(first.getRule(0));
+
+    final StyleSheet second = loadStyleSheet(key);
+    assertNotSame(first, second);
+    assertEquals(1, second.getRuleCount());
+    assertEquals(2, cache.getMissCount());
+  }
+
+  /**
+   * Inline style sheets are keyed by their content rather than by the identity of their raw data
+   */
+  public void testInlineStyleSheetsAreKeyedByContent() throws ResourceException {
+    final StyleSheet first = loadStyleSheet(manager.createKey(".test1 { color: RED }".getBytes()));
+    final StyleSheet second = loadStyleSheet(manager.createKey(".test1 { color: RED }".getBytes()));
+    final StyleSheet other = loadStyleSheet(manager.createKey(".test1 { color: BLUE }".getBytes()));
+
+    assertSame(first, second);
+    assertNotSame(first, other);
+    assertEquals(2, cache.getMissCount());
+    assertEquals(1, cache.getHitCount());
+  }
+
+  /**
+   * The least recently used style sheet is evicted once the cache is full
+   */
+  public void testLeastRecentlyUsedIsEvicted() throws ResourceException {
+    final ResourceKey key = manager.createKey(styleSheetFile);
+    loadStyleSheet(key);
+    loadStyleSheet(manager.createKey(".a { color: RED }".getBytes()));
+    loadStyleSheet(manager.createKey(".b { color: RED }".getBytes()));
+    loadStyleSheet(key);
+
+    assertEquals(4, cache.getMissCount());
+    assertEquals(0, cache.getHitCount());
+
+    cache.clear();
+    loadStyleSheet(key);
+    assertEquals(5, cache.getMissCount());
+  }
+
+  private StyleSheet loadStyleSheet(final ResourceKey key) throws ResourceException {
+    final Resource resource = manager.create(key, null, StyleSheet.class);
+    return (StyleSheet) resource.getResource();
+  }
+
+  private void writeStyleSheet(final String content, final long age) throws IOException {
+    final FileOutputStream out = new FileOutputStream(styleSheetFile);
+    try {
+      out.write(content.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+    // The file resource loader tells changes apart by modification time
+    styleSheetFile.setLastModified(System.currentTimeMillis() + age);
+  }
+}
@@ -13,68 +13,75 @@
 
 package org.pentaho.chart;
 
-import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.pentaho.chart.cache.ChartFingerprint;
+import org.pentaho.chart.cache.IRenderedChartCache;
+import org.pentaho.chart.cache.RenderedChart;
+import org.pentaho.chart.data.Aggregate;
 import org.pentaho.chart.data.BasicDataModel;
+import org.pentaho.chart.data.DataModelDownsampler;
 import org.pentaho.chart.data.IChartDataModel;
 import org.pentaho.chart.data.IScalableDataModel;
 import org.pentaho.chart.data.MultiSeriesDataModel;
 import org.pentaho.chart.data.MultiSeriesXYDataModel;
 import org.pentaho.chart.data.NamedValue;
 import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.ValueAccumulator;
 import org.pentaho.chart.data.XYDataModel;
 import org.pentaho.chart.data.XYDataPoint;
-import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
-import org.pentaho.chart.data.MultiSeriesXYDataModel.Series;
+import org.pentaho.chart.model.AreaPlot;
 import org.pentaho.chart.model.ChartModel;
 import org.pentaho.chart.model.DialPlot;
+import org.pentaho.chart.model.LinePlot;
 import org.pentaho.chart.model.PiePlot;
 import org.pentaho.chart.model.Plot;
 import org.pentaho.chart.model.ScatterPlot;
 import org.pentaho.chart.plugin.ChartDataOverflowException;
+import org.pentaho.chart.plugin.ChartPluginRegistry;
 import org.pentaho.chart.plugin.ChartProcessingException;
 import org.pentaho.chart.plugin.IChartPlugin;
 import org.pentaho.chart.plugin.NoChartDataException;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.api.PersistenceException;
 import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
-import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
-import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
 import org.pentaho.commons.connection.IPentahoMetaData;
-import org.pentaho.metadata.model.concept.types.DataType;
-import org.pentaho.metadata.model.concept.util.DataFormatter;
 
 public class ChartBeanFactory {
 
-  private static String META_DATA_MASK_ATTRIBUTE = "mask";
-  private static String META_DATA_DATATYPE_ATTRIBUTE = "datatype";
-  private static int META_DATA_ROW_WITH_ATTRIBUTE = 0;
+  private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+  private static final int MIN_PARTITION_ROWS = 4096;
 
   private static int MAX_ALLOWED_DATA_POINTS = 100;
-  private static List<IChartPlugin> chartPlugins = new ArrayList<IChartPlugin>();
+  private static int MAX_ALLOWED_DATA_POINTS_BEFORE_DOWNSAMPLING = 100000;
+  private static DataModelDownsampler.Method DOWNSAMPLING_METHOD = null;
+  private static volatile IRenderedChartCache renderedChartCache = null;
+  private static boolean MEMOIZE_FORMATTED_VALUES = true;
+  private static Aggregate AGGREGATE = Aggregate.SUM;
+  private static int PARALLEL_BUILD_THRESHOLD = 0;
 
   private ChartBeanFactory() {
   }
 
   public static IChartPlugin getPlugin( String pluginId ) {
-    IChartPlugin plugin = null;
-    for ( IChartPlugin tmpPlugin : chartPlugins ) {
-      if ( tmpPlugin.getPluginId().equals( pluginId ) ) {
-        plugin = tmpPlugin;
-      }
-    }
-    if ( ( plugin == null ) && ( chartPlugins.size() == 0 ) ) {
-      if ( JFreeChartPlugin.PLUGIN_ID.equals( pluginId ) ) {
-        plugin = new JFreeChartPlugin();
-      } else if ( OpenFlashChartPlugin.PLUGIN_ID.equals( pluginId ) ) {
-        plugin = new OpenFlashChartPlugin();
-      }
-    }
-    return plugin;
+    return ChartPluginRegistry.getPlugin( pluginId );
   }
 
   public static int getMaxDataPointsPerChart() {
@@ -87,12 +94,108 @@ public class ChartBeanFactory {
     }
   }
 
+  /**
+   * @return the method used to downsample line, area and scatter data, or null if downsampling is disabled.
+   */
+  public static DataModelDownsampler.Method getDownsamplingMethod() {
+    return DOWNSAMPLING_METHOD;
+  }
+
+  /**
+   * Enables downsampling of line, area and scatter data in {@link #createChart(Iterator, Number, boolean, int, int,
+   * int, ChartModel, IChartLinkGenerator, int, int, OutputTypes)}. Instead of being rejected, data with more than
+   * {@link #getMaxDataPointsPerChart()} points is reduced to fit both that limit and the width of the chart. Pass null
+   * to disable downsampling.
+   */
+  public static void setDownsamplingMethod( DataModelDownsampler.Method method ) {
+    DOWNSAMPLING_METHOD = method;
+  }
+
+  /**
+   * @return the number of data points that may be read before a chart that is to be downsampled is rejected.
+   */
+  public static int getMaxDataPointsBeforeDownsampling() {
+    return MAX_ALLOWED_DATA_POINTS_BEFORE_DOWNSAMPLING;
+  }
+
+  public static void setMaxDataPointsBeforeDownsampling( int max ) {
+    if ( max > 0 ) {
+      MAX_ALLOWED_DATA_POINTS_BEFORE_DOWNSAMPLING = max;
+    }
+  }
+
+  /**
+   * @return the cache of rendered charts, or null if rendered charts are not cached.
+   */
+  public static IRenderedChartCache getRenderedChartCache() {
+    return renderedChartCache;
+  }
+
+  /**
+   * Sets the cache used by {@link #renderChart(ChartModel, IChartDataModel, IChartLinkGenerator, int, int,
+   * OutputTypes, String)} to skip rendering charts that were rendered before. Pass null to disable caching.
+   */
+  public static void setRenderedChartCache( IRenderedChartCache cache ) {
+    renderedChartCache = cache;
+  }
+
+  /**
+   * @return how the values of rows that fall into the same data point are combined.
+   */
+  public static Aggregate getAggregate() {
+    return AGGREGATE;
+  }
+
+  /**
+   * Sets how the values of rows that fall into the same data point are combined when a data model is built. The
+   * default is {@link Aggregate#SUM}.
+   */
+  public static void setAggregate( Aggregate aggregate ) {
+    if ( aggregate != null ) {
+      AGGREGATE = aggregate;
+    }
+  }
+
+  /**
+   * @return the number of rows from which a data model is built in parallel, or 0 if data models are always built
+   * sequentially.
+   */
+  public static int getParallelBuildThreshold() {
+    return PARALLEL_BUILD_THRESHOLD;
+  }
+
+  /**
+   * Enables building category, pie and scatter data models in parallel when they are built from an array of at least
+   * the given number of rows. The rows are split into runs that are built on the common {@link ForkJoinPool} and
+   * merged in row order, so categories, series and points come out in the same order as when they are built
+   * sequentially. Pass 0 to always build sequentially, which is the default.
+   */
+  public static void setParallelBuildThreshold( int rows ) {
+    PARALLEL_BUILD_THRESHOLD = Math.max( rows, 0 );
+  }
+
+  /**
+   * @return whether the formatted category and series names of distinct values are remembered while a data model is
+   * built.
+   */
+  public static boolean isMemoizeFormattedValues() {
+    return MEMOIZE_FORMATTED_VALUES;
+  }
+
+  /**
+   * Sets whether each distinct category and series value is formatted only once while a data model is built. This
+   * pays off for columns with few distinct values, which is the common case.
+   */
+  public static void setMemoizeFormattedValues( boolean memoize ) {
+    MEMOIZE_FORMATTED_VALUES = memoize;
+  }
+
   /**
    * This method is called from a platform system listener on startup, to initialize the available plugins from the
    * chartbeans configuration file.
    */
   public static void loadDefaultChartPlugins( List<IChartPlugin> plugins ) {
-    chartPlugins = plugins;
+    ChartPluginRegistry.loadPlugins( plugins );
   }
 
   /**
@@ -115,57 +218,76 @@ public class ChartBeanFactory {
                                                       int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
                                                       IPentahoMetaData metadata )
     throws ChartDataOverflowException, NoChartDataException {
+    return createChartDataModel( new QueryResultsIterator( queryResults ), scalingFactor, convertNullsToZero,
+      rangeColumnIndex, seriesColumnIdx, domainColumnIdx, chartModel, metadata );
+  }
+
+  /**
+   * Builds the chart data model from rows that are read one at a time, so the caller does not have to hold the whole
+   * result in memory. Reading stops with a {@link ChartDataOverflowException} as soon as the model holds more than
+   * {@link #getMaxDataPointsPerChart()} data points; the exception reports how many rows had been read by then.
+   */
+  public static IChartDataModel createChartDataModel( Iterator<Object[]> rows, Number scalingFactor,
+                                                      boolean convertNullsToZero, int rangeColumnIndex,
+                                                      int seriesColumnIdx, int domainColumnIdx, ChartModel chartModel,
+                                                      IPentahoMetaData metadata )
+    throws ChartDataOverflowException, NoChartDataException {
+    return createChartDataModel( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+      domainColumnIdx, chartModel, metadata, MAX_ALLOWED_DATA_POINTS );
+  }
+
+  private static IChartDataModel createChartDataModel( Iterator<Object[]> rows, Number scalingFactor,
+                                                       boolean convertNullsToZero, int rangeColumnIndex,
+                                                       int seriesColumnIdx, int domainColumnIdx,
+                                                       ChartModel chartModel, IPentahoMetaData metadata,
+                                                       int maxDataPoints )
+    throws ChartDataOverflowException, NoChartDataException {
     IChartDataModel chartDataModel = null;
     int numberOfDataPoints = 0;
+    BuildSettings settings = new BuildSettings();
 
     Plot plot = chartModel.getPlot();
     if ( ( plot instanceof PiePlot ) && ( seriesColumnIdx >= 0 ) && ( rangeColumnIndex >= 0 ) ) {
       NamedValuesDataModel namedValueDataModel =
-        createNamedValueDataModel( queryResults, seriesColumnIdx, rangeColumnIndex, convertNullsToZero, true );
+        createNamedValueDataModel( rows, seriesColumnIdx, rangeColumnIndex, convertNullsToZero, true,
+          maxDataPoints, settings );
       numberOfDataPoints = namedValueDataModel.size();
       chartDataModel = namedValueDataModel;
     } else if ( ( plot instanceof DialPlot ) && ( rangeColumnIndex >= 0 ) ) {
-      BasicDataModel basicDataModel = createBasicDataModel( queryResults, rangeColumnIndex, true, true );
+      BasicDataModel basicDataModel = createBasicDataModel( rows, rangeColumnIndex, true, true, maxDataPoints,
+        settings );
       numberOfDataPoints = basicDataModel.getData().size();
       chartDataModel = basicDataModel;
     } else if ( plot instanceof ScatterPlot ) {
       if ( ( seriesColumnIdx >= 0 ) && ( domainColumnIdx >= 0 ) ) {
         MultiSeriesXYDataModel multiSeriesXYDataModel =
-          createMultiSeriesXYDataModel( queryResults, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
-            convertNullsToZero, metadata );
-        for ( Series series : multiSeriesXYDataModel.getSeries() ) {
-          numberOfDataPoints += series.size();
-        }
+          createMultiSeriesXYDataModel( rows, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
+            convertNullsToZero, metadata, maxDataPoints, settings );
+        numberOfDataPoints = multiSeriesXYDataModel.getDataPointCount();
         chartDataModel = multiSeriesXYDataModel;
       } else if ( domainColumnIdx >= 0 ) {
         XYDataModel xyDataModel =
-          createXYDataModel( queryResults, domainColumnIdx, rangeColumnIndex, convertNullsToZero );
+          createXYDataModel( rows, domainColumnIdx, rangeColumnIndex, convertNullsToZero, maxDataPoints );
         numberOfDataPoints = xyDataModel.size();
         chartDataModel = xyDataModel;
       }
     } else {
       if ( ( seriesColumnIdx >= 0 ) ) {
         MultiSeriesDataModel multiSeriesDataModel =
-          createMultiSeriesDataModel( queryResults, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
-            convertNullsToZero, metadata );
-        List<DomainData> domainData = multiSeriesDataModel.getDomainData();
-        if ( domainData.size() > 0 ) {
-          for ( DomainData domain : domainData ) {
-            numberOfDataPoints += domain.size();
-          }
-        }
+          createMultiSeriesDataModel( rows, seriesColumnIdx, domainColumnIdx, rangeColumnIndex,
+            convertNullsToZero, metadata, maxDataPoints, settings );
+        numberOfDataPoints = getDataPointCount( multiSeriesDataModel );
         chartDataModel = multiSeriesDataModel;
       } else {
         NamedValuesDataModel namedValueDataModel =
-          createNamedValueDataModel( queryResults, domainColumnIdx, rangeColumnIndex, convertNullsToZero, true );
+          createNamedValueDataModel( rows, domainColumnIdx, rangeColumnIndex, convertNullsToZero, true,
+          maxDataPoints, settings );
         numberOfDataPoints = namedValueDataModel.size();
         chartDataModel = namedValueDataModel;
       }
     }
     if ( numberOfDataPoints == 0 ) {
       throw new NoChartDataException();
-    } else if ( numberOfDataPoints > MAX_ALLOWED_DATA_POINTS ) {
-      throw new ChartDataOverflowException( numberOfDataPoints, MAX_ALLOWED_DATA_POINTS );
     } else {
       if ( chartDataModel instanceof IScalableDataModel ) {
         ( (IScalableDataModel) chartDataModel ).setScalingFactor( scalingFactor );
@@ -192,37 +314,289 @@ public class ChartBeanFactory {
                                          IChartLinkGenerator contentLinkGenerator, int width, int height,
                                          OutputTypes outputType )
     throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    return createChart( new QueryResultsIterator( queryResults ), scalingFactor, convertNullsToZero, rangeColumnIndex,
+      seriesColumnIdx, domainColumnIdx, chartModel, contentLinkGenerator, width, height, outputType );
+  }
 
+  /**
+   * Renders a chart from rows that are read one at a time. The returned stream reads the rendered chart from a pooled
+   * buffer, which is released for reuse when the stream is closed.
+   *
+   * @see #createChartDataModel(Iterator, Number, boolean, int, int, int, ChartModel, IPentahoMetaData)
+   */
+  public static InputStream createChart( Iterator<Object[]> rows, Number scalingFactor, boolean convertNullsToZero,
+                                         int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx,
+                                         ChartModel chartModel,
+                                         IChartLinkGenerator contentLinkGenerator, int width, int height,
+                                         OutputTypes outputType )
+    throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
     IChartDataModel chartDataModel =
-      createChartDataModel( queryResults, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
-        domainColumnIdx, chartModel );
-    IOutput output = createChart( chartModel, chartDataModel, contentLinkGenerator );
+      createRenderableChartDataModel( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+        domainColumnIdx, chartModel, width );
+    if ( isCacheable( contentLinkGenerator ) ) {
+      return renderChart( chartModel, chartDataModel, contentLinkGenerator, width, height, outputType, null )
+        .getInputStream();
+    }
+
+    ChartOutputBuffer buffer = ChartOutputBuffer.acquire();
+    boolean rendered = false;
+    try {
+      createChart( chartModel, chartDataModel, contentLinkGenerator ).persistChart( buffer, outputType, width, height );
+      rendered = true;
+    } finally {
+      if ( !rendered ) {
+        buffer.release();
+      }
+    }
+    return buffer.toInputStream();
+  }
+
+  public static void createChart( Object[][] queryResults, Number scalingFactor, boolean convertNullsToZero,
+                                  int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx,
+                                  ChartModel chartModel,
+                                  IChartLinkGenerator contentLinkGenerator, int width, int height,
+                                  OutputTypes outputType, OutputStream outputStream )
+    throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    createChart( new QueryResultsIterator( queryResults ), scalingFactor, convertNullsToZero, rangeColumnIndex,
+      seriesColumnIdx, domainColumnIdx, chartModel, contentLinkGenerator, width, height, outputType, outputStream );
+  }
+
+  /**
+   * Renders a chart from rows that are read one at a time, writing it directly to the given stream. The stream is
+   * neither flushed nor closed.
+   */
+  public static void createChart( Iterator<Object[]> rows, Number scalingFactor, boolean convertNullsToZero,
+                                  int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx,
+                                  ChartModel chartModel,
+                                  IChartLinkGenerator contentLinkGenerator, int width, int height,
+                                  OutputTypes outputType, OutputStream outputStream )
+    throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    IChartDataModel chartDataModel =
+      createRenderableChartDataModel( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+        domainColumnIdx, chartModel, width );
+    if ( isCacheable( contentLinkGenerator ) ) {
+      RenderedChart renderedChart =
+        renderChart( chartModel, chartDataModel, contentLinkGenerator, width, height, outputType, null );
+      try {
+        renderedChart.writeTo( outputStream );
+      } catch ( IOException e ) {
+        throw new PersistenceException( e );
+      }
+    } else {
+      createChart( chartModel, chartDataModel, contentLinkGenerator )
+        .persistChart( outputStream, outputType, width, height );
+    }
+  }
+
+  /**
+   * Renders a chart from rows that are read one at a time, writing it directly to the given channel. The channel is
+   * not closed.
+   */
+  public static void createChart( Iterator<Object[]> rows, Number scalingFactor, boolean convertNullsToZero,
+                                  int rangeColumnIndex, int seriesColumnIdx, int domainColumnIdx,
+                                  ChartModel chartModel,
+                                  IChartLinkGenerator contentLinkGenerator, int width, int height,
+                                  OutputTypes outputType, WritableByteChannel channel )
+    throws NoChartDataException, ChartDataOverflowException, ChartProcessingException, PersistenceException {
+    OutputStream outputStream = new BufferedOutputStream( Channels.newOutputStream( channel ), CHANNEL_BUFFER_SIZE );
+    createChart( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx, domainColumnIdx,
+      chartModel, contentLinkGenerator, width, height, outputType, outputStream );
+    try {
+      outputStream.flush();
+    } catch ( IOException e ) {
+      throw new PersistenceException( e );
+    }
+  }
+
+  private static IChartDataModel createRenderableChartDataModel( Iterator<Object[]> rows, Number scalingFactor,
+                                                                 boolean convertNullsToZero, int rangeColumnIndex,
+                                                                 int seriesColumnIdx, int domainColumnIdx,
+                                                                 ChartModel chartModel, int width )
+    throws NoChartDataException, ChartDataOverflowException {
+    IChartDataModel chartDataModel = null;
+    if ( ( DOWNSAMPLING_METHOD != null ) && isDownsamplable( chartModel.getPlot() ) ) {
+      chartDataModel =
+        createChartDataModel( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+          domainColumnIdx, chartModel, null, MAX_ALLOWED_DATA_POINTS_BEFORE_DOWNSAMPLING );
+      chartDataModel = downsampleChartDataModel( chartDataModel, width, DOWNSAMPLING_METHOD );
+    } else {
+      chartDataModel =
+        createChartDataModel( rows, scalingFactor, convertNullsToZero, rangeColumnIndex, seriesColumnIdx,
+          domainColumnIdx, chartModel, null );
+    }
+    return chartDataModel;
+  }
+
+  private static boolean isCacheable( IChartLinkGenerator contentLinkGenerator ) {
+    return ( renderedChartCache != null ) && ( contentLinkGenerator == null );
+  }
+
+  /**
+   * Renders a chart and, if <code>mapName</code> is not null, its image map. If a {@link IRenderedChartCache} is set,
+   * a chart rendered before from an equal chart model and equal data is taken from the cache. Charts with a link
+   * generator are never cached, since the links it generates cannot be compared.
+   */
+  public static RenderedChart renderChart( ChartModel chartModel, IChartDataModel chartDataModel,
+                                           IChartLinkGenerator contentLinkGenerator, int width, int height,
+                                           OutputTypes outputType, String mapName )
+    throws ChartProcessingException, PersistenceException {
+    IRenderedChartCache cache = renderedChartCache;
+    String key = null;
+    if ( ( cache != null ) && ( contentLinkGenerator == null ) ) {
+      key = ChartFingerprint.compute( chartModel, chartDataModel, outputType, width, height, mapName );
+      if ( key != null ) {
+        RenderedChart renderedChart = cache.get( key );
+        if ( renderedChart != null ) {
+          return renderedChart;
+        }
+      }
+    }
 
+    IOutput output = createChart( chartModel, chartDataModel, contentLinkGenerator );
     final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
     output.persistChart( outputStream, outputType, width, height );
-    ByteArrayInputStream inputStream = new ByteArrayInputStream( outputStream.toByteArray() );
+    String imageMap = null;
+    if ( mapName != null ) {
+      imageMap = output.persistMap( new StringWriter(), mapName ).toString();
+    }
 
-    return inputStream;
+    RenderedChart renderedChart = new RenderedChart( outputStream.toByteArray(), imageMap );
+    if ( key != null ) {
+      cache.put( key, renderedChart );
+    }
+    return renderedChart;
   }
 
-  private static MultiSeriesDataModel createMultiSeriesDataModel( Object[][] queryResults, int seriesColumn,
-                                                                  int domainColumn, int rangeColumn,
-                                                                  boolean convertNullValuesToZero,
-                                                                  IPentahoMetaData metaData ) {
-    MultiSeriesDataModel multiSeriesDataModel = new MultiSeriesDataModel();
+  /**
+   * Reduces line, area and scatter data so that it holds at most {@link #getMaxDataPointsPerChart()} data points and
+   * no more points per series than the chart is pixels wide. Category data without a series column is reduced as a
+   * single series. Other data models are returned unchanged, and rejected if they hold more data points than
+   * allowed.
+   *
+   * @param width the width of the chart in pixels, or 0 if unknown.
+   */
+  public static IChartDataModel downsampleChartDataModel( IChartDataModel chartDataModel, int width,
+                                                          DataModelDownsampler.Method method )
+    throws ChartDataOverflowException {
+    IChartDataModel downsampled = chartDataModel;
+    int numberOfDataPoints = 0;
+    if ( chartDataModel instanceof MultiSeriesDataModel ) {
+      MultiSeriesDataModel multiSeriesDataModel = (MultiSeriesDataModel) chartDataModel;
+      int maxCategories = getMaxPointsPerSeries( multiSeriesDataModel.getSeriesCount(), width );
+      multiSeriesDataModel = DataModelDownsampler.downsample( multiSeriesDataModel, maxCategories, method );
+      numberOfDataPoints = getDataPointCount( multiSeriesDataModel );
+      downsampled = multiSeriesDataModel;
+    } else if ( chartDataModel instanceof MultiSeriesXYDataModel ) {
+      MultiSeriesXYDataModel multiSeriesXYDataModel = (MultiSeriesXYDataModel) chartDataModel;
+      int maxPoints = getMaxPointsPerSeries( multiSeriesXYDataModel.getSeriesCount(), width );
+      multiSeriesXYDataModel = DataModelDownsampler.downsample( multiSeriesXYDataModel, maxPoints, method );
+      numberOfDataPoints = multiSeriesXYDataModel.getDataPointCount();
+      downsampled = multiSeriesXYDataModel;
+    } else if ( chartDataModel instanceof XYDataModel ) {
+      XYDataModel xyDataModel =
+        DataModelDownsampler.downsample( (XYDataModel) chartDataModel, getMaxPointsPerSeries( 1, width ), method );
+      numberOfDataPoints = xyDataModel.size();
+      downsampled = xyDataModel;
+    } else if ( chartDataModel instanceof NamedValuesDataModel ) {
+      NamedValuesDataModel namedValuesDataModel = DataModelDownsampler.downsample(
+        (NamedValuesDataModel) chartDataModel, getMaxPointsPerSeries( 1, width ), method );
+      numberOfDataPoints = namedValuesDataModel.size();
+      downsampled = namedValuesDataModel;
+    } else if ( chartDataModel instanceof BasicDataModel ) {
+      numberOfDataPoints = ( (BasicDataModel) chartDataModel ).getData().size();
+    }
+    if ( numberOfDataPoints > MAX_ALLOWED_DATA_POINTS ) {
+      throw new ChartDataOverflowException( numberOfDataPoints, MAX_ALLOWED_DATA_POINTS );
+    }
+    return downsampled;
+  }
 
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainData = domainColumn >= 0 ? queryResults[ i ][ domainColumn ] : null;
-      Object seriesData = seriesColumn >= 0 ? queryResults[ i ][ seriesColumn ] : null;
+  private static boolean isDownsamplable( Plot plot ) {
+    return ( plot instanceof LinePlot ) || ( plot instanceof AreaPlot ) || ( plot instanceof ScatterPlot );
+  }
 
-      String domainKey = domainData != null ? domainData.toString() : "";
-      String domainFormatted = domainData != null ? formatSeriesString( domainData, metaData, i, domainColumn ) : "";
+  private static int getMaxPointsPerSeries( int seriesCount, int width ) {
+    int maxPoints = MAX_ALLOWED_DATA_POINTS / Math.max( 1, seriesCount );
+    if ( width > 0 ) {
+      maxPoints = Math.min( maxPoints, width );
+    }
+    return maxPoints;
+  }
 
-      String seriesKey = seriesData != null ? seriesData.toString() : "";
-      String seriesFormatted =
-        seriesData != null ? formatSeriesString( seriesData, metaData, i, seriesColumn ) : "null";
+  private static int getDataPointCount( MultiSeriesDataModel multiSeriesDataModel ) {
+    return (int) Math.min( Integer.MAX_VALUE,
+      (long) multiSeriesDataModel.getCategoryCount() * multiSeriesDataModel.getSeriesCount() );
+  }
+
+  /**
+   * Called by the model builders after every row, so that an oversized result is rejected as soon as it holds more
+   * distinct data points than allowed rather than after the whole model has been built.
+   */
+  private static void checkDataPointCount( int numberOfDataPoints, int maxDataPoints, int rowsRead )
+    throws ChartDataOverflowException {
+    if ( numberOfDataPoints > maxDataPoints ) {
+      throw new ChartDataOverflowException( numberOfDataPoints, maxDataPoints, rowsRead );
+    }
+  }
+
+  private static MultiSeriesDataModel createMultiSeriesDataModel( Iterator<Object[]> rows, final int seriesColumn,
+                                                                  final int domainColumn, final int rangeColumn,
+                                                                  final boolean convertNullValuesToZero,
+                                                                  final IPentahoMetaData metaData,
+                                                                  final int maxDataPoints,
+                                                                  final BuildSettings settings )
+    throws ChartDataOverflowException {
+    if ( isParallelBuild( rows, settings ) ) {
+      MultiSeriesDataModel multiSeriesDataModel =
+        buildInParallel( (QueryResultsIterator) rows, new PartialModelBuilder<MultiSeriesDataModel>() {
+          MultiSeriesDataModel build( Iterator<Object[]> partitionRows ) throws ChartDataOverflowException {
+            return createMultiSeriesDataModel( partitionRows, seriesColumn, domainColumn, rangeColumn,
+              convertNullValuesToZero, metaData, maxDataPoints, settings );
+          }
 
-      Object rangeValue = queryResults[ i ][ rangeColumn ];
+          void merge( MultiSeriesDataModel part, MultiSeriesDataModel followingPart ) {
+            part.addAll( followingPart );
+          }
+
+          int getDataPointCount( MultiSeriesDataModel part ) {
+            return ChartBeanFactory.getDataPointCount( part );
+          }
+        }, maxDataPoints );
+      if ( multiSeriesDataModel != null ) {
+        return multiSeriesDataModel;
+      }
+    }
+
+    MultiSeriesDataModel multiSeriesDataModel = new MultiSeriesDataModel();
+    multiSeriesDataModel.setAggregate( settings.aggregate );
+    // Each distinct raw value is converted to a key and formatted once, then found by its index in the model
+    ColumnFormatter domainFormatter = ColumnFormatter.create( metaData, domainColumn, false );
+    ColumnFormatter seriesFormatter = ColumnFormatter.create( metaData, seriesColumn, false );
+    HashMap<Object, Integer> categoryDictionary = new HashMap<Object, Integer>();
+    HashMap<Object, Integer> seriesDictionary = new HashMap<Object, Integer>();
+
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object[] row = rows.next();
+      Object domainData = domainColumn >= 0 ? row[ domainColumn ] : null;
+      Object seriesData = seriesColumn >= 0 ? row[ seriesColumn ] : null;
+
+      Integer categoryIdx = categoryDictionary.get( domainData );
+      if ( categoryIdx == null ) {
+        String domainKey = domainData != null ? domainData.toString() : "";
+        String domainFormatted = domainData != null ? domainFormatter.format( domainData ) : "";
+        categoryIdx = multiSeriesDataModel.addCategory( domainKey, domainFormatted );
+        categoryDictionary.put( domainData, categoryIdx );
+      }
+
+      Integer seriesIdx = seriesDictionary.get( seriesData );
+      if ( seriesIdx == null ) {
+        String seriesKey = seriesData != null ? seriesData.toString() : "";
+        String seriesFormatted = seriesData != null ? seriesFormatter.format( seriesData ) : "null";
+        seriesIdx = multiSeriesDataModel.addSeries( seriesKey, seriesFormatted );
+        seriesDictionary.put( seriesData, seriesIdx );
+      }
+
+      Object rangeValue = row[ rangeColumn ];
 
       if ( rangeValue == null ) {
         if ( convertNullValuesToZero ) {
@@ -232,35 +606,54 @@ public class ChartBeanFactory {
         rangeValue = null;
       }
 
-      multiSeriesDataModel.addValue( domainKey, domainFormatted, seriesKey, seriesFormatted, (Number) rangeValue );
+      multiSeriesDataModel.addValueAt( seriesIdx, categoryIdx, (Number) rangeValue );
+      checkDataPointCount( getDataPointCount( multiSeriesDataModel ), maxDataPoints, i + 1 );
     }
 
     return multiSeriesDataModel;
   }
 
-  private static String formatSeriesString( Object data, IPentahoMetaData metaData, int rowNo, int columnNo ) {
-    if ( metaData != null ) {
-      String mask = (String) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_MASK_ATTRIBUTE );
-      DataType datatype =
-        (DataType) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, columnNo, META_DATA_DATATYPE_ATTRIBUTE );
-      return DataFormatter.getFormatedString( datatype, mask, data );
+
+  private static MultiSeriesXYDataModel createMultiSeriesXYDataModel( Iterator<Object[]> rows,
+                                                                      final int seriesColumn,
+                                                                      final int domainColumn, final int rangeColumn,
+                                                                      final boolean convertNullValuesToZero,
+                                                                      final IPentahoMetaData metadata,
+                                                                      final int maxDataPoints,
+                                                                      final BuildSettings settings )
+    throws ChartDataOverflowException {
+    if ( isParallelBuild( rows, settings ) ) {
+      MultiSeriesXYDataModel multiSeriesDataModel =
+        buildInParallel( (QueryResultsIterator) rows, new PartialModelBuilder<MultiSeriesXYDataModel>() {
+          MultiSeriesXYDataModel build( Iterator<Object[]> partitionRows ) throws ChartDataOverflowException {
+            return createMultiSeriesXYDataModel( partitionRows, seriesColumn, domainColumn, rangeColumn,
+              convertNullValuesToZero, metadata, maxDataPoints, settings );
+          }
+
+          void merge( MultiSeriesXYDataModel part, MultiSeriesXYDataModel followingPart ) {
+            part.addAll( followingPart );
+          }
+
+          int getDataPointCount( MultiSeriesXYDataModel part ) {
+            return part.getDataPointCount();
+          }
+        }, maxDataPoints );
+      if ( multiSeriesDataModel != null ) {
+        return multiSeriesDataModel;
+      }
     }
-    return data.toString();
-  }
 
-  private static MultiSeriesXYDataModel createMultiSeriesXYDataModel( Object[][] queryResults, int seriesColumn,
-                                                                      int domainColumn, int rangeColumn,
-                                                                      boolean convertNullValuesToZero,
-                                                                      IPentahoMetaData metadata ) {
     MultiSeriesXYDataModel multiSeriesDataModel = new MultiSeriesXYDataModel();
+    ColumnFormatter seriesFormatter = ColumnFormatter.create( metadata, seriesColumn, settings.memoizeFormattedValues );
 
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object seriesData = seriesColumn >= 0 ? queryResults[ i ][ seriesColumn ] : null;
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object[] row = rows.next();
+      Object seriesData = seriesColumn >= 0 ? row[ seriesColumn ] : null;
       String seriesKey = seriesData != null ? seriesData.toString() : "";
       String seriesFormatted =
-        seriesData != null ? formatSeriesString( seriesData, metadata, i, seriesColumn ) : "null";
+        seriesData != null ? seriesFormatter.format( seriesData ) : "null";
 
-      Object domainValue = queryResults[ i ][ domainColumn ];
+      Object domainValue = row[ domainColumn ];
       if ( domainValue == null ) {
         if ( convertNullValuesToZero ) {
           domainValue = new Integer( 0 );
@@ -269,7 +662,7 @@ public class ChartBeanFactory {
         domainValue = null;
       }
 
-      Object rangeValue = queryResults[ i ][ rangeColumn ];
+      Object rangeValue = row[ rangeColumn ];
       if ( rangeValue == null ) {
         if ( convertNullValuesToZero ) {
           rangeValue = new Integer( 0 );
@@ -279,60 +672,125 @@ public class ChartBeanFactory {
       }
 
       multiSeriesDataModel.addDataPoint( seriesKey, seriesFormatted, (Number) domainValue, (Number) rangeValue );
+      checkDataPointCount( multiSeriesDataModel.getDataPointCount(), maxDataPoints, i + 1 );
     }
 
     return multiSeriesDataModel;
   }
 
-  private static NamedValuesDataModel createNamedValueDataModel( Object[][] queryResults, int domainColumn,
+  private static NamedValuesDataModel createNamedValueDataModel( Iterator<Object[]> rows, int domainColumn,
                                                                  int rangeColumn, boolean convertNullsToZero,
-                                                                 boolean autoSum ) {
+                                                                 boolean autoSum, int maxDataPoints,
+                                                                 BuildSettings settings )
+    throws ChartDataOverflowException {
     NamedValuesDataModel basicChartDataModel = new NamedValuesDataModel();
 
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainValue = null;
-      if ( domainColumn > -1 ) {
-        domainValue = queryResults[ i ][ domainColumn ];
-      }
-      if ( domainValue == null ) {
-        domainValue = "null";
+    if ( autoSum ) {
+      // Values are aggregated on primitives and only boxed into the named values once all rows have been read
+      for ( Map.Entry<String, ValueAccumulator> mapEntry : accumulateNamedValues( rows, domainColumn, rangeColumn,
+        convertNullsToZero, maxDataPoints, settings ).entrySet() ) {
+        basicChartDataModel.add( new NamedValue( mapEntry.getKey(), mapEntry.getValue().getValue() ) );
       }
+      return basicChartDataModel;
+    }
 
-      String name = domainValue.toString();
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object[] row = rows.next();
+      basicChartDataModel.add( new NamedValue( getName( row, domainColumn ),
+        getRangeValue( row, rangeColumn, convertNullsToZero ) ) );
+      checkDataPointCount( basicChartDataModel.size(), maxDataPoints, i + 1 );
+    }
+    return basicChartDataModel;
+  }
 
-      Object rangeValue = queryResults[ i ][ rangeColumn ];
-      if ( rangeValue == null ) {
-        if ( convertNullsToZero ) {
-          rangeValue = new Integer( 0 );
-        }
-      } else if ( !( rangeValue instanceof Number ) ) {
-        rangeValue = null;
+  /**
+   * @return the aggregated values of each distinct name, in first-seen order.
+   */
+  private static LinkedHashMap<String, ValueAccumulator> accumulateNamedValues( Iterator<Object[]> rows,
+                                                                               final int domainColumn,
+                                                                               final int rangeColumn,
+                                                                               final boolean convertNullsToZero,
+                                                                               final int maxDataPoints,
+                                                                               final BuildSettings settings )
+    throws ChartDataOverflowException {
+    if ( isParallelBuild( rows, settings ) ) {
+      PartialModelBuilder<LinkedHashMap<String, ValueAccumulator>> builder =
+        new PartialModelBuilder<LinkedHashMap<String, ValueAccumulator>>() {
+          LinkedHashMap<String, ValueAccumulator> build( Iterator<Object[]> partitionRows )
+            throws ChartDataOverflowException {
+            return accumulateNamedValues( partitionRows, domainColumn, rangeColumn, convertNullsToZero,
+              maxDataPoints, settings );
+          }
+
+          void merge( LinkedHashMap<String, ValueAccumulator> part,
+                      LinkedHashMap<String, ValueAccumulator> followingPart ) {
+            for ( Map.Entry<String, ValueAccumulator> mapEntry : followingPart.entrySet() ) {
+              ValueAccumulator accumulator = part.get( mapEntry.getKey() );
+              if ( accumulator == null ) {
+                part.put( mapEntry.getKey(), mapEntry.getValue() );
+              } else {
+                accumulator.addAll( mapEntry.getValue() );
+              }
+            }
+          }
+
+          int getDataPointCount( LinkedHashMap<String, ValueAccumulator> part ) {
+            return part.size();
+          }
+        };
+      LinkedHashMap<String, ValueAccumulator> accumulators =
+        buildInParallel( (QueryResultsIterator) rows, builder, maxDataPoints );
+      if ( accumulators != null ) {
+        return accumulators;
       }
+    }
 
-      if ( autoSum ) {
-        NamedValue existingDataPoint = basicChartDataModel.getNamedValue( name );
-        if ( existingDataPoint == null ) {
-          basicChartDataModel.add( new NamedValue( name, (Number) rangeValue ) );
-        } else if ( existingDataPoint.getValue() == null ) {
-          existingDataPoint.setValue( (Number) rangeValue );
-        } else if ( rangeValue != null ) {
-          existingDataPoint.setValue( ( (Number) existingDataPoint.getValue() ).doubleValue() + ( (Number) rangeValue )
-            .doubleValue() );
-        }
-      } else {
-        basicChartDataModel.add( new NamedValue( name, (Number) rangeValue ) );
+    LinkedHashMap<String, ValueAccumulator> accumulators = new LinkedHashMap<String, ValueAccumulator>();
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object[] row = rows.next();
+      String name = getName( row, domainColumn );
+      ValueAccumulator accumulator = accumulators.get( name );
+      if ( accumulator == null ) {
+        accumulator = new ValueAccumulator( settings.aggregate );
+        accumulators.put( name, accumulator );
       }
+      accumulator.add( getRangeValue( row, rangeColumn, convertNullsToZero ) );
+      checkDataPointCount( accumulators.size(), maxDataPoints, i + 1 );
     }
+    return accumulators;
+  }
 
-    return basicChartDataModel;
+  private static String getName( Object[] row, int domainColumn ) {
+    Object domainValue = null;
+    if ( domainColumn > -1 ) {
+      domainValue = row[ domainColumn ];
+    }
+    if ( domainValue == null ) {
+      domainValue = "null";
+    }
+    return domainValue.toString();
   }
 
-  private static BasicDataModel createBasicDataModel( Object[][] queryResults, int rangeColumn,
-                                                      boolean convertNullsToZero, boolean autoSum ) {
-    BasicDataModel oneDimensionalDataModel = new BasicDataModel( autoSum );
+  private static Number getRangeValue( Object[] row, int rangeColumn, boolean convertNullsToZero ) {
+    Object rangeValue = row[ rangeColumn ];
+    if ( rangeValue == null ) {
+      if ( convertNullsToZero ) {
+        rangeValue = new Integer( 0 );
+      }
+    } else if ( !( rangeValue instanceof Number ) ) {
+      rangeValue = null;
+    }
+    return (Number) rangeValue;
+  }
+
+  private static BasicDataModel createBasicDataModel( Iterator<Object[]> rows, int rangeColumn,
+                                                      boolean convertNullsToZero, boolean autoSum,
+                                                      int maxDataPoints, BuildSettings settings )
+    throws ChartDataOverflowException {
+    BasicDataModel oneDimensionalDataModel = new BasicDataModel( autoSum, settings.aggregate );
 
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object rangeValue = queryResults[ i ][ rangeColumn ];
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object rangeValue = rows.next()[ rangeColumn ];
       if ( rangeValue == null ) {
         if ( convertNullsToZero ) {
           rangeValue = new Integer( 0 );
@@ -342,17 +800,20 @@ public class ChartBeanFactory {
       }
 
       oneDimensionalDataModel.addDataPoint( (Number) rangeValue );
+      checkDataPointCount( oneDimensionalDataModel.size(), maxDataPoints, i + 1 );
     }
 
     return oneDimensionalDataModel;
   }
 
-  private static XYDataModel createXYDataModel( Object[][] queryResults, int seriesColumn, int rangeColumn,
-                                                boolean convertNullsToZero ) {
+  private static XYDataModel createXYDataModel( Iterator<Object[]> rows, int seriesColumn, int rangeColumn,
+                                                boolean convertNullsToZero, int maxDataPoints )
+    throws ChartDataOverflowException {
     XYDataModel basicChartDataModel = new XYDataModel();
 
-    for ( int i = 0; i < queryResults.length; i++ ) {
-      Object domainValue = queryResults[ i ][ rangeColumn ];
+    for ( int i = 0; rows.hasNext(); i++ ) {
+      Object[] row = rows.next();
+      Object domainValue = row[ rangeColumn ];
       if ( domainValue == null ) {
         if ( convertNullsToZero ) {
           domainValue = new Integer( 0 );
@@ -361,7 +822,7 @@ public class ChartBeanFactory {
         domainValue = null;
       }
 
-      Object rangeValue = queryResults[ i ][ rangeColumn ];
+      Object rangeValue = row[ rangeColumn ];
       if ( rangeValue == null ) {
         if ( convertNullsToZero ) {
           rangeValue = new Integer( 0 );
@@ -372,10 +833,131 @@ public class ChartBeanFactory {
 
       if ( ( domainValue != null ) && ( rangeValue != null ) ) {
         basicChartDataModel.add( new XYDataPoint( (Number) domainValue, (Number) rangeValue ) );
+        checkDataPointCount( basicChartDataModel.size(), maxDataPoints, i + 1 );
       }
     }
 
     return basicChartDataModel;
   }
 
+  private static boolean isParallelBuild( Iterator<Object[]> rows, BuildSettings settings ) {
+    return ( settings.parallelBuildThreshold > 0 ) && ( rows instanceof QueryResultsIterator )
+      && ( ( (QueryResultsIterator) rows ).remaining() >= settings.parallelBuildThreshold );
+  }
+
+  /**
+   * The settings that shape a data model, read once on the thread that starts building it, so that runs built on
+   * other threads use the same settings even if they are changed meanwhile.
+   */
+  private static class BuildSettings {
+    final Aggregate aggregate = AGGREGATE;
+    final boolean memoizeFormattedValues = MEMOIZE_FORMATTED_VALUES;
+    final int parallelBuildThreshold = PARALLEL_BUILD_THRESHOLD;
+  }
+
+  /**
+   * Builds the remaining rows in runs on the common {@link ForkJoinPool} and merges the runs in row order. The rows
+   * are only consumed if the result fits <code>maxDataPoints</code>; otherwise null is returned, and the caller builds
+   * the rows sequentially to find the row at which they overflow.
+   */
+  private static <P> P buildInParallel( QueryResultsIterator rows, PartialModelBuilder<P> builder, int maxDataPoints ) {
+    ForkJoinPool pool = ForkJoinPool.commonPool();
+    int partitionRows = Math.max( MIN_PARTITION_ROWS, rows.remaining() / ( pool.getParallelism() * 4 ) );
+    P part = pool.invoke(
+      new PartialModelTask<P>( builder, rows.queryResults, rows.position, rows.queryResults.length, partitionRows,
+        maxDataPoints ) );
+    if ( part != null ) {
+      rows.position = rows.queryResults.length;
+    }
+    return part;
+  }
+
+  /**
+   * Builds the part of a data model that holds a run of rows, and merges the parts of consecutive runs.
+   */
+  private abstract static class PartialModelBuilder<P> {
+    abstract P build( Iterator<Object[]> rows ) throws ChartDataOverflowException;
+
+    /**
+     * Merges the part built from the rows that follow those of <code>part</code> into <code>part</code>.
+     */
+    abstract void merge( P part, P followingPart );
+
+    abstract int getDataPointCount( P part );
+  }
+
+  private static class PartialModelTask<P> extends RecursiveTask<P> {
+    private final PartialModelBuilder<P> builder;
+    private final Object[][] queryResults;
+    private final int from;
+    private final int to;
+    private final int partitionRows;
+    private final int maxDataPoints;
+
+    PartialModelTask( PartialModelBuilder<P> builder, Object[][] queryResults, int from, int to, int partitionRows,
+                      int maxDataPoints ) {
+      this.builder = builder;
+      this.queryResults = queryResults;
+      this.from = from;
+      this.to = to;
+      this.partitionRows = partitionRows;
+      this.maxDataPoints = maxDataPoints;
+    }
+
+    /**
+     * @return the part built from the rows, or null if they hold more data points than allowed.
+     */
+    protected P compute() {
+      if ( to - from <= partitionRows ) {
+        try {
+          return builder.build( Arrays.asList( queryResults ).subList( from, to ).iterator() );
+        } catch ( ChartDataOverflowException e ) {
+          return null;
+        }
+      }
+      int middle = ( from + to ) >>> 1;
+      PartialModelTask<P> followingTask =
+        new PartialModelTask<P>( builder, queryResults, middle, to, partitionRows, maxDataPoints );
+      followingTask.fork();
+      P part = new PartialModelTask<P>( builder, queryResults, from, middle, partitionRows, maxDataPoints ).compute();
+      P followingPart = followingTask.join();
+      if ( ( part == null ) || ( followingPart == null ) ) {
+        return null;
+      }
+      builder.merge( part, followingPart );
+      return builder.getDataPointCount( part ) > maxDataPoints ? null : part;
+    }
+  }
+
+  /**
+   * Iterates over an array of rows, so that the model builders can split the remaining rows for parallel building.
+   */
+  private static class QueryResultsIterator implements Iterator<Object[]> {
+    final Object[][] queryResults;
+    int position;
+
+    QueryResultsIterator( Object[][] queryResults ) {
+      this.queryResults = queryResults;
+    }
+
+    int remaining() {
+      return queryResults.length - position;
+    }
+
+    public boolean hasNext() {
+      return position < queryResults.length;
+    }
+
+    public Object[] next() {
+      if ( position >= queryResults.length ) {
+        throw new NoSuchElementException();
+      }
+      return queryResults[ position++ ];
+    }
+
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+  }
+
 }
@@ -17,11 +17,14 @@ import org.pentaho.reporting.libraries.base.boot.AbstractBoot;
 import org.pentaho.reporting.libraries.base.config.Configuration;
 import org.pentaho.reporting.libraries.base.versioning.ProjectInformation;
 import org.pentaho.reporting.libraries.css.model.StyleKeyRegistry;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
 
 @SuppressWarnings({"StaticNonFinalField"})
 public class ChartBoot extends AbstractBoot {
   private static ChartBoot instance=null;
 
+  private ResourceManager resourceManager;
+
   public static synchronized ChartBoot getInstance() {
     if (ChartBoot.instance == null) {
       ChartBoot.instance = new ChartBoot();
@@ -41,6 +44,21 @@ public class ChartBoot extends AbstractBoot {
         ChartBoot.class);
   }
 
+  /**
+   * Returns the <code>ResourceManager</code> shared by the charting API. It is created the first time it is requested,
+   * after the charting API and the libraries it depends on have been booted, and has the default loaders, factories
+   * and caches registered.
+   */
+  public synchronized ResourceManager getResourceManager() {
+    if (resourceManager == null) {
+      start();
+      final ResourceManager manager = new ChartResourceManager();
+      manager.registerDefaults();
+      resourceManager = manager;
+    }
+    return resourceManager;
+  }
+
   protected void performBoot() {
     // nothing required. Just gather the configuration.
   }
@@ -27,6 +27,10 @@ public class ChartDefinitionFactory {
     return new ChartDefinitionImpl(doc);
   }
 
+  /**
+   * Loads the chart definition with the shared <code>ResourceManager</code>
+   * @see ChartBoot#getResourceManager()
+   */
   public static ChartDefinition createChartDefinition(ResourceKey chartKey) throws ResourceException {
     return new ChartDefinitionImpl(null, chartKey);
   }
@@ -39,6 +43,10 @@ public class ChartDefinitionFactory {
     return new ChartDefinitionImpl(data, doc);
   }
 
+  /**
+   * Loads the chart definition with the shared <code>ResourceManager</code>
+   * @see ChartBoot#getResourceManager()
+   */
   public static ChartDefinition createChartDefinition(ChartData data, ResourceKey chartKey) throws ResourceException {
     return new ChartDefinitionImpl(data, null, chartKey);
   }
@@ -61,8 +61,7 @@ public class ChartDefinitionImpl implements ChartDefinition {
     this.chartKey = this.chartDocument.getResourceKey();
     this.resourceManager = this.chartDocument.getResourceManager();
     if (this.resourceManager == null) {
-      this.resourceManager = new ResourceManager();
-      this.resourceManager.registerDefaults();
+      this.resourceManager = ChartBoot.getInstance().getResourceManager();
     }
   }
 
@@ -91,11 +90,11 @@ public class ChartDefinitionImpl implements ChartDefinition {
     this.chartKey = key;
     this.resourceManager = manager;
     if (this.resourceManager == null) {
-      this.resourceManager = new ResourceManager();
-      this.resourceManager.registerDefaults();
+      this.resourceManager = ChartBoot.getInstance().getResourceManager();
     }
     final Resource resource = this.resourceManager.create(this.chartKey, null, ChartDocument.class);
-    this.chartDocument = (ChartDocument)resource.getResource();
+    // The resource manager may cache the parsed document, so keep a copy that is private to this definition
+    this.chartDocument = ((ChartDocument)resource.getResource()).copy();
   }
 
   /**
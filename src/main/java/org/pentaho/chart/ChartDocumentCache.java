@@ -0,0 +1,156 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart;
+
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pentaho.chart.core.ChartDocument;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+/**
+ * Caches parsed chart definitions, so that a chart definition that is used over and over is only parsed and has its
+ * styles resolved once.
+ * <p/>
+ * A cached chart definition is reused for as long as its resource has not changed, as reported by the
+ * <code>ResourceManager</code>. Every caller gets its own copy of the cached <code>ChartDocument</code>, which it is
+ * free to modify.
+ *
+ * @see ChartFactory#getChartDocument(URL, boolean)
+ */
+public class ChartDocumentCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 128;
+
+  /**
+   * The resource manager used to load and validate chart definitions
+   */
+  private final ResourceManager resourceManager;
+
+  /**
+   * The cached chart documents, least recently used first
+   */
+  private final LinkedHashMap<CacheKey, CacheEntry> entries;
+
+  public ChartDocumentCache() {
+    this(ChartBoot.getInstance().getResourceManager(), DEFAULT_MAX_ENTRIES);
+  }
+
+  /**
+   * @param resourceManager the <code>ResourceManager</code> used to load and validate chart definitions
+   * @param maxEntries      the maximum number of chart documents to cache
+   */
+  public ChartDocumentCache(final ResourceManager resourceManager, final int maxEntries) {
+    if (resourceManager == null || maxEntries <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.resourceManager = resourceManager;
+    this.entries = new LinkedHashMap<CacheKey, CacheEntry>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(final Map.Entry<CacheKey, CacheEntry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns a copy of the chart document parsed from the given chart definition, parsing it only if it is not cached
+   * or has changed since it was cached.
+   *
+   * @param chartURL      the URL of the chart definition
+   * @param cascadeStyles whether the style information of the chart elements should be resolved
+   * @throws ResourceException indicates an error loading the chart definition
+   */
+  public ChartDocument getChartDocument(final URL chartURL, final boolean cascadeStyles) throws ResourceException {
+    final ResourceKey resourceKey = resourceManager.createKey(chartURL);
+    final CacheKey cacheKey = new CacheKey(resourceKey, cascadeStyles);
+
+    CacheEntry entry;
+    synchronized (entries) {
+      entry = entries.get(cacheKey);
+    }
+    if (entry == null || !resourceManager.isResourceUnchanged(entry.resource)) {
+      entry = load(resourceKey, cascadeStyles);
+      synchronized (entries) {
+        entries.put(cacheKey, entry);
+      }
+    }
+    return entry.chartDocument.copy();
+  }
+
+  /**
+   * Removes all cached chart documents
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public ResourceManager getResourceManager() {
+    return resourceManager;
+  }
+
+  private CacheEntry load(final ResourceKey resourceKey, final boolean cascadeStyles) throws ResourceException {
+    final Resource resource = resourceManager.create(resourceKey, null, ChartDocument.class);
+    // The resource manager may cache the parsed document, so the cached document must be a private copy
+    final ChartDocument chart = ((ChartDocument) resource.getResource()).copy();
+    chart.setResourceManager(resourceManager);
+    chart.setResourceKey(resource.getSource());
+
+    if (cascadeStyles) {
+      ChartFactory.resolveStyles(chart, new ChartDocumentContext(chart));
+    }
+    return new CacheEntry(resource, chart);
+  }
+
+  private static class CacheKey {
+    private final ResourceKey resourceKey;
+    private final boolean cascadeStyles;
+
+    CacheKey(final ResourceKey resourceKey, final boolean cascadeStyles) {
+      this.resourceKey = resourceKey;
+      this.cascadeStyles = cascadeStyles;
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof CacheKey)) {
+        return false;
+      }
+      final CacheKey other = (CacheKey) o;
+      return cascadeStyles == other.cascadeStyles && resourceKey.equals(other.resourceKey);
+    }
+
+    public int hashCode() {
+      return 31 * resourceKey.hashCode() + (cascadeStyles ? 1 : 0);
+    }
+  }
+
+  private static class CacheEntry {
+    private final Resource resource;
+    private final ChartDocument chartDocument;
+
+    CacheEntry(final Resource resource, final ChartDocument chartDocument) {
+      this.resource = resource;
+      this.chartDocument = chartDocument;
+    }
+  }
+}
@@ -55,7 +55,8 @@ public class ChartDocumentContext implements DocumentContext
   {
     // Save the information from the chart
     this.chartDocument = chart;
-    this.resourceManager = chart.getResourceManager();
+    this.resourceManager = (chart.getResourceManager() != null)
+        ? chart.getResourceManager() : ChartBoot.getInstance().getResourceManager();
     this.resourceKey = chart.getResourceKey();
 
     // Setup the namespace collection
@@ -19,7 +19,6 @@ import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.URL;
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -29,23 +28,23 @@ import java.util.TreeSet;
 import org.pentaho.chart.core.ChartDocument;
 import org.pentaho.chart.core.ChartElement;
 import org.pentaho.chart.core.ChartSeriesDataLinkInfoFactory;
-import org.pentaho.chart.core.parser.ChartXMLParser;
 import org.pentaho.chart.data.ChartTableModel;
 import org.pentaho.chart.model.ChartModel;
 import org.pentaho.chart.model.PiePlot;
 import org.pentaho.chart.model.StyledText;
 import org.pentaho.chart.model.CssStyle.FontStyle;
 import org.pentaho.chart.model.CssStyle.FontWeight;
+import org.pentaho.chart.plugin.ChartPluginRegistry;
 import org.pentaho.chart.plugin.ChartProcessingException;
 import org.pentaho.chart.plugin.IChartPlugin;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.api.PersistenceException;
 import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
-import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
-import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
 import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
+import org.pentaho.reporting.libraries.css.dom.StyleReference;
 import org.pentaho.reporting.libraries.css.keys.color.ColorStyleKeys;
 import org.pentaho.reporting.libraries.css.keys.font.FontStyleKeys;
+import org.pentaho.reporting.libraries.css.model.StyleKeyRegistry;
 import org.pentaho.reporting.libraries.css.resolver.StyleResolver;
 import org.pentaho.reporting.libraries.css.resolver.impl.DefaultStyleResolver;
 import org.pentaho.reporting.libraries.css.values.CSSColorValue;
@@ -63,26 +62,13 @@ import org.pentaho.reporting.libraries.resourceloader.ResourceKeyCreationExcepti
 public class ChartFactory {
   private static final String UNIDENTIFIED = "Unable To Identify";
 
-  private static List<IChartPlugin> chartPlugins = new ArrayList<IChartPlugin>();
+  private static final ChartDocumentCache chartDocumentCache = new ChartDocumentCache();
 
   private ChartFactory() {
   }
 
   public static IChartPlugin getPlugin(String pluginId) {
-    IChartPlugin plugin = null;
-    for (IChartPlugin tmpPlugin : chartPlugins) {
-      if (tmpPlugin.getPluginId().equals(pluginId)) {
-        plugin = tmpPlugin;
-      }
-    }
-    if ((plugin == null) && (chartPlugins.size() == 0)) {
-      if (JFreeChartPlugin.PLUGIN_ID.equals(pluginId)) {
-        plugin = new JFreeChartPlugin();
-      } else if (OpenFlashChartPlugin.PLUGIN_ID.equals(pluginId)){
-        plugin = new OpenFlashChartPlugin();
-      }
-    }
-    return plugin;
+    return ChartPluginRegistry.getPlugin(pluginId);
   }
 
   /**
@@ -90,7 +76,7 @@ public class ChartFactory {
    *  to initialize the available plugins from the chartbeans configuration file. 
    */
   public static void loadDefaultChartPlugins(List <IChartPlugin> plugins) {
-	  chartPlugins = plugins;
+    ChartPluginRegistry.loadPlugins(plugins);
   }
 
 
@@ -110,20 +96,21 @@ public class ChartFactory {
     return getChartDocument(chartURL, true);
   }
 
+  /**
+   * Returns the chart document parsed from the given chart definition. Parsed chart definitions are cached, and every
+   * call returns a new copy that the caller is free to modify.
+   *
+   * @see ChartDocumentCache
+   */
   public static ChartDocument getChartDocument(final URL chartURL, boolean cascadeStyles) throws ResourceException {
-    // Parse the chart
-    final ChartXMLParser chartParser = new ChartXMLParser();
-    final ChartDocument chart = chartParser.parseChartDocument(chartURL);
-
-    if (cascadeStyles) {
-      // Create a ChartDocumentContext
-      final ChartDocumentContext cdc = new ChartDocumentContext(chart);
-
-      // Resolve the style information
-      ChartFactory.resolveStyles(chart, cdc);
-    }
+    return chartDocumentCache.getChartDocument(chartURL, cascadeStyles);
+  }
 
-    return chart;
+  /**
+   * Returns the cache of parsed chart definitions used by {@link #getChartDocument(URL, boolean)}
+   */
+  public static ChartDocumentCache getChartDocumentCache() {
+    return chartDocumentCache;
   }
 
   /**
@@ -172,12 +159,21 @@ public class ChartFactory {
     // Get the style resolveer
     final StyleResolver sr = ChartFactory.getStyleResolver(cdc);
 
+    // Elements with the same selector signature share the result of one cascade
+    final ComputedStyleCache styleCache =
+        new ComputedStyleCache(StyleKeyRegistry.getRegistry().getKeys(), mayUseSiblingSelectors(cdc));
+
     // Resolve the style for all the nodes in the chart
     ChartElement element = chart.getRootElement();
     while (element != null) {
       // Resolve this element's style (if it hasn't been done before)
       if (element.isStyleResolved() == false) {
-        sr.resolveStyle(element);
+        if (styleCache.applyCachedStyle(element) == false) {
+          sr.resolveStyle(element);
+          styleCache.cacheStyle(element);
+        }
+      } else {
+        styleCache.markUnique(element);
       }
 
       // Get the next element to process
@@ -185,6 +181,19 @@ public class ChartFactory {
     }
   }
 
+  /**
+   * Indicates if the style sheets of a chart may hold sibling selectors (<code>E + F</code>). The default style sheets
+   * hold none. Inline style sheets are searched for the combinator, and linked style sheets are assumed to hold some.
+   */
+  private static boolean mayUseSiblingSelectors(final ChartDocumentContext cdc) {
+    for (final StyleReference styleReference : cdc.getStyleReferences()) {
+      if (styleReference.getType() != StyleReference.INLINE || styleReference.getStyleContent() == null
+          || styleReference.getStyleContent().indexOf('+') >= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
 
   private static void setElementFont(ChartElement chartElement, String fontFamily, Integer fontSize,
       FontStyle fontStyle, FontWeight fontWeight) {
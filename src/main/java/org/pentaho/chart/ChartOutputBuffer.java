@@ -0,0 +1,108 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A byte array output stream that can be read back without copying its contents, and whose buffer is returned to a
+ * pool for reuse once the stream reading it is closed.
+ * <p/>
+ * The pool is static and is never trimmed: it keeps up to {@link #MAX_POOLED_BUFFERS} buffers of up to
+ * {@link #MAX_POOLED_CAPACITY} bytes each, so up to 64 MB stays allocated for the life of the JVM once that many
+ * large charts have been written at the same time.
+ */
+public class ChartOutputBuffer extends ByteArrayOutputStream {
+
+  public static final int INITIAL_CAPACITY = 64 * 1024;
+
+  public static final int MAX_POOLED_BUFFERS = 16;
+
+  /**
+   * Buffers that have grown larger than this are not returned to the pool
+   */
+  public static final int MAX_POOLED_CAPACITY = 4 * 1024 * 1024;
+
+  private static final ConcurrentLinkedQueue<ChartOutputBuffer> pool = new ConcurrentLinkedQueue<ChartOutputBuffer>();
+
+  private static final AtomicInteger pooledBuffers = new AtomicInteger();
+
+  private ChartOutputBuffer() {
+    super( INITIAL_CAPACITY );
+  }
+
+  /**
+   * @return an empty buffer, taken from the pool if one is available.
+   */
+  public static ChartOutputBuffer acquire() {
+    ChartOutputBuffer buffer = pool.poll();
+    if ( buffer == null ) {
+      return new ChartOutputBuffer();
+    }
+    pooledBuffers.decrementAndGet();
+    return buffer;
+  }
+
+  /**
+   * Returns this buffer to the pool. The buffer must not be used afterwards.
+   */
+  public void release() {
+    reset();
+    if ( ( buf.length <= MAX_POOLED_CAPACITY ) && ( pooledBuffers.incrementAndGet() <= MAX_POOLED_BUFFERS ) ) {
+      pool.offer( this );
+    } else if ( buf.length <= MAX_POOLED_CAPACITY ) {
+      pooledBuffers.decrementAndGet();
+    }
+  }
+
+  /**
+   * @return a stream that reads the contents of this buffer in place. Closing the stream releases this buffer, after
+   * which neither the stream nor the buffer may be used.
+   */
+  public InputStream toInputStream() {
+    return new BufferInputStream( this );
+  }
+
+  private static class BufferInputStream extends ByteArrayInputStream {
+
+    private static final byte[] EMPTY = new byte[ 0 ];
+
+    private ChartOutputBuffer buffer;
+
+    BufferInputStream( ChartOutputBuffer buffer ) {
+      super( buffer.buf, 0, buffer.count );
+      this.buffer = buffer;
+    }
+
+    /**
+     * Releases the buffer and leaves this stream empty, so every read after closing behaves as at the end of the stream.
+     */
+    public synchronized void close() {
+      if ( buffer != null ) {
+        ChartOutputBuffer released = buffer;
+        buffer = null;
+        buf = EMPTY;
+        pos = 0;
+        count = 0;
+        mark = 0;
+        released.release();
+      }
+    }
+  }
+}
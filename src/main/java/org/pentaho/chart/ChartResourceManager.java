@@ -0,0 +1,62 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart;
+
+import org.pentaho.chart.css.StyleSheetCache;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceCreationException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceLoadingException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+/**
+ * The <code>ResourceManager</code> used by the charting API. Style sheets requested by the CSS style resolver are
+ * served from the {@link StyleSheetCache}, so that they are not parsed again for every chart.
+ *
+ * @see ChartBoot#getResourceManager()
+ */
+public class ChartResourceManager extends ResourceManager {
+
+  private final StyleSheetCache styleSheetCache;
+
+  public ChartResourceManager() {
+    this(StyleSheetCache.getInstance());
+  }
+
+  public ChartResourceManager(final StyleSheetCache styleSheetCache) {
+    if (styleSheetCache == null) {
+      throw new IllegalArgumentException();
+    }
+    this.styleSheetCache = styleSheetCache;
+  }
+
+  public Resource create(final ResourceKey key, final ResourceKey context, final Class[] target)
+      throws ResourceLoadingException, ResourceCreationException {
+    if (key == null || !StyleSheetCache.isStyleSheetRequest(target)) {
+      return super.create(key, context, target);
+    }
+    return styleSheetCache.getStyleSheet(this, key, context, new StyleSheetCache.StyleSheetLoader() {
+      public Resource load(final ResourceKey key, final ResourceKey context)
+          throws ResourceLoadingException, ResourceCreationException {
+        return createUncached(key, context, target);
+      }
+    });
+  }
+
+  private Resource createUncached(final ResourceKey key, final ResourceKey context, final Class[] target)
+      throws ResourceLoadingException, ResourceCreationException {
+    return super.create(key, context, target);
+  }
+}
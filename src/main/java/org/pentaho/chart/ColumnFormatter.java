@@ -0,0 +1,83 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.pentaho.commons.connection.IPentahoMetaData;
+import org.pentaho.metadata.model.concept.types.DataType;
+import org.pentaho.metadata.model.concept.util.DataFormatter;
+
+/**
+ * Formats the values of one result column for display as category and series names. The column's mask and data type
+ * are read from the metadata once, when the formatter is created, instead of for every row.
+ * <p/>
+ * Optionally, the formatted string of each distinct value is remembered, so that a column with few distinct values,
+ * such as a category column, formats each value once. Only the first {@link #MAX_MEMOIZED_VALUES} distinct values are
+ * remembered. A formatter is meant to be used by one thread while one data model is built.
+ */
+class ColumnFormatter {
+
+  static final int MAX_MEMOIZED_VALUES = 1024;
+
+  private static final String META_DATA_MASK_ATTRIBUTE = "mask";
+  private static final String META_DATA_DATATYPE_ATTRIBUTE = "datatype";
+  private static final int META_DATA_ROW_WITH_ATTRIBUTE = 0;
+
+  private final boolean hasMetaData;
+  private final String mask;
+  private final DataType dataType;
+  private final Map<Object, String> formattedValues;
+
+  private ColumnFormatter( boolean hasMetaData, String mask, DataType dataType, boolean memoize ) {
+    this.hasMetaData = hasMetaData;
+    this.mask = mask;
+    this.dataType = dataType;
+    this.formattedValues = ( hasMetaData && memoize ) ? new HashMap<Object, String>() : null;
+  }
+
+  /**
+   * @param metaData the metadata of the result, or null to format values with <code>toString()</code>.
+   * @param column   the index of the column, or a negative number if the column is not used.
+   * @param memoize  whether to remember the formatted strings of distinct values.
+   */
+  static ColumnFormatter create( IPentahoMetaData metaData, int column, boolean memoize ) {
+    if ( ( metaData == null ) || ( column < 0 ) ) {
+      return new ColumnFormatter( false, null, null, false );
+    }
+    String mask = (String) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, column, META_DATA_MASK_ATTRIBUTE );
+    DataType dataType =
+      (DataType) metaData.getAttribute( META_DATA_ROW_WITH_ATTRIBUTE, column, META_DATA_DATATYPE_ATTRIBUTE );
+    return new ColumnFormatter( true, mask, dataType, memoize );
+  }
+
+  String format( Object value ) {
+    if ( !hasMetaData ) {
+      return value.toString();
+    }
+    if ( formattedValues == null ) {
+      return DataFormatter.getFormatedString( dataType, mask, value );
+    }
+    String formatted = formattedValues.get( value );
+    if ( ( formatted == null ) && !formattedValues.containsKey( value ) ) {
+      formatted = DataFormatter.getFormatedString( dataType, mask, value );
+      if ( formattedValues.size() < MAX_MEMOIZED_VALUES ) {
+        formattedValues.put( value, formatted );
+      }
+    }
+    return formatted;
+  }
+}
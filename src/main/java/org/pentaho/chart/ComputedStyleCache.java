@@ -0,0 +1,283 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.chart.core.ChartElement;
+import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
+import org.pentaho.reporting.libraries.css.model.StyleKey;
+import org.pentaho.reporting.libraries.css.values.CSSValue;
+
+/**
+ * Remembers the computed style of the elements of a chart document while its styles are resolved, so that elements
+ * that would match exactly the same style rules share one cascade instead of each paying for their own.
+ * <p/>
+ * Two elements share a computed style when they have the same selector signature: the same tag name, the same
+ * attributes (which include the element's namespace, class, id and inline style), the same parent signature, the
+ * same sibling context, and whether it has children. Without sibling selectors (<code>E + F</code>) only
+ * <code>:first-child</code> looks at the siblings of an element, so the sibling context is whether the element is a
+ * first child. Sibling selectors can be chained (<code>A + B + C</code>) to reach any earlier sibling, so if the style
+ * sheets may hold them, the sibling context is the tag names and attributes of all the earlier siblings. An element
+ * whose style was set before the cascade, and any of its descendants, never shares a computed style, since what it
+ * inherits cannot be derived from its signature.
+ *
+ * @see ChartFactory#resolveStyles(org.pentaho.chart.core.ChartDocument, ChartDocumentContext)
+ */
+class ComputedStyleCache {
+
+  /**
+   * Signature of elements whose computed style must not be shared
+   */
+  private static final Object UNIQUE = new Object();
+
+  private final StyleKey[] styleKeys;
+
+  private final boolean siblingSelectors;
+
+  private final IdentityHashMap<ChartElement, Object> signatures = new IdentityHashMap<ChartElement, Object>();
+
+  /**
+   * The earlier siblings of the elements seen so far, only kept if there may be sibling selectors
+   */
+  private final IdentityHashMap<ChartElement, Siblings> precedingSiblings =
+      new IdentityHashMap<ChartElement, Siblings>();
+
+  private final HashMap<Object, ComputedStyle> computedStyles = new HashMap<Object, ComputedStyle>();
+
+  /**
+   * @param siblingSelectors whether the style sheets may hold sibling selectors
+   */
+  ComputedStyleCache(final StyleKey[] styleKeys, final boolean siblingSelectors) {
+    this.styleKeys = styleKeys;
+    this.siblingSelectors = siblingSelectors;
+  }
+
+  /**
+   * Copies the computed style of an element with the same signature into the given element, if such an element has
+   * been resolved already. Parents must be passed to this method before their children.
+   *
+   * @return <code>true</code> if the style of the element was set, <code>false</code> if it needs to be resolved.
+   */
+  boolean applyCachedStyle(final ChartElement element) {
+    final Object signature = createSignature(element);
+    signatures.put(element, signature);
+    if (signature == UNIQUE) {
+      return false;
+    }
+
+    final ComputedStyle computedStyle = computedStyles.get(signature);
+    if (computedStyle == null) {
+      return false;
+    }
+    final LayoutStyle layoutStyle = element.getLayoutStyle();
+    for (int i = 0; i < computedStyle.keys.length; i++) {
+      layoutStyle.setValue(computedStyle.keys[i], computedStyle.values[i]);
+    }
+    return true;
+  }
+
+  /**
+   * Remembers the computed style of an element that has just been resolved
+   */
+  void cacheStyle(final ChartElement element) {
+    final Object signature = signatures.get(element);
+    if (signature == null || signature == UNIQUE) {
+      return;
+    }
+
+    final LayoutStyle layoutStyle = element.getLayoutStyle();
+    final List<StyleKey> keys = new ArrayList<StyleKey>();
+    final List<CSSValue> values = new ArrayList<CSSValue>();
+    for (final StyleKey styleKey : styleKeys) {
+      final CSSValue value = layoutStyle.getValue(styleKey);
+      if (value != null) {
+        keys.add(styleKey);
+        values.add(value);
+      }
+    }
+    computedStyles.put(signature, new ComputedStyle(keys.toArray(new StyleKey[keys.size()]),
+        values.toArray(new CSSValue[values.size()])));
+  }
+
+  /**
+   * Records that the style of an element was set before the cascade, so that neither it nor its descendants share
+   * a computed style
+   */
+  void markUnique(final ChartElement element) {
+    signatures.put(element, UNIQUE);
+  }
+
+  private Object createSignature(final ChartElement element) {
+    Object parentSignature = null;
+    final ChartElement parent = element.getParentItem();
+    if (parent != null) {
+      parentSignature = signatures.get(parent);
+      if (parentSignature == null || parentSignature == UNIQUE) {
+        return UNIQUE;
+      }
+    }
+
+    final ChartElement previous = element.getPreviousItem();
+    final Object siblingContext;
+    if (siblingSelectors) {
+      siblingContext = getPrecedingSiblings(element);
+    } else {
+      siblingContext = Boolean.valueOf(previous == null);
+    }
+    final boolean empty = element.getFirstChildItem() == null;
+    return new Signature(parentSignature, createLocalSignature(element), siblingContext, empty);
+  }
+
+  /**
+   * Returns the earlier siblings of an element, nearest first, or <code>null</code> for a first child. Elements are
+   * usually passed in document order, so each element extends the siblings of the element before it.
+   */
+  private Siblings getPrecedingSiblings(final ChartElement element) {
+    ChartElement previous = element.getPreviousItem();
+    if (previous == null) {
+      return null;
+    }
+    Siblings siblings = precedingSiblings.get(element);
+    if (siblings != null) {
+      return siblings;
+    }
+
+    // Walk back to the nearest sibling whose earlier siblings are known, then extend them forward
+    final ArrayList<ChartElement> unknown = new ArrayList<ChartElement>();
+    ChartElement current = element;
+    while (previous != null && !precedingSiblings.containsKey(current)) {
+      unknown.add(current);
+      current = previous;
+      previous = previous.getPreviousItem();
+    }
+    siblings = precedingSiblings.get(current);
+    for (int i = unknown.size() - 1; i >= 0; i--) {
+      final ChartElement next = unknown.get(i);
+      siblings = new Siblings(createLocalSignature(next.getPreviousItem()), siblings);
+      precedingSiblings.put(next, siblings);
+    }
+    return siblings;
+  }
+
+  private static Object createLocalSignature(final ChartElement element) {
+    final Map<String, Map> attributes = new HashMap<String, Map>();
+    for (final String namespace : element.getAttributeNameSpaces()) {
+      attributes.put(namespace, new HashMap(element.getAttributes(namespace)));
+    }
+    final List<Object> signature = new ArrayList<Object>(2);
+    signature.add(element.getTagName());
+    signature.add(attributes);
+    return signature;
+  }
+
+  private static class Signature {
+    private final Object parent;
+    private final Object local;
+    private final Object siblings;
+    private final boolean empty;
+    private final int hashCode;
+
+    Signature(final Object parent, final Object local, final Object siblings, final boolean empty) {
+      this.parent = parent;
+      this.local = local;
+      this.siblings = siblings;
+      this.empty = empty;
+
+      int hash = local.hashCode();
+      hash = 31 * hash + (parent != null ? parent.hashCode() : 0);
+      hash = 31 * hash + (siblings != null ? siblings.hashCode() : 0);
+      this.hashCode = 31 * hash + (empty ? 1 : 0);
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Signature)) {
+        return false;
+      }
+      final Signature other = (Signature) o;
+      return hashCode == other.hashCode && empty == other.empty && local.equals(other.local)
+          && (siblings != null ? siblings.equals(other.siblings) : other.siblings == null)
+          && (parent != null ? parent.equals(other.parent) : other.parent == null);
+    }
+
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  /**
+   * The local signatures of the earlier siblings of an element, nearest first
+   */
+  private static class Siblings {
+    private final Object local;
+    private final Siblings previous;
+    private final int count;
+    private final int hashCode;
+
+    Siblings(final Object local, final Siblings previous) {
+      this.local = local;
+      this.previous = previous;
+      this.count = (previous != null) ? previous.count + 1 : 1;
+      this.hashCode = 31 * local.hashCode() + (previous != null ? previous.hashCode : 0);
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof Siblings)) {
+        return false;
+      }
+      // Compared iteratively, since an element may have thousands of earlier siblings
+      Siblings siblings = this;
+      Siblings other = (Siblings) o;
+      if (count != other.count) {
+        return false;
+      }
+      while (siblings != null) {
+        if (siblings == other) {
+          return true;
+        }
+        if (siblings.hashCode != other.hashCode || !siblings.local.equals(other.local)) {
+          return false;
+        }
+        siblings = siblings.previous;
+        other = other.previous;
+      }
+      return true;
+    }
+
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  private static class ComputedStyle {
+    private final StyleKey[] keys;
+    private final CSSValue[] values;
+
+    ComputedStyle(final StyleKey[] keys, final CSSValue[] values) {
+      this.keys = keys;
+      this.values = values;
+    }
+  }
+}
@@ -0,0 +1,223 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.cache;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import org.jfree.chart.imagemap.StandardToolTipTagFragmentGenerator;
+import org.jfree.chart.imagemap.StandardURLTagFragmentGenerator;
+import org.pentaho.chart.data.BasicDataModel;
+import org.pentaho.chart.data.FormattableName;
+import org.pentaho.chart.data.IChartDataModel;
+import org.pentaho.chart.data.IScalableDataModel;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.NamedValue;
+import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.XYDataModel;
+import org.pentaho.chart.data.XYDataPoint;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.util.ChartSerializer;
+import org.pentaho.chart.model.util.ChartSerializer.ChartSerializationFormat;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+import org.pentaho.chart.plugin.jfreechart.outputs.ChartImageEncoder;
+import org.pentaho.chart.plugin.jfreechart.outputs.ImageMapWriter;
+import org.pentaho.chart.plugin.jfreechart.outputs.JFreeChartOutput;
+import org.pentaho.chart.plugin.jfreechart.outputs.PngEncodingProfile;
+import org.pentaho.chart.plugin.openflashchart.outputs.OpenFlashChartOutput;
+
+/**
+ * Computes a stable key for a rendered chart from the serialized chart model, the contents of the chart data model,
+ * the output type, the size of the chart and the JVM-wide output settings: the OpenFlashChart numeric precision and
+ * gzip defaults, the PNG encoding profile and the default image map writer. Two requests that would render the same
+ * bytes get the same key, in this or any other JVM.
+ */
+public class ChartFingerprint {
+
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  private ChartFingerprint() {
+  }
+
+  /**
+   * @param mapName the name of the requested image map, or null if none was requested.
+   * @return a hex encoded SHA-256 hash, or null if the contents of the data model cannot be read or an image map is
+   * requested from an image map writer whose tag fragments cannot be compared.
+   */
+  public static String compute( ChartModel chartModel, IChartDataModel chartDataModel, OutputTypes outputType,
+                                int width, int height, String mapName ) {
+    if ( !isSupported( chartDataModel ) ) {
+      return null;
+    }
+    ImageMapWriter imageMapWriter = JFreeChartOutput.getDefaultImageMapWriter();
+    if ( ( mapName != null ) && !isSupported( imageMapWriter ) ) {
+      return null;
+    }
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance( "SHA-256" );
+    } catch ( NoSuchAlgorithmException e ) {
+      throw new IllegalStateException( e );
+    }
+    DataOutputStream out = new DataOutputStream( new DigestOutputStream( new NullOutputStream(), digest ) );
+    try {
+      writeString( out, chartModel.getChartEngineId() );
+      writeString( out, ChartSerializer.serialize( chartModel, ChartSerializationFormat.XML ) );
+      writeString( out, outputType != null ? outputType.name() : null );
+      out.writeInt( width );
+      out.writeInt( height );
+      writeString( out, mapName );
+      writeOutputSettings( out, mapName != null ? imageMapWriter : null );
+      writeDataModel( out, chartDataModel );
+      out.flush();
+    } catch ( IOException e ) {
+      // Cannot happen when writing to a digest.
+      throw new IllegalStateException( e );
+    }
+
+    byte[] hash = digest.digest();
+    char[] hex = new char[ hash.length * 2 ];
+    for ( int i = 0; i < hash.length; i++ ) {
+      hex[ 2 * i ] = HEX_DIGITS[ ( hash[ i ] >> 4 ) & 0xF ];
+      hex[ 2 * i + 1 ] = HEX_DIGITS[ hash[ i ] & 0xF ];
+    }
+    return new String( hex );
+  }
+
+  private static boolean isSupported( IChartDataModel chartDataModel ) {
+    return ( chartDataModel == null ) || ( chartDataModel instanceof MultiSeriesDataModel )
+      || ( chartDataModel instanceof MultiSeriesXYDataModel ) || ( chartDataModel instanceof XYDataModel )
+      || ( chartDataModel instanceof NamedValuesDataModel ) || ( chartDataModel instanceof BasicDataModel );
+  }
+
+  /**
+   * Only the standard tag fragment generators are known to write the same fragments for the same text.
+   */
+  private static boolean isSupported( ImageMapWriter imageMapWriter ) {
+    return ( imageMapWriter.getClass() == ImageMapWriter.class )
+      && ( imageMapWriter.getToolTipTagFragmentGenerator().getClass() == StandardToolTipTagFragmentGenerator.class )
+      && ( imageMapWriter.getURLTagFragmentGenerator().getClass() == StandardURLTagFragmentGenerator.class );
+  }
+
+  private static void writeOutputSettings( DataOutputStream out, ImageMapWriter imageMapWriter ) throws IOException {
+    out.writeInt( OpenFlashChartOutput.getDefaultNumericPrecision() );
+    out.writeBoolean( OpenFlashChartOutput.isDefaultGzipEnabled() );
+
+    PngEncodingProfile pngEncodingProfile = ChartImageEncoder.getPngEncodingProfile();
+    out.writeBoolean( pngEncodingProfile != null );
+    if ( pngEncodingProfile != null ) {
+      out.writeInt( pngEncodingProfile.getCompressionLevel() );
+      writeString( out, pngEncodingProfile.getRowFilter().name() );
+      out.writeBoolean( pngEncodingProfile.isIndexedPalette() );
+    }
+
+    out.writeBoolean( imageMapWriter != null );
+    if ( imageMapWriter != null ) {
+      out.writeInt( imageMapWriter.getCoordinateGrid() );
+      out.writeBoolean( imageMapWriter.isDeduplicateAreas() );
+    }
+  }
+
+  private static void writeDataModel( DataOutputStream out, IChartDataModel chartDataModel ) throws IOException {
+    writeString( out, chartDataModel != null ? chartDataModel.getClass().getName() : null );
+    if ( chartDataModel instanceof IScalableDataModel ) {
+      writeNumber( out, ( (IScalableDataModel) chartDataModel ).getScalingFactor() );
+    }
+
+    if ( chartDataModel instanceof MultiSeriesDataModel ) {
+      MultiSeriesDataModel multiSeriesDataModel = (MultiSeriesDataModel) chartDataModel;
+      int categoryCount = multiSeriesDataModel.getCategoryCount();
+      int seriesCount = multiSeriesDataModel.getSeriesCount();
+      out.writeInt( categoryCount );
+      for ( int categoryIdx = 0; categoryIdx < categoryCount; categoryIdx++ ) {
+        writeName( out, multiSeriesDataModel.getCategoryName( categoryIdx ) );
+      }
+      out.writeInt( seriesCount );
+      for ( int seriesIdx = 0; seriesIdx < seriesCount; seriesIdx++ ) {
+        writeName( out, multiSeriesDataModel.getSeriesName( seriesIdx ) );
+        for ( int categoryIdx = 0; categoryIdx < categoryCount; categoryIdx++ ) {
+          writeNumber( out, multiSeriesDataModel.getValue( seriesIdx, categoryIdx ) );
+        }
+      }
+    } else if ( chartDataModel instanceof MultiSeriesXYDataModel ) {
+      MultiSeriesXYDataModel multiSeriesXYDataModel = (MultiSeriesXYDataModel) chartDataModel;
+      out.writeInt( multiSeriesXYDataModel.getSeriesCount() );
+      for ( MultiSeriesXYDataModel.Series series : multiSeriesXYDataModel.getSeries() ) {
+        writeName( out, series.getSeriesNameInstance() );
+        writePoints( out, series );
+      }
+    } else if ( chartDataModel instanceof XYDataModel ) {
+      writePoints( out, (XYDataModel) chartDataModel );
+    } else if ( chartDataModel instanceof NamedValuesDataModel ) {
+      NamedValuesDataModel namedValuesDataModel = (NamedValuesDataModel) chartDataModel;
+      out.writeInt( namedValuesDataModel.size() );
+      for ( NamedValue namedValue : namedValuesDataModel ) {
+        writeName( out, namedValue.getNameInstance() );
+        writeNumber( out, namedValue.getValue() );
+      }
+    } else if ( chartDataModel instanceof BasicDataModel ) {
+      BasicDataModel basicDataModel = (BasicDataModel) chartDataModel;
+      out.writeInt( basicDataModel.getData().size() );
+      for ( Number value : basicDataModel.getData() ) {
+        writeNumber( out, value );
+      }
+    }
+  }
+
+  private static void writePoints( DataOutputStream out, XYDataModel points ) throws IOException {
+    out.writeInt( points.size() );
+    for ( XYDataPoint point : points ) {
+      writeNumber( out, point.getDomainValue() );
+      writeNumber( out, point.getRangeValue() );
+    }
+  }
+
+  private static void writeName( DataOutputStream out, FormattableName name ) throws IOException {
+    writeString( out, name != null ? name.getKey() : null );
+    writeString( out, name != null ? name.getFormatted() : null );
+  }
+
+  private static void writeNumber( DataOutputStream out, Number number ) throws IOException {
+    if ( number == null ) {
+      out.writeByte( 0 );
+    } else {
+      out.writeByte( 1 );
+      out.writeUTF( number.getClass().getName() );
+      writeString( out, number.toString() );
+    }
+  }
+
+  private static void writeString( DataOutputStream out, String string ) throws IOException {
+    if ( string == null ) {
+      out.writeInt( -1 );
+    } else {
+      out.writeInt( string.length() );
+      out.writeChars( string );
+    }
+  }
+
+  private static class NullOutputStream extends OutputStream {
+    public void write( int b ) {
+    }
+
+    public void write( byte[] b, int off, int len ) {
+    }
+  }
+}
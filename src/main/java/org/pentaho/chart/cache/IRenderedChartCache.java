@@ -0,0 +1,39 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.cache;
+
+/**
+ * A cache of rendered charts, keyed by a fingerprint of everything that determines the rendered output.
+ *
+ * @see ChartFingerprint
+ * @see org.pentaho.chart.ChartBeanFactory#setRenderedChartCache(IRenderedChartCache)
+ */
+public interface IRenderedChartCache {
+
+  /**
+   * @return the chart cached under the given key, or null if there is none.
+   */
+  public RenderedChart get( String key );
+
+  public void put( String key, RenderedChart renderedChart );
+
+  public void clear();
+
+  public long getHitCount();
+
+  public long getMissCount();
+
+  public long getEvictionCount();
+}
@@ -0,0 +1,114 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A rendered chart cache that holds at most a given number of bytes and evicts the least recently used charts first.
+ * Charts larger than the whole cache are not cached.
+ */
+public class LruRenderedChartCache implements IRenderedChartCache {
+
+  public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+  private final long maxBytes;
+  private final LinkedHashMap<String, RenderedChart> entries =
+    new LinkedHashMap<String, RenderedChart>( 16, 0.75f, true );
+  private long currentBytes;
+  private long hitCount;
+  private long missCount;
+  private long evictionCount;
+
+  public LruRenderedChartCache() {
+    this( DEFAULT_MAX_BYTES );
+  }
+
+  public LruRenderedChartCache( long maxBytes ) {
+    if ( maxBytes <= 0 ) {
+      throw new IllegalArgumentException();
+    }
+    this.maxBytes = maxBytes;
+  }
+
+  public synchronized RenderedChart get( String key ) {
+    RenderedChart renderedChart = entries.get( key );
+    if ( renderedChart != null ) {
+      hitCount++;
+    } else {
+      missCount++;
+    }
+    return renderedChart;
+  }
+
+  public synchronized void put( String key, RenderedChart renderedChart ) {
+    long size = getEntrySize( key, renderedChart );
+    RenderedChart previous = entries.remove( key );
+    if ( previous != null ) {
+      currentBytes -= getEntrySize( key, previous );
+    }
+    if ( size > maxBytes ) {
+      return;
+    }
+    entries.put( key, renderedChart );
+    currentBytes += size;
+
+    Iterator<Map.Entry<String, RenderedChart>> iterator = entries.entrySet().iterator();
+    while ( currentBytes > maxBytes ) {
+      Map.Entry<String, RenderedChart> eldest = iterator.next();
+      currentBytes -= getEntrySize( eldest.getKey(), eldest.getValue() );
+      iterator.remove();
+      evictionCount++;
+    }
+  }
+
+  public synchronized void clear() {
+    entries.clear();
+    currentBytes = 0;
+  }
+
+  public synchronized long getHitCount() {
+    return hitCount;
+  }
+
+  public synchronized long getMissCount() {
+    return missCount;
+  }
+
+  public synchronized long getEvictionCount() {
+    return evictionCount;
+  }
+
+  public synchronized int getEntryCount() {
+    return entries.size();
+  }
+
+  /**
+   * @return the estimated number of bytes currently held by this cache.
+   */
+  public synchronized long getCurrentBytes() {
+    return currentBytes;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  private static long getEntrySize( String key, RenderedChart renderedChart ) {
+    return 2L * key.length() + renderedChart.getSize();
+  }
+}
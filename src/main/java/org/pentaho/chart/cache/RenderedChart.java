@@ -0,0 +1,73 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The encoded bytes of a rendered chart, together with its image map if one was requested.
+ */
+public class RenderedChart {
+
+  private final byte[] content;
+  private final String imageMap;
+
+  /**
+   * @param content the encoded chart, which is kept without being copied and must not be modified afterwards.
+   */
+  public RenderedChart( byte[] content, String imageMap ) {
+    if ( content == null ) {
+      throw new IllegalArgumentException();
+    }
+    this.content = content;
+    this.imageMap = imageMap;
+  }
+
+  /**
+   * @return a copy of the encoded chart. Use {@link #writeTo(OutputStream)} or {@link #getInputStream()} to read it
+   * without copying.
+   */
+  public byte[] getContent() {
+    return content.clone();
+  }
+
+  /**
+   * Writes the encoded chart to the given stream.
+   */
+  public void writeTo( OutputStream outputStream ) throws IOException {
+    outputStream.write( content );
+  }
+
+  public InputStream getInputStream() {
+    return new ByteArrayInputStream( content );
+  }
+
+  /**
+   * @return the image map HTML, or null if no image map was requested.
+   */
+  public String getImageMap() {
+    return imageMap;
+  }
+
+  /**
+   * @return an estimate of the memory held by this chart, in bytes.
+   */
+  public long getSize() {
+    return content.length + ( imageMap != null ? 2L * imageMap.length() : 0 );
+  }
+}
@@ -142,6 +142,17 @@ public class ChartDocument {
     this.resourceKey = resourceKey;
   }
 
+  /**
+   * Creates a copy of this chart document whose elements can be modified without affecting this document. The copy
+   * shares the <code>ResourceManager</code> and <code>ResourceKey</code> of this document.
+   */
+  public ChartDocument copy() {
+    final ChartDocument copy = new ChartDocument(rootElement.copyTree());
+    copy.setResourceManager(resourceManager);
+    copy.setResourceKey(resourceKey);
+    return copy;
+  }
+
   /**
    * Returns the modification number from the root element. This number
    * can be used to invalidate cache information.
@@ -23,6 +23,7 @@ import org.pentaho.reporting.libraries.css.dom.DefaultLayoutStyle;
 import org.pentaho.reporting.libraries.css.dom.LayoutElement;
 import org.pentaho.reporting.libraries.css.dom.LayoutStyle;
 import org.pentaho.reporting.libraries.css.model.StyleKey;
+import org.pentaho.reporting.libraries.css.model.StyleKeyRegistry;
 import org.pentaho.reporting.libraries.css.values.CSSValue;
 import org.pentaho.util.collections.HeirarchicalLinkedListItem;
 import org.pentaho.reporting.libraries.xmlns.common.AttributeMap;
@@ -372,6 +373,34 @@ public class ChartElement extends HeirarchicalLinkedListItem implements Cloneabl
     return element;
   }
 
+  /**
+   * Creates a copy of this element and all of its children, including any resolved style information. The copy is
+   * the root of a new tree and can be modified without affecting this element.
+   */
+  public ChartElement copyTree() {
+    return copyTree(StyleKeyRegistry.getRegistry().getKeys());
+  }
+
+  private ChartElement copyTree(final StyleKey[] styleKeys) {
+    final ChartElement copy = new ChartElement();
+    copy.attributes = (attributes != null) ? new AttributeMap(attributes) : null;
+    copy.tagName = tagName;
+    copy.text = text;
+    for (final StyleKey styleKey : styleKeys) {
+      final CSSValue value = layoutStyle.getValue(styleKey);
+      if (value != null) {
+        copy.layoutStyle.setValue(styleKey, value);
+      }
+    }
+
+    ChartElement child = getFirstChildItem();
+    while (child != null) {
+      copy.addChildElement(child.copyTree(styleKeys));
+      child = child.getNextItem();
+    }
+    return copy;
+  }
+
   public Map getCounters() {
     return Empty.MAP;
   }
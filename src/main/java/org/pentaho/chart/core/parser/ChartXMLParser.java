@@ -19,6 +19,7 @@ import org.pentaho.reporting.libraries.resourceloader.Resource;
 import org.pentaho.reporting.libraries.resourceloader.ResourceException;
 import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
 import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+import org.pentaho.chart.ChartBoot;
 import org.pentaho.chart.core.ChartDocument;
 
 /**
@@ -33,11 +34,12 @@ public class ChartXMLParser {
   private final ResourceManager resourceManager;
 
   /**
-   * Initializes the chart parser by creating a default <code>ResourceManager</code>
+   * Initializes the chart parser with the shared <code>ResourceManager</code>
+   *
+   * @see ChartBoot#getResourceManager()
    */
   public ChartXMLParser() {
-    resourceManager = new ResourceManager();
-    resourceManager.registerDefaults();
+    this(ChartBoot.getInstance().getResourceManager());
   }
 
   /**
@@ -61,7 +63,8 @@ public class ChartXMLParser {
   public ChartDocument parseChartDocument(final URL chartDefinitionURL) throws ResourceException {
     final Resource res = resourceManager.createDirectly(chartDefinitionURL, ChartDocument.class);
     final ResourceKey key = res.getSource();
-    final ChartDocument chart = (ChartDocument) res.getResource();
+    // The resource manager may cache the parsed document, so hand out a copy the caller is free to modify
+    final ChartDocument chart = ((ChartDocument) res.getResource()).copy();
     chart.setResourceManager(resourceManager);
     chart.setResourceKey(key);
     return chart;
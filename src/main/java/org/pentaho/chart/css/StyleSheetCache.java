@@ -0,0 +1,226 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.css;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.pentaho.reporting.libraries.css.model.StyleRule;
+import org.pentaho.reporting.libraries.css.model.StyleSheet;
+import org.pentaho.reporting.libraries.resourceloader.Resource;
+import org.pentaho.reporting.libraries.resourceloader.ResourceCreationException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceKey;
+import org.pentaho.reporting.libraries.resourceloader.ResourceLoadingException;
+import org.pentaho.reporting.libraries.resourceloader.ResourceManager;
+
+/**
+ * A process-wide cache of parsed style sheets, so that the default chart style sheets and the style sheets linked from
+ * or embedded in chart definitions are parsed once rather than every time a chart's styles are resolved.
+ * <p/>
+ * Style sheets loaded from a location are keyed by their resource key and reused for as long as the resource manager
+ * reports them unchanged. Style sheets embedded in a chart definition are loaded from raw data, and are keyed by
+ * their content and the key of the document they are embedded in.
+ * <p/>
+ * A cached <code>StyleSheet</code> is handed to every caller that requests it, from any thread, without being copied,
+ * the same way the resource manager's own factory cache shares parsed resources. Callers must treat it as read-only:
+ * the style resolvers only read the rules of the style sheets they are given. As a safeguard, the rules of a style
+ * sheet are recorded when it is cached, and a style sheet whose rules have since been added, removed or replaced is
+ * parsed again instead of being handed out. Changes made within a rule are not detected.
+ */
+public class StyleSheetCache {
+
+  public static final int DEFAULT_MAX_ENTRIES = 256;
+
+  private static final StyleSheetCache instance = new StyleSheetCache(DEFAULT_MAX_ENTRIES);
+
+  private final LinkedHashMap<Object, CacheEntry> entries;
+
+  private long hitCount;
+
+  private long missCount;
+
+  public static StyleSheetCache getInstance() {
+    return instance;
+  }
+
+  public StyleSheetCache(final int maxEntries) {
+    if (maxEntries <= 0) {
+      throw new IllegalArgumentException();
+    }
+    this.entries = new LinkedHashMap<Object, CacheEntry>(16, 0.75f, true) {
+      protected boolean removeEldestEntry(final Map.Entry<Object, CacheEntry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Indicates if a resource requested for the given target types is a style sheet that can be cached
+   */
+  public static boolean isStyleSheetRequest(final Class[] target) {
+    return target != null && target.length == 1 && target[0] == StyleSheet.class;
+  }
+
+  /**
+   * Returns the parsed style sheet resource for the given key, parsing it with the resource manager only if it is not
+   * cached, or if it or its rules have changed since it was cached.
+   *
+   * @param manager the resource manager used to parse and validate the style sheet
+   * @param key     the key of the style sheet
+   * @param context the key of the document the style sheet is referenced from
+   */
+  public Resource getStyleSheet(final ResourceManager manager, final ResourceKey key, final ResourceKey context,
+                                final StyleSheetLoader loader)
+      throws ResourceLoadingException, ResourceCreationException {
+    final Object cacheKey = createCacheKey(key, context);
+
+    CacheEntry entry;
+    synchronized (entries) {
+      entry = entries.get(cacheKey);
+    }
+    if (entry != null && entry.isUnmodified() && isUnchanged(manager, entry.resource)) {
+      synchronized (entries) {
+        hitCount++;
+      }
+      return entry.resource;
+    }
+
+    entry = new CacheEntry(loader.load(key, context));
+    synchronized (entries) {
+      missCount++;
+      entries.put(cacheKey, entry);
+    }
+    return entry.resource;
+  }
+
+  /**
+   * Removes all cached style sheets
+   */
+  public void clear() {
+    synchronized (entries) {
+      entries.clear();
+    }
+  }
+
+  public long getHitCount() {
+    synchronized (entries) {
+      return hitCount;
+    }
+  }
+
+  public long getMissCount() {
+    synchronized (entries) {
+      return missCount;
+    }
+  }
+
+  private static boolean isUnchanged(final ResourceManager manager, final Resource resource) {
+    try {
+      return manager.isResourceUnchanged(resource);
+    } catch (ResourceException e) {
+      return false;
+    }
+  }
+
+  private static Object createCacheKey(final ResourceKey key, final ResourceKey context) {
+    if (key.getIdentifier() instanceof byte[]) {
+      return new ContentKey(key.getSchema(), (byte[]) key.getIdentifier(), context);
+    }
+    return key;
+  }
+
+  /**
+   * Parses a style sheet that is not cached
+   */
+  public interface StyleSheetLoader {
+    public Resource load(ResourceKey key, ResourceKey context)
+        throws ResourceLoadingException, ResourceCreationException;
+  }
+
+  /**
+   * A cached style sheet resource and the rules its style sheet had when it was cached
+   */
+  private static class CacheEntry {
+    private final Resource resource;
+    private final StyleRule[] rules;
+
+    CacheEntry(final Resource resource) {
+      this.resource = resource;
+      this.rules = getRules(resource);
+    }
+
+    /**
+     * Indicates if the rules of the style sheet are still the ones it had when it was cached
+     */
+    boolean isUnmodified() {
+      return Arrays.equals(rules, getRules(resource));
+    }
+
+    private static StyleRule[] getRules(final Resource resource) {
+      final Object styleSheet;
+      try {
+        styleSheet = resource.getResource();
+      } catch (ResourceException e) {
+        return null;
+      }
+      if (!(styleSheet instanceof StyleSheet)) {
+        return null;
+      }
+      final StyleSheet sheet = (StyleSheet) styleSheet;
+      final StyleRule[] rules = new StyleRule[sheet.getRuleCount()];
+      for (int i = 0; i < rules.length; i++) {
+        rules[i] = sheet.getRule(i);
+      }
+      return rules;
+    }
+  }
+
+  /**
+   * Identifies a style sheet loaded from raw data by its content rather than by the identity of the data
+   */
+  private static class ContentKey {
+    private final Object schema;
+    private final byte[] content;
+    private final ResourceKey context;
+    private final int hashCode;
+
+    ContentKey(final Object schema, final byte[] content, final ResourceKey context) {
+      this.schema = schema;
+      this.content = content.clone();
+      this.context = context;
+      this.hashCode = 31 * (31 * Arrays.hashCode(this.content) + (schema != null ? schema.hashCode() : 0))
+          + (context != null ? context.hashCode() : 0);
+    }
+
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ContentKey)) {
+        return false;
+      }
+      final ContentKey other = (ContentKey) o;
+      return hashCode == other.hashCode && Arrays.equals(content, other.content)
+          && (schema != null ? schema.equals(other.schema) : other.schema == null)
+          && (context != null ? context.equals(other.context) : other.context == null);
+    }
+
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
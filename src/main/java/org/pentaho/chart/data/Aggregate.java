@@ -0,0 +1,23 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.data;
+
+/**
+ * How the values of rows that fall into the same data point are combined. Null values are ignored; a data point
+ * without any non-null value has no value, whatever the aggregate.
+ */
+public enum Aggregate {
+  SUM, COUNT, MIN, MAX, AVG
+}
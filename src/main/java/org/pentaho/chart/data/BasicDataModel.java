@@ -20,35 +20,112 @@ public class BasicDataModel implements IChartDataModel, IScalableDataModel {
   
   Number scalingFactor = 1;
   
-  List<Number> values = new ArrayList<Number>();
+  ValueList values = new ValueList();
   boolean autoSum = true;
+  ValueAccumulator accumulator;
+  boolean accumulated;
+
+  /**
+   * Statistics of the values if they are not summed, updated as values are added and recomputed on the first read
+   * after a value is removed or replaced. Null when they have to be recomputed.
+   */
+  private ValueStatistics statistics = new ValueStatistics();
+
+  /**
+   * The <code>modCount</code> of the values when the statistics were last brought up to date.
+   */
+  private int statisticsModCount;
+
+  /**
+   * Set when a sub list of the values, which replaces values directly, was taken. The statistics are recomputed on
+   * every read from then on.
+   */
+  private boolean untracked;
   
   public BasicDataModel() {
     this(true);
   }
   
   public BasicDataModel(boolean autoSum) {
+    this(autoSum, Aggregate.SUM);
+  }
+
+  /**
+   * @param aggregate how data points are combined into the single value of the model if <code>autoSum</code> is set.
+   */
+  public BasicDataModel(boolean autoSum, Aggregate aggregate) {
     this.autoSum = autoSum;
+    if (autoSum) {
+      accumulator = new ValueAccumulator(aggregate);
+    }
   }
 
   public void addDataPoint(Number rangeValue) {
-    if (values.size() == 0) {
-      values.add(rangeValue);
-    } else if (autoSum) {
-      if (values.get(0) != null) {
-        values.set(0, values.get(0).doubleValue() + rangeValue.doubleValue());
-      } else {
-        values.set(0, rangeValue);
+    if (autoSum) {
+      accumulator.add(rangeValue);
+      if (values.size() == 0) {
+        values.add(null);
       }
+      accumulated = true;
     } else {
+      boolean upToDate = isStatisticsUpToDate();
       values.add(rangeValue);
+      if (upToDate) {
+        countValue(statistics, rangeValue);
+        statisticsModCount = values.getModCount();
+      }
     }     
   }
   
+  /**
+   * @return the number of values, without reading an aggregated value.
+   */
+  public int size() {
+    return values.size();
+  }
+
   public List<Number> getData() {
+    if (accumulated) {
+      // The aggregate is only boxed when the value is read
+      values.set(0, accumulator.getValue());
+      accumulated = false;
+    }
     return values;
   }
 
+  /**
+   * @return the statistics of the values of {@link #getData()}, not counting null values. If the values are summed,
+   * that is the single aggregated value.
+   */
+  public ValueStatistics getStatistics() {
+    if (autoSum) {
+      ValueStatistics aggregateStatistics = new ValueStatistics();
+      for (Number value : getData()) {
+        countValue(aggregateStatistics, value);
+      }
+      return aggregateStatistics;
+    }
+    if (!isStatisticsUpToDate()) {
+      ValueStatistics newStatistics = new ValueStatistics();
+      for (Number value : values) {
+        countValue(newStatistics, value);
+      }
+      statistics = newStatistics;
+      statisticsModCount = values.getModCount();
+    }
+    return statistics;
+  }
+
+  private boolean isStatisticsUpToDate() {
+    return !untracked && (statistics != null) && (statisticsModCount == values.getModCount());
+  }
+
+  private static void countValue(ValueStatistics statistics, Number value) {
+    if (value != null) {
+      statistics.add(value.doubleValue());
+    }
+  }
+
   public Number getScalingFactor() {
     return scalingFactor;
   }
@@ -56,4 +133,27 @@ public class BasicDataModel implements IChartDataModel, IScalableDataModel {
   public void setScalingFactor(Number scalingFactor) {
     this.scalingFactor = scalingFactor;
   }
+
+  /**
+   * The values of the model, telling the model when one is replaced.
+   */
+  class ValueList extends ArrayList<Number> {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public Number set(int index, Number value) {
+      statistics = null;
+      return super.set(index, value);
+    }
+
+    @Override
+    public List<Number> subList(int fromIndex, int toIndex) {
+      untracked = true;
+      return super.subList(fromIndex, toIndex);
+    }
+
+    int getModCount() {
+      return modCount;
+    }
+  }
 }
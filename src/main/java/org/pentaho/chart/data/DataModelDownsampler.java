@@ -0,0 +1,324 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reduces line, area and scatter data to a target number of points before it is rendered.
+ * <p/>
+ * Two reduction methods are available. {@link Method#LTTB} (largest-triangle-three-buckets) keeps, for each bucket of
+ * consecutive points, the point that forms the largest triangle with the previously kept point and the average of the
+ * next bucket, which preserves the visual shape of a line. {@link Method#MIN_MAX} keeps the lowest and highest point
+ * of each bucket, which preserves peaks exactly. In both cases the first and last points are always kept.
+ * <p/>
+ * Category data is reduced by dropping whole categories, chosen over all series at once, so that every series still
+ * shares the same domain axis. Scatter points without an x or y value cannot be drawn and are dropped.
+ */
+public class DataModelDownsampler {
+
+  public enum Method {
+    LTTB, MIN_MAX
+  }
+
+  private DataModelDownsampler() {
+  }
+
+  /**
+   * @return a model holding at most <code>maxCategories</code> categories of the given model, or the given model
+   * itself if it is already small enough.
+   */
+  public static MultiSeriesDataModel downsample( MultiSeriesDataModel dataModel, int maxCategories, Method method ) {
+    int categoryCount = dataModel.getCategoryCount();
+    if ( categoryCount <= Math.max( maxCategories, 2 ) ) {
+      return dataModel;
+    }
+
+    int seriesCount = dataModel.getSeriesCount();
+    double[][] y = new double[ seriesCount ][];
+    boolean[][] defined = new boolean[ seriesCount ][];
+    for ( int seriesIdx = 0; seriesIdx < seriesCount; seriesIdx++ ) {
+      y[ seriesIdx ] = new double[ categoryCount ];
+      defined[ seriesIdx ] = new boolean[ categoryCount ];
+      for ( int categoryIdx = 0; categoryIdx < categoryCount; categoryIdx++ ) {
+        Number value = dataModel.getValue( seriesIdx, categoryIdx );
+        if ( value != null ) {
+          y[ seriesIdx ][ categoryIdx ] = value.doubleValue();
+          defined[ seriesIdx ][ categoryIdx ] = true;
+        }
+      }
+    }
+    double[] x = new double[ categoryCount ];
+    for ( int categoryIdx = 0; categoryIdx < categoryCount; categoryIdx++ ) {
+      x[ categoryIdx ] = categoryIdx;
+    }
+
+    int[] selected = select( x, y, defined, maxCategories, method );
+
+    MultiSeriesDataModel downsampled = new MultiSeriesDataModel();
+    for ( int categoryIdx : selected ) {
+      FormattableName category = dataModel.getCategoryName( categoryIdx );
+      for ( int seriesIdx = 0; seriesIdx < seriesCount; seriesIdx++ ) {
+        FormattableName series = dataModel.getSeriesName( seriesIdx );
+        downsampled.addValue( category.getKey(), category.getFormatted(), series.getKey(), series.getFormatted(),
+          dataModel.getValue( seriesIdx, categoryIdx ) );
+      }
+    }
+    downsampled.setScalingFactor( dataModel.getScalingFactor() );
+    return downsampled;
+  }
+
+  /**
+   * @return a model holding at most <code>maxValues</code> values of the given model, which is reduced as a single
+   * series of category data, or the given model itself if it is already small enough.
+   */
+  public static NamedValuesDataModel downsample( NamedValuesDataModel dataModel, int maxValues, Method method ) {
+    int count = dataModel.size();
+    if ( count <= Math.max( maxValues, 2 ) ) {
+      return dataModel;
+    }
+
+    NamedValue[] namedValues = dataModel.toArray( new NamedValue[ count ] );
+    double[] x = new double[ count ];
+    double[][] y = new double[ 1 ][ count ];
+    boolean[][] defined = new boolean[ 1 ][ count ];
+    for ( int idx = 0; idx < count; idx++ ) {
+      x[ idx ] = idx;
+      Number value = namedValues[ idx ].getValue();
+      if ( value != null ) {
+        y[ 0 ][ idx ] = value.doubleValue();
+        defined[ 0 ][ idx ] = true;
+      }
+    }
+
+    int[] selected = select( x, y, defined, maxValues, method );
+    NamedValuesDataModel downsampled = new NamedValuesDataModel();
+    for ( int idx : selected ) {
+      downsampled.add( new NamedValue( namedValues[ idx ].getNameInstance(), namedValues[ idx ].getValue() ) );
+    }
+    downsampled.setScalingFactor( dataModel.getScalingFactor() );
+    return downsampled;
+  }
+
+  /**
+   * @return a model holding at most <code>maxPoints</code> points of the given model, ordered by x value, or the
+   * given model itself if it is already small enough.
+   */
+  public static XYDataModel downsample( XYDataModel dataModel, int maxPoints, Method method ) {
+    if ( dataModel.size() <= Math.max( maxPoints, 2 ) ) {
+      return dataModel;
+    }
+    XYDataModel downsampled = new XYDataModel();
+    downsampled.addAll( downsamplePoints( dataModel, maxPoints, method ) );
+    return downsampled;
+  }
+
+  /**
+   * @return a model holding at most <code>maxPointsPerSeries</code> points of each series of the given model.
+   */
+  public static MultiSeriesXYDataModel downsample( MultiSeriesXYDataModel dataModel, int maxPointsPerSeries,
+                                                   Method method ) {
+    MultiSeriesXYDataModel downsampled = new MultiSeriesXYDataModel();
+    for ( Map.Entry<FormattableName, MultiSeriesXYDataModel.Series> mapEntry : dataModel.chartData.entrySet() ) {
+      FormattableName seriesName = mapEntry.getKey();
+      List<XYDataPoint> points = mapEntry.getValue();
+      if ( points.size() > Math.max( maxPointsPerSeries, 2 ) ) {
+        points = downsamplePoints( points, maxPointsPerSeries, method );
+      }
+      for ( XYDataPoint point : points ) {
+        downsampled.addDataPoint( seriesName.getKey(), seriesName.getFormatted(), point.getDomainValue(),
+          point.getRangeValue() );
+      }
+    }
+    return downsampled;
+  }
+
+  private static List<XYDataPoint> downsamplePoints( List<XYDataPoint> points, int maxPoints, Method method ) {
+    List<XYDataPoint> sortedPoints = new ArrayList<>( points.size() );
+    for ( XYDataPoint point : points ) {
+      if ( ( point.getDomainValue() != null ) && ( point.getRangeValue() != null ) ) {
+        sortedPoints.add( point );
+      }
+    }
+    Collections.sort( sortedPoints, new Comparator<XYDataPoint>() {
+      public int compare( XYDataPoint point1, XYDataPoint point2 ) {
+        return Double.compare( point1.getDomainValue().doubleValue(), point2.getDomainValue().doubleValue() );
+      }
+    } );
+
+    int pointCount = sortedPoints.size();
+    double[] x = new double[ pointCount ];
+    double[][] y = new double[ 1 ][ pointCount ];
+    boolean[][] defined = new boolean[ 1 ][ pointCount ];
+    for ( int idx = 0; idx < pointCount; idx++ ) {
+      x[ idx ] = sortedPoints.get( idx ).getDomainValue().doubleValue();
+      y[ 0 ][ idx ] = sortedPoints.get( idx ).getRangeValue().doubleValue();
+      defined[ 0 ][ idx ] = true;
+    }
+
+    int[] selected = select( x, y, defined, maxPoints, method );
+    List<XYDataPoint> downsampled = new ArrayList<>( selected.length );
+    for ( int idx : selected ) {
+      downsampled.add( sortedPoints.get( idx ) );
+    }
+    return downsampled;
+  }
+
+  /**
+   * @param x        the x value of each point, in ascending order.
+   * @param y        the y values of each point, one array per series.
+   * @param defined  whether each y value is present.
+   * @param maxCount the maximum number of points to keep.
+   * @return the ascending indexes of the points to keep.
+   */
+  static int[] select( double[] x, double[][] y, boolean[][] defined, int maxCount, Method method ) {
+    int count = x.length;
+    if ( ( count <= maxCount ) || ( count <= 2 ) ) {
+      int[] all = new int[ count ];
+      for ( int idx = 0; idx < count; idx++ ) {
+        all[ idx ] = idx;
+      }
+      return all;
+    }
+    if ( method == Method.MIN_MAX ) {
+      return selectMinMax( x, y, defined, Math.max( maxCount, 4 ) );
+    }
+    return selectLargestTriangles( x, y, defined, Math.max( maxCount, 3 ) );
+  }
+
+  private static int[] selectLargestTriangles( double[] x, double[][] y, boolean[][] defined, int threshold ) {
+    int count = x.length;
+    int[] selected = new int[ threshold ];
+    int selectedCount = 0;
+
+    double bucketSize = (double) ( count - 2 ) / ( threshold - 2 );
+    int a = 0;
+    selected[ selectedCount++ ] = a;
+
+    double[] averageY = new double[ y.length ];
+    boolean[] averageDefined = new boolean[ y.length ];
+
+    for ( int bucket = 0; bucket < threshold - 2; bucket++ ) {
+      int nextStart = (int) Math.floor( ( bucket + 1 ) * bucketSize ) + 1;
+      int nextEnd = Math.min( (int) Math.floor( ( bucket + 2 ) * bucketSize ) + 1, count );
+      if ( nextStart >= nextEnd ) {
+        nextStart = count - 1;
+        nextEnd = count;
+      }
+
+      double averageX = 0;
+      for ( int idx = nextStart; idx < nextEnd; idx++ ) {
+        averageX += x[ idx ];
+      }
+      averageX /= ( nextEnd - nextStart );
+      for ( int series = 0; series < y.length; series++ ) {
+        double sum = 0;
+        int definedCount = 0;
+        for ( int idx = nextStart; idx < nextEnd; idx++ ) {
+          if ( defined[ series ][ idx ] ) {
+            sum += y[ series ][ idx ];
+            definedCount++;
+          }
+        }
+        averageDefined[ series ] = definedCount > 0;
+        averageY[ series ] = definedCount > 0 ? sum / definedCount : 0;
+      }
+
+      int start = (int) Math.floor( bucket * bucketSize ) + 1;
+      int end = (int) Math.floor( ( bucket + 1 ) * bucketSize ) + 1;
+
+      double maxArea = -1;
+      int maxAreaIdx = start;
+      for ( int idx = start; idx < end; idx++ ) {
+        double area = 0;
+        for ( int series = 0; series < y.length; series++ ) {
+          if ( defined[ series ][ a ] && defined[ series ][ idx ] && averageDefined[ series ] ) {
+            area += Math.abs( ( x[ a ] - averageX ) * ( y[ series ][ idx ] - y[ series ][ a ] )
+              - ( x[ a ] - x[ idx ] ) * ( averageY[ series ] - y[ series ][ a ] ) );
+          }
+        }
+        if ( area > maxArea ) {
+          maxArea = area;
+          maxAreaIdx = idx;
+        }
+      }
+
+      selected[ selectedCount++ ] = maxAreaIdx;
+      a = maxAreaIdx;
+    }
+
+    selected[ selectedCount++ ] = count - 1;
+    return Arrays.copyOf( selected, selectedCount );
+  }
+
+  private static int[] selectMinMax( double[] x, double[][] y, boolean[][] defined, int maxCount ) {
+    int count = x.length;
+    int bucketCount = ( maxCount - 2 ) / 2;
+    double minX = x[ 1 ];
+    double spread = x[ count - 2 ] - minX;
+
+    int[] minIdx = new int[ bucketCount ];
+    int[] maxIdx = new int[ bucketCount ];
+    double[] minY = new double[ bucketCount ];
+    double[] maxY = new double[ bucketCount ];
+    Arrays.fill( minIdx, -1 );
+    Arrays.fill( maxIdx, -1 );
+
+    for ( int idx = 1; idx < count - 1; idx++ ) {
+      int bucket;
+      if ( spread > 0 ) {
+        bucket = (int) ( ( x[ idx ] - minX ) / spread * bucketCount );
+      } else {
+        bucket = (int) ( (long) ( idx - 1 ) * bucketCount / ( count - 2 ) );
+      }
+      bucket = Math.min( bucket, bucketCount - 1 );
+
+      for ( int series = 0; series < y.length; series++ ) {
+        if ( !defined[ series ][ idx ] ) {
+          continue;
+        }
+        double value = y[ series ][ idx ];
+        if ( ( minIdx[ bucket ] < 0 ) || ( value < minY[ bucket ] ) ) {
+          minIdx[ bucket ] = idx;
+          minY[ bucket ] = value;
+        }
+        if ( ( maxIdx[ bucket ] < 0 ) || ( value > maxY[ bucket ] ) ) {
+          maxIdx[ bucket ] = idx;
+          maxY[ bucket ] = value;
+        }
+      }
+    }
+
+    int[] selected = new int[ bucketCount * 2 + 2 ];
+    int selectedCount = 0;
+    selected[ selectedCount++ ] = 0;
+    for ( int bucket = 0; bucket < bucketCount; bucket++ ) {
+      int first = Math.min( minIdx[ bucket ], maxIdx[ bucket ] );
+      int second = Math.max( minIdx[ bucket ], maxIdx[ bucket ] );
+      if ( first >= 0 ) {
+        selected[ selectedCount++ ] = first;
+      }
+      if ( second != first ) {
+        selected[ selectedCount++ ] = second;
+      }
+    }
+    selected[ selectedCount++ ] = count - 1;
+    return Arrays.copyOf( selected, selectedCount );
+  }
+}
@@ -13,28 +13,128 @@
 
 package org.pentaho.chart.data;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+/**
+ * A category/series pivot of numeric values.
+ * <p/>
+ * Category and series names are interned into dictionaries that assign each distinct key a dense index in first-seen
+ * order. Cell values are kept in one primitive column per series, indexed by category, along with bitmaps that mark
+ * which cells hold a value. {@link DomainData} and {@link SeriesData} are read-only views over those columns, so
+ * reading the model back does not copy it.
+ * <p/>
+ * Values that fall into the same cell are combined by the model's {@link Aggregate}, {@link Aggregate#SUM} by default,
+ * on the primitive columns. A cell that holds a single value that was added to it, or a minimum or maximum, is read
+ * back as the <code>Number</code> that was added. Values other than <code>Integer</code>s and <code>Double</code>s,
+ * which a <code>double</code> does not represent exactly, are kept aside for this. A count is read back as an
+ * <code>Integer</code>, every other cell as a <code>Double</code>.
+ * <p/>
+ * The {@link ValueStatistics} of each series, each category and the whole model are computed from the primitive
+ * columns in a single pass when they are first read, and kept until a value is added. Aggregated cells can decrease,
+ * so minimums and maximums cannot simply be updated as values are added.
+ */
 public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel {
 
-  LinkedHashMap<FormattableName, DomainData> chartData = new LinkedHashMap<>();
+  private static final int INITIAL_CAPACITY = 16;
+
   Number scalingFactor = 1;
 
-  public class SeriesData extends NamedValuesDataModel {
-    FormattableName series;
+  Aggregate aggregate = Aggregate.SUM;
+
+  final ArrayList<FormattableName> categories = new ArrayList<>();
+  final HashMap<String, Integer> categoryIndexes = new HashMap<>();
+  final ArrayList<FormattableName> series = new ArrayList<>();
+  final HashMap<String, Integer> seriesIndexes = new HashMap<>();
+
+  /**
+   * Cell values, <code>values[seriesIdx][categoryIdx]</code>. Each column holds <code>categoryCapacity</code> cells.
+   */
+  double[][] values = new double[ INITIAL_CAPACITY ][];
+
+  /**
+   * Per series bitmaps of the cells that hold a value.
+   */
+  long[][] present = new long[ INITIAL_CAPACITY ][];
+
+  /**
+   * Per series bitmaps of the cells that hold a single, integral value.
+   */
+  long[][] integral = new long[ INITIAL_CAPACITY ][];
+
+  /**
+   * Per series columns of the values added to cells that hold a single value, when they are neither
+   * <code>Integer</code>s nor <code>Double</code>s. A column is only created once it holds such a value.
+   */
+  Number[][] originals = new Number[ INITIAL_CAPACITY ][];
+
+  /**
+   * Per series counts of the values of each cell, only kept for {@link Aggregate#AVG}.
+   */
+  int[][] counts;
+
+  int categoryCapacity = INITIAL_CAPACITY;
+
+  /**
+   * Counts the changes made to the model, so that its views know when to read their values again.
+   */
+  int modCount;
+
+  /**
+   * Statistics of the cells, computed on first use and dropped whenever the model changes.
+   */
+  private ValueStatistics statistics;
+  private ValueStatistics[] seriesStatistics;
+  private ValueStatistics[] categoryStatistics;
+  private double minStackTotal;
+  private double maxStackTotal;
+
+  /**
+   * Views handed out by {@link #getDomainData()} and {@link #getSeriesData()}, created on first use.
+   */
+  private final ArrayList<DomainData> domainViews = new ArrayList<>();
+  private final ArrayList<SeriesData> seriesViews = new ArrayList<>();
+
+  private final List<DomainData> domainDataList = new AbstractList<DomainData>() {
+    public DomainData get( int categoryIdx ) {
+      if ( ( categoryIdx < 0 ) || ( categoryIdx >= categories.size() ) ) {
+        throw new IndexOutOfBoundsException();
+      }
+      while ( domainViews.size() <= categoryIdx ) {
+        domainViews.add( new DomainData( domainViews.size() ) );
+      }
+      return domainViews.get( categoryIdx );
+    }
 
-    SeriesData() {
+    public int size() {
+      return categories.size();
     }
+  };
 
-    SeriesData( FormattableName series ) {
-      this.series = series;
+  private final List<SeriesData> seriesDataList = new AbstractList<SeriesData>() {
+    public SeriesData get( int seriesIdx ) {
+      if ( ( seriesIdx < 0 ) || ( seriesIdx >= series.size() ) ) {
+        throw new IndexOutOfBoundsException();
+      }
+      while ( seriesViews.size() <= seriesIdx ) {
+        seriesViews.add( new SeriesData( seriesViews.size() ) );
+      }
+      return seriesViews.get( seriesIdx );
+    }
+
+    public int size() {
+      return series.size();
     }
+  };
+
+  public class SeriesData extends NamedValuesView {
+    final int seriesIdx;
 
-    SeriesData( String seriesKey ) {
-      this.series = new FormattableName( seriesKey );
+    SeriesData( int seriesIdx ) {
+      this.seriesIdx = seriesIdx;
     }
 
     public List<String> getDomains() {
@@ -46,30 +146,66 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
     }
 
     public String getSeriesName() {
-      return series.getKey();
+      return series.get( seriesIdx ).getKey();
     }
 
     public String getSeriesFormattedName() {
-      return series.getFormatted();
+      return series.get( seriesIdx ).getFormatted();
     }
 
+    /**
+     * @throws IllegalArgumentException if another series already has the given name.
+     */
     public void setSeriesName( String seriesName ) {
-      this.series.setKey( seriesName );
+      rename( series.get( seriesIdx ), seriesIdx, seriesIndexes, seriesName );
+    }
+
+    @Override
+    public int size() {
+      return categories.size();
+    }
+
+    @Override
+    FormattableName getNameAt( int categoryIdx ) {
+      return categories.get( categoryIdx );
+    }
+
+    @Override
+    Number getValueAt( int categoryIdx ) {
+      return getValue( seriesIdx, categoryIdx );
+    }
+
+    @Override
+    int indexOf( String categoryKey ) {
+      return getCategoryIndex( categoryKey );
     }
-  }
 
-  public class DomainData extends NamedValuesDataModel {
-    FormattableName domain;
+    @Override
+    int getModCount() {
+      return modCount;
+    }
 
-    DomainData() {
+    @Override
+    public ValueStatistics getStatistics() {
+      return getSeriesStatistics( seriesIdx );
     }
 
-    DomainData( FormattableName domain ) {
-      this.domain = domain;
+    @Override
+    public Object clone() {
+      SeriesData copy = copyCells( seriesIdx, -1 ).getSeriesData().get( 0 );
+      copy.setScalingFactor( getScalingFactor() );
+      return copy;
     }
+  }
+
+  /**
+   * A read-only view of the values of one category, in series order.
+   */
+  public class DomainData extends NamedValuesView {
+    final int categoryIdx;
 
-    DomainData( String domainKey ) {
-      this.domain = new FormattableName( domainKey );
+    DomainData( int categoryIdx ) {
+      this.categoryIdx = categoryIdx;
     }
 
     public List<String> getSeries() {
@@ -81,19 +217,59 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
     }
 
     public FormattableName getDomainNameInstance() {
-      return this.domain;
+      return categories.get( categoryIdx );
     }
 
     public String getDomainName() {
-      return domain.getKey();
+      return categories.get( categoryIdx ).getKey();
     }
 
     public String getDomainFormattedName() {
-      return domain.getFormatted();
+      return categories.get( categoryIdx ).getFormatted();
     }
 
+    /**
+     * @throws IllegalArgumentException if another category already has the given name.
+     */
     public void setDomainName( String domainName ) {
-      this.domain.setKey( domainName );
+      rename( categories.get( categoryIdx ), categoryIdx, categoryIndexes, domainName );
+    }
+
+    @Override
+    public int size() {
+      return series.size();
+    }
+
+    @Override
+    FormattableName getNameAt( int seriesIdx ) {
+      return series.get( seriesIdx );
+    }
+
+    @Override
+    Number getValueAt( int seriesIdx ) {
+      return getValue( seriesIdx, categoryIdx );
+    }
+
+    @Override
+    int indexOf( String seriesKey ) {
+      return getSeriesIndex( seriesKey );
+    }
+
+    @Override
+    int getModCount() {
+      return modCount;
+    }
+
+    @Override
+    public ValueStatistics getStatistics() {
+      return getCategoryStatistics( categoryIdx );
+    }
+
+    @Override
+    public Object clone() {
+      DomainData copy = copyCells( -1, categoryIdx ).getDomainData().get( 0 );
+      copy.setScalingFactor( getScalingFactor() );
+      return copy;
     }
   }
 
@@ -103,106 +279,537 @@ public class MultiSeriesDataModel implements IChartDataModel, IScalableDataModel
 
   public void addValue( String categoryKey, String categoryFormatted, String seriesKey, String seriesFormatted,
                         Number value ) {
+    int categoryIdx = internCategory( categoryKey, categoryFormatted );
+    int seriesIdx = internSeries( seriesKey, seriesFormatted );
+    addValueAt( seriesIdx, categoryIdx, value );
+  }
 
-    FormattableName category = new FormattableName( categoryKey, categoryFormatted );
+  /**
+   * Adds a category, unless there already is one with the given key.
+   *
+   * @return the index of the category with the given key.
+   */
+  public int addCategory( String categoryKey, String categoryFormatted ) {
+    return internCategory( categoryKey, categoryFormatted );
+  }
+
+  /**
+   * Adds a series, unless there already is one with the given key.
+   *
+   * @return the index of the series with the given key.
+   */
+  public int addSeries( String seriesKey, String seriesFormatted ) {
+    return internSeries( seriesKey, seriesFormatted );
+  }
+
+  /**
+   * Adds a value to a cell of an existing category and series, the same way
+   * {@link #addValue(String, String, String, String, Number)} does, without looking up their keys.
+   */
+  public void addValueAt( int seriesIdx, int categoryIdx, Number value ) {
+    if ( ( seriesIdx < 0 ) || ( seriesIdx >= series.size() ) || ( categoryIdx < 0 )
+      || ( categoryIdx >= categories.size() ) ) {
+      throw new IndexOutOfBoundsException();
+    }
+    if ( value == null ) {
+      return;
+    }
+    modified();
+
+    int word = categoryIdx >>> 6;
+    long bit = 1L << categoryIdx;
+    double doubleValue = value.doubleValue();
+    double[] column = values[ seriesIdx ];
+    if ( ( present[ seriesIdx ][ word ] & bit ) == 0 ) {
+      present[ seriesIdx ][ word ] |= bit;
+      if ( aggregate == Aggregate.COUNT ) {
+        column[ categoryIdx ] = 1;
+        integral[ seriesIdx ][ word ] |= bit;
+        return;
+      }
+      column[ categoryIdx ] = doubleValue;
+      if ( isIntegral( value ) ) {
+        integral[ seriesIdx ][ word ] |= bit;
+      }
+      setOriginal( seriesIdx, categoryIdx, value );
+      if ( counts != null ) {
+        counts[ seriesIdx ][ categoryIdx ] = 1;
+      }
+      return;
+    }
 
-    DomainData domainData = chartData.get( category );
-    if ( domainData == null ) {
-      domainData = new DomainData( category );
-      if ( chartData.size() > 0 ) {
-        for ( NamedValue existingDataPoint : chartData.values().iterator().next() ) {
-          domainData.add( new NamedValue( existingDataPoint.getName(), existingDataPoint.getFormattedName(), null ) );
+    switch ( aggregate ) {
+      case COUNT:
+        column[ categoryIdx ]++;
+        break;
+      case MIN:
+      case MAX:
+        if ( ( aggregate == Aggregate.MIN ) ? ( doubleValue < column[ categoryIdx ] )
+          : ( doubleValue > column[ categoryIdx ] ) ) {
+          column[ categoryIdx ] = doubleValue;
+          if ( isIntegral( value ) ) {
+            integral[ seriesIdx ][ word ] |= bit;
+          } else {
+            integral[ seriesIdx ][ word ] &= ~bit;
+          }
+          setOriginal( seriesIdx, categoryIdx, value );
+        }
+        break;
+      case AVG:
+        counts[ seriesIdx ][ categoryIdx ]++;
+        column[ categoryIdx ] += doubleValue;
+        integral[ seriesIdx ][ word ] &= ~bit;
+        setOriginal( seriesIdx, categoryIdx, null );
+        break;
+      default:
+        column[ categoryIdx ] += doubleValue;
+        integral[ seriesIdx ][ word ] &= ~bit;
+        setOriginal( seriesIdx, categoryIdx, null );
+    }
+  }
+
+  /**
+   * Adds the categories, series and values of the given model, as if the values added to it had been added to this
+   * model after its own. Categories and series that are not in this model yet are added after the existing ones, in
+   * the order of the given model.
+   *
+   * @throws IllegalArgumentException if the given model combines values with a different aggregate.
+   */
+  public void addAll( MultiSeriesDataModel dataModel ) {
+    if ( dataModel.aggregate != aggregate ) {
+      throw new IllegalArgumentException();
+    }
+    int[] categoryIdxs = new int[ dataModel.categories.size() ];
+    for ( int otherCategoryIdx = 0; otherCategoryIdx < categoryIdxs.length; otherCategoryIdx++ ) {
+      FormattableName category = dataModel.categories.get( otherCategoryIdx );
+      categoryIdxs[ otherCategoryIdx ] = internCategory( category.getKey(), category.getFormatted() );
+    }
+    for ( int otherSeriesIdx = 0; otherSeriesIdx < dataModel.series.size(); otherSeriesIdx++ ) {
+      FormattableName seriesName = dataModel.series.get( otherSeriesIdx );
+      int seriesIdx = internSeries( seriesName.getKey(), seriesName.getFormatted() );
+      for ( int otherCategoryIdx = 0; otherCategoryIdx < categoryIdxs.length; otherCategoryIdx++ ) {
+        int otherWord = otherCategoryIdx >>> 6;
+        long otherBit = 1L << otherCategoryIdx;
+        if ( ( dataModel.present[ otherSeriesIdx ][ otherWord ] & otherBit ) != 0 ) {
+          mergeValueAt( seriesIdx, categoryIdxs[ otherCategoryIdx ],
+            dataModel.values[ otherSeriesIdx ][ otherCategoryIdx ],
+            ( dataModel.integral[ otherSeriesIdx ][ otherWord ] & otherBit ) != 0,
+            dataModel.getOriginal( otherSeriesIdx, otherCategoryIdx ),
+            counts != null ? dataModel.counts[ otherSeriesIdx ][ otherCategoryIdx ] : 0 );
         }
       }
-      chartData.put( category, domainData );
     }
+  }
 
-    NamedValue existingDataPoint = domainData.getNamedValue( seriesKey );
-    if ( existingDataPoint == null ) {
-      domainData.add( new NamedValue( seriesKey, seriesFormatted, value ) );
-      for ( FormattableName tmpCategory : chartData.keySet() ) {
-        if ( !categoryKey.equals( tmpCategory.getKey() ) ) {
-          chartData.get( tmpCategory ).add( new NamedValue( seriesKey, seriesFormatted, null ) );
+  /**
+   * Combines an aggregated cell of another model into a cell of this model.
+   */
+  private void mergeValueAt( int seriesIdx, int categoryIdx, double value, boolean isIntegral, Number original,
+                            int count ) {
+    modified();
+    int word = categoryIdx >>> 6;
+    long bit = 1L << categoryIdx;
+    double[] column = values[ seriesIdx ];
+    if ( ( present[ seriesIdx ][ word ] & bit ) == 0 ) {
+      present[ seriesIdx ][ word ] |= bit;
+      column[ categoryIdx ] = value;
+      if ( isIntegral ) {
+        integral[ seriesIdx ][ word ] |= bit;
+      }
+      setOriginal( seriesIdx, categoryIdx, original );
+      if ( counts != null ) {
+        counts[ seriesIdx ][ categoryIdx ] = count;
+      }
+      return;
+    }
+
+    switch ( aggregate ) {
+      case COUNT:
+        column[ categoryIdx ] += value;
+        break;
+      case MIN:
+      case MAX:
+        if ( ( aggregate == Aggregate.MIN ) ? ( value < column[ categoryIdx ] ) : ( value > column[ categoryIdx ] ) ) {
+          column[ categoryIdx ] = value;
+          if ( isIntegral ) {
+            integral[ seriesIdx ][ word ] |= bit;
+          } else {
+            integral[ seriesIdx ][ word ] &= ~bit;
+          }
+          setOriginal( seriesIdx, categoryIdx, original );
         }
+        break;
+      case AVG:
+        counts[ seriesIdx ][ categoryIdx ] += count;
+        column[ categoryIdx ] += value;
+        integral[ seriesIdx ][ word ] &= ~bit;
+        setOriginal( seriesIdx, categoryIdx, null );
+        break;
+      default:
+        column[ categoryIdx ] += value;
+        integral[ seriesIdx ][ word ] &= ~bit;
+        setOriginal( seriesIdx, categoryIdx, null );
+    }
+  }
+
+  public Aggregate getAggregate() {
+    return aggregate;
+  }
+
+  /**
+   * Sets how values that fall into the same cell are combined. The aggregate can only be changed while the model is
+   * empty.
+   */
+  public void setAggregate( Aggregate aggregate ) {
+    if ( aggregate == null ) {
+      throw new NullPointerException();
+    }
+    if ( !categories.isEmpty() || !series.isEmpty() ) {
+      throw new IllegalStateException();
+    }
+    this.aggregate = aggregate;
+    counts = ( aggregate == Aggregate.AVG ) ? new int[ values.length ][] : null;
+  }
+
+  /**
+   * @return the number of distinct categories.
+   */
+  public int getCategoryCount() {
+    return categories.size();
+  }
+
+  /**
+   * @return the number of distinct series.
+   */
+  public int getSeriesCount() {
+    return series.size();
+  }
+
+  /**
+   * @return the name of the category at the given index, in first-seen order.
+   */
+  public FormattableName getCategoryName( int categoryIdx ) {
+    return categories.get( categoryIdx );
+  }
+
+  /**
+   * @return the name of the series at the given index, in first-seen order.
+   */
+  public FormattableName getSeriesName( int seriesIdx ) {
+    return series.get( seriesIdx );
+  }
+
+  /**
+   * @return the index of the category with the given key, or -1 if there is no such category.
+   */
+  public int getCategoryIndex( String categoryKey ) {
+    Integer categoryIdx = categoryIndexes.get( categoryKey );
+    return categoryIdx != null ? categoryIdx : -1;
+  }
+
+  /**
+   * @return the index of the series with the given key, or -1 if there is no such series.
+   */
+  public int getSeriesIndex( String seriesKey ) {
+    Integer seriesIdx = seriesIndexes.get( seriesKey );
+    return seriesIdx != null ? seriesIdx : -1;
+  }
+
+  /**
+   * @return the value of the given cell, or null if the cell holds no value.
+   */
+  public Number getValue( int seriesIdx, int categoryIdx ) {
+    if ( ( seriesIdx < 0 ) || ( seriesIdx >= series.size() ) || ( categoryIdx < 0 )
+      || ( categoryIdx >= categories.size() ) ) {
+      throw new IndexOutOfBoundsException();
+    }
+    int word = categoryIdx >>> 6;
+    long bit = 1L << categoryIdx;
+    if ( ( present[ seriesIdx ][ word ] & bit ) == 0 ) {
+      return null;
+    }
+    Number original = getOriginal( seriesIdx, categoryIdx );
+    if ( original != null ) {
+      return original;
+    }
+    double value = getCellValue( seriesIdx, categoryIdx );
+    if ( ( integral[ seriesIdx ][ word ] & bit ) != 0 ) {
+      long longValue = (long) value;
+      if ( ( longValue >= Integer.MIN_VALUE ) && ( longValue <= Integer.MAX_VALUE ) ) {
+        return Integer.valueOf( (int) longValue );
       }
-    } else if ( existingDataPoint.getValue() == null ) {
-      existingDataPoint.setValue( value );
-    } else if ( value != null ) {
-      existingDataPoint.setValue( existingDataPoint.getValue().doubleValue() + value.doubleValue() );
+      return Long.valueOf( longValue );
     }
+    return Double.valueOf( value );
+  }
+
+  /**
+   * @return the statistics of all values of the model.
+   */
+  public ValueStatistics getStatistics() {
+    computeStatistics();
+    return statistics;
+  }
+
+  /**
+   * @return the statistics of the values of the series at the given index.
+   */
+  public ValueStatistics getSeriesStatistics( int seriesIdx ) {
+    computeStatistics();
+    return seriesStatistics[ seriesIdx ];
+  }
+
+  /**
+   * @return the statistics of the values of the category at the given index. Its positive and negative totals are
+   * where the stack of the category's values ends and starts.
+   */
+  public ValueStatistics getCategoryStatistics( int categoryIdx ) {
+    computeStatistics();
+    return categoryStatistics[ categoryIdx ];
+  }
+
+  /**
+   * @return the lowest negative total of a category, or zero if no category has a negative value, which is the
+   * bottom of the lowest stack; <code>Double.NaN</code> if there are no values.
+   */
+  public double getMinStackTotal() {
+    computeStatistics();
+    return minStackTotal;
+  }
+
+  /**
+   * @return the highest positive total of a category, or zero if no category has a positive value, which is the top
+   * of the highest stack; <code>Double.NaN</code> if there are no values.
+   */
+  public double getMaxStackTotal() {
+    computeStatistics();
+    return maxStackTotal;
   }
 
   public DomainData getDomainData( String domainName ) {
-    DomainData domainData = null;
-    DomainData existingDomainData = chartData.get( new FormattableName( domainName ) );
-    if ( existingDomainData != null ) {
-      domainData = new DomainData( existingDomainData.domain );
-      domainData.addAll( existingDomainData );
-    }
-    return domainData;
+    int categoryIdx = getCategoryIndex( domainName );
+    return categoryIdx >= 0 ? getDomainData().get( categoryIdx ) : null;
   }
 
+  /**
+   * @return a read-only list of category-major views backed by this model.
+   */
   public List<DomainData> getDomainData() {
-    List<DomainData> domainData = new ArrayList<>();
-    for ( Map.Entry<FormattableName, DomainData> mapEntry : chartData.entrySet() ) {
-      DomainData domain = new DomainData( mapEntry.getKey() );
-      domain.addAll( mapEntry.getValue() );
-      domainData.add( domain );
-    }
-    return domainData;
+    return domainDataList;
   }
 
   public SeriesData getSeriesData( String seriesKey ) {
-    SeriesData seriesData = null;
-
-    if ( chartData.size() > 0 ) {
-      DomainData firstCategoryDomainData = chartData.values().iterator().next();
-      NamedValue existingDataPoint = firstCategoryDomainData.getNamedValue( seriesKey );
-      if ( existingDataPoint != null ) {
-        seriesData = new SeriesData( existingDataPoint.name );
-
-        for ( Map.Entry<FormattableName, DomainData> mapEntry : chartData.entrySet() ) {
-          FormattableName domain = mapEntry.getKey();
-          Number value = mapEntry.getValue().getNamedValue( seriesKey ).value;
-          seriesData.add( new NamedValue( domain, value ) );
+    int seriesIdx = getSeriesIndex( seriesKey );
+    return seriesIdx >= 0 ? getSeriesData().get( seriesIdx ) : null;
+  }
+
+  /**
+   * @return a read-only list of series-major views backed by this model.
+   */
+  public List<SeriesData> getSeriesData() {
+    return seriesDataList;
+  }
+
+  public Number getScalingFactor() {
+    return scalingFactor;
+  }
+
+  public void setScalingFactor( Number scalingFactor ) {
+    this.scalingFactor = scalingFactor;
+  }
+
+  private double getCellValue( int seriesIdx, int categoryIdx ) {
+    double value = values[ seriesIdx ][ categoryIdx ];
+    if ( counts != null ) {
+      value /= counts[ seriesIdx ][ categoryIdx ];
+    }
+    return value;
+  }
+
+  private void modified() {
+    statistics = null;
+    modCount++;
+  }
+
+  /**
+   * @return a model holding a copy of the cells of the series at the given index, or of all series if it is -1, in
+   * the category at the given index, or in all categories if it is -1.
+   */
+  private MultiSeriesDataModel copyCells( int seriesIdx, int categoryIdx ) {
+    MultiSeriesDataModel copy = new MultiSeriesDataModel();
+    copy.setAggregate( aggregate );
+    int firstSeriesIdx = ( seriesIdx < 0 ) ? 0 : seriesIdx;
+    int lastSeriesIdx = ( seriesIdx < 0 ) ? series.size() - 1 : seriesIdx;
+    int firstCategoryIdx = ( categoryIdx < 0 ) ? 0 : categoryIdx;
+    int lastCategoryIdx = ( categoryIdx < 0 ) ? categories.size() - 1 : categoryIdx;
+    for ( int otherCategoryIdx = firstCategoryIdx; otherCategoryIdx <= lastCategoryIdx; otherCategoryIdx++ ) {
+      FormattableName category = categories.get( otherCategoryIdx );
+      copy.internCategory( category.getKey(), category.getFormatted() );
+    }
+    for ( int otherSeriesIdx = firstSeriesIdx; otherSeriesIdx <= lastSeriesIdx; otherSeriesIdx++ ) {
+      FormattableName seriesName = series.get( otherSeriesIdx );
+      int copySeriesIdx = copy.internSeries( seriesName.getKey(), seriesName.getFormatted() );
+      for ( int otherCategoryIdx = firstCategoryIdx; otherCategoryIdx <= lastCategoryIdx; otherCategoryIdx++ ) {
+        int word = otherCategoryIdx >>> 6;
+        long bit = 1L << otherCategoryIdx;
+        if ( ( present[ otherSeriesIdx ][ word ] & bit ) != 0 ) {
+          copy.mergeValueAt( copySeriesIdx, otherCategoryIdx - firstCategoryIdx,
+            values[ otherSeriesIdx ][ otherCategoryIdx ], ( integral[ otherSeriesIdx ][ word ] & bit ) != 0,
+            getOriginal( otherSeriesIdx, otherCategoryIdx ),
+            counts != null ? counts[ otherSeriesIdx ][ otherCategoryIdx ] : 0 );
         }
       }
     }
+    copy.setScalingFactor( scalingFactor );
+    return copy;
+  }
 
-    return seriesData;
+  /**
+   * Changes the key of a category or series name, and of the index that finds it by key.
+   */
+  private void rename( FormattableName name, int idx, HashMap<String, Integer> indexes, String key ) {
+    Integer existingIdx = indexes.get( key );
+    if ( existingIdx != null ) {
+      if ( existingIdx == idx ) {
+        return;
+      }
+      throw new IllegalArgumentException( key );
+    }
+    indexes.remove( name.getKey() );
+    name.setKey( key );
+    indexes.put( key, idx );
+    modified();
   }
 
-  public List<SeriesData> getSeriesData() {
-    List<SeriesData> seriesList = new ArrayList<>();
+  private Number getOriginal( int seriesIdx, int categoryIdx ) {
+    Number[] column = originals[ seriesIdx ];
+    return column != null ? column[ categoryIdx ] : null;
+  }
 
-    List<FormattableName> seriesNames = new ArrayList<>();
-    if ( chartData.size() > 0 ) {
-      DomainData firstCategoryDomainData = chartData.values().iterator().next();
-      for ( NamedValue namedValue : firstCategoryDomainData ) {
-        seriesNames.add( namedValue.name );
+  /**
+   * Keeps the value added to a cell that now holds that single value, or forgets it if the value is null or is read
+   * back exactly from the primitive columns.
+   */
+  private void setOriginal( int seriesIdx, int categoryIdx, Number value ) {
+    Number[] column = originals[ seriesIdx ];
+    if ( ( value == null ) || ( value instanceof Integer ) || ( value instanceof Double ) ) {
+      if ( column != null ) {
+        column[ categoryIdx ] = null;
       }
+      return;
+    }
+    if ( column == null ) {
+      column = new Number[ categoryCapacity ];
+      originals[ seriesIdx ] = column;
     }
+    column[ categoryIdx ] = value;
+  }
 
-    for ( FormattableName seriesName : seriesNames ) {
-      SeriesData seriesData = new SeriesData( seriesName );
+  private void computeStatistics() {
+    if ( statistics != null ) {
+      return;
+    }
+    ValueStatistics allStatistics = new ValueStatistics();
+    seriesStatistics = new ValueStatistics[ series.size() ];
+    categoryStatistics = new ValueStatistics[ categories.size() ];
+    for ( int categoryIdx = 0; categoryIdx < categoryStatistics.length; categoryIdx++ ) {
+      categoryStatistics[ categoryIdx ] = new ValueStatistics();
+    }
+    // Series by series, so that each category's totals are summed in series order, as its stack is drawn
+    for ( int seriesIdx = 0; seriesIdx < seriesStatistics.length; seriesIdx++ ) {
+      seriesStatistics[ seriesIdx ] = new ValueStatistics();
+      long[] presentBits = present[ seriesIdx ];
+      for ( int categoryIdx = 0; categoryIdx < categoryStatistics.length; categoryIdx++ ) {
+        if ( ( presentBits[ categoryIdx >>> 6 ] & ( 1L << categoryIdx ) ) != 0 ) {
+          double value = getCellValue( seriesIdx, categoryIdx );
+          seriesStatistics[ seriesIdx ].add( value );
+          categoryStatistics[ categoryIdx ].add( value );
+          allStatistics.add( value );
+        }
+      }
+    }
 
-      for ( Map.Entry<FormattableName, DomainData> mapEntry : chartData.entrySet() ) {
-        FormattableName domainName = mapEntry.getKey();
-        Number value = mapEntry.getValue().getNamedValue( seriesName.getKey() ).value;
-        seriesData.add( new NamedValue( domainName, value ) );
+    minStackTotal = Double.NaN;
+    maxStackTotal = Double.NaN;
+    boolean hasStack = false;
+    for ( ValueStatistics stack : categoryStatistics ) {
+      if ( stack.getCount() == 0 ) {
+        continue;
+      }
+      if ( hasStack ) {
+        minStackTotal = Math.min( minStackTotal, stack.getNegativeTotal() );
+        maxStackTotal = Math.max( maxStackTotal, stack.getPositiveTotal() );
+      } else {
+        minStackTotal = stack.getNegativeTotal();
+        maxStackTotal = stack.getPositiveTotal();
+        hasStack = true;
       }
-      seriesList.add( seriesData );
     }
+    statistics = allStatistics;
+  }
 
-    return seriesList;
+  private int internCategory( String categoryKey, String categoryFormatted ) {
+    Integer categoryIdx = categoryIndexes.get( categoryKey );
+    if ( categoryIdx == null ) {
+      categoryIdx = categories.size();
+      if ( categoryIdx == categoryCapacity ) {
+        growCategories();
+      }
+      categories.add( new FormattableName( categoryKey, categoryFormatted ) );
+      categoryIndexes.put( categoryKey, categoryIdx );
+      modified();
+    }
+    return categoryIdx;
   }
 
-  public Number getScalingFactor() {
-    return scalingFactor;
+  private int internSeries( String seriesKey, String seriesFormatted ) {
+    Integer seriesIdx = seriesIndexes.get( seriesKey );
+    if ( seriesIdx == null ) {
+      seriesIdx = series.size();
+      if ( seriesIdx == values.length ) {
+        int newLength = values.length * 2;
+        values = Arrays.copyOf( values, newLength );
+        present = Arrays.copyOf( present, newLength );
+        integral = Arrays.copyOf( integral, newLength );
+        originals = Arrays.copyOf( originals, newLength );
+        if ( counts != null ) {
+          counts = Arrays.copyOf( counts, newLength );
+        }
+      }
+      values[ seriesIdx ] = new double[ categoryCapacity ];
+      present[ seriesIdx ] = new long[ bitmapLength( categoryCapacity ) ];
+      integral[ seriesIdx ] = new long[ bitmapLength( categoryCapacity ) ];
+      if ( counts != null ) {
+        counts[ seriesIdx ] = new int[ categoryCapacity ];
+      }
+      series.add( new FormattableName( seriesKey, seriesFormatted ) );
+      seriesIndexes.put( seriesKey, seriesIdx );
+      modified();
+    }
+    return seriesIdx;
   }
 
-  public void setScalingFactor( Number scalingFactor ) {
-    this.scalingFactor = scalingFactor;
+  private void growCategories() {
+    categoryCapacity *= 2;
+    for ( int seriesIdx = 0; seriesIdx < series.size(); seriesIdx++ ) {
+      values[ seriesIdx ] = Arrays.copyOf( values[ seriesIdx ], categoryCapacity );
+      present[ seriesIdx ] = Arrays.copyOf( present[ seriesIdx ], bitmapLength( categoryCapacity ) );
+      integral[ seriesIdx ] = Arrays.copyOf( integral[ seriesIdx ], bitmapLength( categoryCapacity ) );
+      if ( originals[ seriesIdx ] != null ) {
+        originals[ seriesIdx ] = Arrays.copyOf( originals[ seriesIdx ], categoryCapacity );
+      }
+      if ( counts != null ) {
+        counts[ seriesIdx ] = Arrays.copyOf( counts[ seriesIdx ], categoryCapacity );
+      }
+    }
+  }
+
+  private static int bitmapLength( int capacity ) {
+    return ( capacity + 63 ) >>> 6;
   }
 
+  private static boolean isIntegral( Number value ) {
+    return ( value instanceof Integer ) || ( value instanceof Long ) || ( value instanceof Short )
+      || ( value instanceof Byte );
+  }
 }
@@ -21,6 +21,13 @@ import java.util.Map;
 public class MultiSeriesXYDataModel implements IChartDataModel {
 
   LinkedHashMap<FormattableName, Series> chartData = new LinkedHashMap<>();
+  int dataPointCount;
+
+  /**
+   * Statistics of the non-null x and y values, updated as points are added.
+   */
+  final ValueStatistics domainStatistics = new ValueStatistics();
+  final ValueStatistics rangeStatistics = new ValueStatistics();
 
   public class Series extends XYDataModel {
     FormattableName seriesName;
@@ -75,6 +82,62 @@ public class MultiSeriesXYDataModel implements IChartDataModel {
     }
 
     seriesData.add( new XYDataPoint( domainValue, rangeValue ) );
+    dataPointCount++;
+    if ( domainValue != null ) {
+      domainStatistics.add( domainValue.doubleValue() );
+    }
+    if ( rangeValue != null ) {
+      rangeStatistics.add( rangeValue.doubleValue() );
+    }
+  }
+
+  /**
+   * Appends the points of the given model, series by series. Series that are not in this model yet are added after
+   * the existing ones, in the order of the given model.
+   */
+  public void addAll( MultiSeriesXYDataModel dataModel ) {
+    for ( Map.Entry<FormattableName, Series> mapEntry : dataModel.chartData.entrySet() ) {
+      FormattableName seriesName = mapEntry.getKey();
+      Series seriesData = chartData.get( seriesName );
+
+      if ( seriesData == null ) {
+        seriesData = new Series( new FormattableName( seriesName.getKey(), seriesName.getFormatted() ) );
+        chartData.put( seriesData.getSeriesNameInstance(), seriesData );
+      }
+
+      seriesData.addAll( mapEntry.getValue() );
+    }
+    dataPointCount += dataModel.dataPointCount;
+    domainStatistics.addAll( dataModel.domainStatistics );
+    rangeStatistics.addAll( dataModel.rangeStatistics );
+  }
+
+  /**
+   * @return the statistics of the x values of the points added through this model, not counting null values.
+   */
+  public ValueStatistics getDomainStatistics() {
+    return domainStatistics;
+  }
+
+  /**
+   * @return the statistics of the y values of the points added through this model, not counting null values.
+   */
+  public ValueStatistics getRangeStatistics() {
+    return rangeStatistics;
+  }
+
+  /**
+   * @return the number of distinct series.
+   */
+  public int getSeriesCount() {
+    return chartData.size();
+  }
+
+  /**
+   * @return the number of data points added to this model, across all series.
+   */
+  public int getDataPointCount() {
+    return dataPointCount;
   }
 
   public Series getSeries( String seriesKey ) {
@@ -18,6 +18,11 @@ public class NamedValue {
   FormattableName name;
   Number value;
 
+  /**
+   * The model whose statistics count this value, told when the value changes.
+   */
+  NamedValuesDataModel owner;
+
   public NamedValue() {
   }
 
@@ -62,6 +67,9 @@ public class NamedValue {
 
   public void setValue( Number value ) {
     this.value = value;
+    if ( owner != null ) {
+      owner.valueChanged();
+    }
   }
 
   public int hashCode() {
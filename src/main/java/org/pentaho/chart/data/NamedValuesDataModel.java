@@ -14,14 +14,39 @@
 package org.pentaho.chart.data;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.List;
 
+/**
+ * An insertion ordered set of named values. Values are additionally indexed by name so that
+ * {@link #getNamedValue(String)} does not have to scan the whole set. The index is keyed on the name a value had when
+ * it was added; renaming a value that is already part of the model is not tracked.
+ */
 public class NamedValuesDataModel extends LinkedHashSet<NamedValue> implements IChartDataModel, IScalableDataModel {
   Number scalingFactor = 1;
 
+  /**
+   * Maps each name to the first value added under that name. Transient and lazily rebuilt, since neither
+   * {@link #clone()} nor deserialization go through {@link #add(NamedValue)}.
+   */
+  private transient HashMap<String, NamedValue> index;
+
+  /**
+   * Statistics of the values, updated as values are added and recomputed on the first read after a value is removed
+   * or changed. Null when they have to be recomputed.
+   */
+  private transient ValueStatistics statistics = new ValueStatistics();
+
+  /**
+   * Set when a value of this model was taken by another model, which is then the one told of its changes. The
+   * statistics are recomputed on every read from then on.
+   */
+  private transient boolean untracked;
+
   public List<String> getNames() {
-    List<String> names = new ArrayList<>();
+    List<String> names = new ArrayList<>( size() );
 
     for ( NamedValue namedValue : this ) {
       names.add( namedValue.getName() );
@@ -31,7 +56,7 @@ public class NamedValuesDataModel extends LinkedHashSet<NamedValue> implements I
   }
 
   public List<String> getFormattedNames() {
-    List<String> formattedNames = new ArrayList<>();
+    List<String> formattedNames = new ArrayList<>( size() );
 
     for ( NamedValue namedValue : this ) {
       formattedNames.add( namedValue.getFormattedName() );
@@ -41,16 +66,129 @@ public class NamedValuesDataModel extends LinkedHashSet<NamedValue> implements I
   }
 
   public NamedValue getNamedValue( String key ) {
-    NamedValue namedValue = null;
+    if ( key == null ) {
+      return null;
+    }
+    return getIndex().get( key );
+  }
 
-    for ( NamedValue tmpNamedValue : this ) {
-      if ( tmpNamedValue.getName().equals( key ) ) {
-        namedValue = tmpNamedValue;
-        break;
+  @Override
+  public boolean add( NamedValue namedValue ) {
+    boolean added = super.add( namedValue );
+    if ( added && ( index != null ) ) {
+      indexValue( index, namedValue );
+    }
+    if ( added && ( statistics != null ) ) {
+      countValue( statistics, namedValue );
+    }
+    return added;
+  }
+
+  @Override
+  public boolean remove( Object o ) {
+    boolean removed = super.remove( o );
+    if ( removed ) {
+      unindexValue( (NamedValue) o );
+      statistics = null;
+    }
+    return removed;
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    index = null;
+    statistics = new ValueStatistics();
+    untracked = false;
+  }
+
+  @Override
+  public Iterator<NamedValue> iterator() {
+    final Iterator<NamedValue> iterator = super.iterator();
+    return new Iterator<NamedValue>() {
+      NamedValue current;
+
+      public boolean hasNext() {
+        return iterator.hasNext();
+      }
+
+      public NamedValue next() {
+        current = iterator.next();
+        return current;
+      }
+
+      public void remove() {
+        iterator.remove();
+        unindexValue( current );
+        statistics = null;
       }
+    };
+  }
+
+  @Override
+  public Object clone() {
+    NamedValuesDataModel clone = (NamedValuesDataModel) super.clone();
+    clone.index = null;
+    clone.statistics = null;
+    return clone;
+  }
+
+  private HashMap<String, NamedValue> getIndex() {
+    if ( index == null ) {
+      HashMap<String, NamedValue> newIndex = new HashMap<>();
+      for ( NamedValue namedValue : this ) {
+        indexValue( newIndex, namedValue );
+      }
+      index = newIndex;
+    }
+    return index;
+  }
+
+  private static void indexValue( HashMap<String, NamedValue> index, NamedValue namedValue ) {
+    if ( ( namedValue != null ) && ( namedValue.getNameInstance() != null ) && ( namedValue.getName() != null ) ) {
+      index.putIfAbsent( namedValue.getName(), namedValue );
+    }
+  }
+
+  private void unindexValue( NamedValue namedValue ) {
+    // Another value may share the removed value's name, so let the index be rebuilt on the next lookup.
+    if ( ( index != null ) && ( namedValue != null ) && ( namedValue.getNameInstance() != null )
+      && ( index.get( namedValue.getName() ) == namedValue ) ) {
+      index = null;
+    }
+  }
+
+  /**
+   * @return the statistics of the values, not counting null values.
+   */
+  public ValueStatistics getStatistics() {
+    if ( ( statistics == null ) || untracked ) {
+      ValueStatistics newStatistics = new ValueStatistics();
+      for ( NamedValue namedValue : this ) {
+        countValue( newStatistics, namedValue );
+      }
+      statistics = newStatistics;
     }
+    return statistics;
+  }
+
+  void valueChanged() {
+    statistics = null;
+  }
 
-    return namedValue;
+  private void countValue( ValueStatistics statistics, NamedValue namedValue ) {
+    if ( namedValue == null ) {
+      return;
+    }
+    if ( namedValue.owner != this ) {
+      if ( namedValue.owner != null ) {
+        namedValue.owner.untracked = true;
+      }
+      namedValue.owner = this;
+    }
+    if ( namedValue.getValue() != null ) {
+      statistics.add( namedValue.getValue().doubleValue() );
+    }
   }
 
   public Number getScalingFactor() {
@@ -0,0 +1,171 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A read-only {@link NamedValuesDataModel} whose values are read from some other storage by position instead of being
+ * copied into the set. The {@link NamedValue} handed out for a position is created on its first read and reused
+ * afterwards; its value is read again only when the storage has changed since. Those values cannot be set.
+ */
+abstract class NamedValuesView extends NamedValuesDataModel {
+
+  private NamedValue[] namedValues = new NamedValue[ 0 ];
+
+  /**
+   * The modification count of the storage when each of the <code>namedValues</code> was last read.
+   */
+  private int[] namedValueModCounts = new int[ 0 ];
+
+  abstract FormattableName getNameAt( int idx );
+
+  abstract Number getValueAt( int idx );
+
+  /**
+   * @return the position of the value with the given name, or -1 if there is no such value.
+   */
+  abstract int indexOf( String key );
+
+  /**
+   * @return a count that changes whenever a value of the storage changes.
+   */
+  abstract int getModCount();
+
+  NamedValue getNamedValueAt( int idx ) {
+    if ( idx >= namedValues.length ) {
+      int length = Math.max( size(), idx + 1 );
+      namedValues = Arrays.copyOf( namedValues, length );
+      namedValueModCounts = Arrays.copyOf( namedValueModCounts, length );
+    }
+    int modCount = getModCount();
+    NamedValue namedValue = namedValues[ idx ];
+    if ( namedValue == null ) {
+      namedValue = new ReadOnlyNamedValue( getNameAt( idx ), getValueAt( idx ) );
+      namedValues[ idx ] = namedValue;
+      namedValueModCounts[ idx ] = modCount;
+    } else if ( namedValueModCounts[ idx ] != modCount ) {
+      namedValue.value = getValueAt( idx );
+      namedValueModCounts[ idx ] = modCount;
+    }
+    return namedValue;
+  }
+
+  @Override
+  public abstract int size();
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * @return the statistics of the values, as kept by the storage.
+   */
+  @Override
+  public abstract ValueStatistics getStatistics();
+
+  @Override
+  public NamedValue getNamedValue( String key ) {
+    int idx = indexOf( key );
+    return idx >= 0 ? getNamedValueAt( idx ) : null;
+  }
+
+  @Override
+  public Iterator<NamedValue> iterator() {
+    return new Iterator<NamedValue>() {
+      int next = 0;
+
+      public boolean hasNext() {
+        return next < size();
+      }
+
+      public NamedValue next() {
+        if ( !hasNext() ) {
+          throw new NoSuchElementException();
+        }
+        return getNamedValueAt( next++ );
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  @Override
+  public boolean contains( Object o ) {
+    if ( !( o instanceof NamedValue ) ) {
+      return false;
+    }
+    NamedValue namedValue = (NamedValue) o;
+    if ( namedValue.getNameInstance() == null ) {
+      return false;
+    }
+    int idx = indexOf( namedValue.getName() );
+    if ( idx < 0 ) {
+      return false;
+    }
+    Number value = getValueAt( idx );
+    return value == null ? namedValue.getValue() == null : value.equals( namedValue.getValue() );
+  }
+
+  @Override
+  public Object[] toArray() {
+    Object[] namedValues = new Object[ size() ];
+    for ( int idx = 0; idx < namedValues.length; idx++ ) {
+      namedValues[ idx ] = getNamedValueAt( idx );
+    }
+    return namedValues;
+  }
+
+  @Override
+  public <T> T[] toArray( T[] a ) {
+    return Arrays.asList( toArray() ).toArray( a );
+  }
+
+  @Override
+  public boolean add( NamedValue namedValue ) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public boolean remove( Object o ) {
+    throw new UnsupportedOperationException();
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * @return a view of the same type over a copy of the values currently visible through this view.
+   */
+  @Override
+  public abstract Object clone();
+
+  private static class ReadOnlyNamedValue extends NamedValue {
+    ReadOnlyNamedValue( FormattableName name, Number value ) {
+      super( name, value );
+    }
+
+    @Override
+    public void setValue( Number value ) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
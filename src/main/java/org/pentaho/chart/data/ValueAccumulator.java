@@ -0,0 +1,160 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.data;
+
+/**
+ * Aggregates the values of one data point on primitive doubles, so that adding a value does not box a new number.
+ * The aggregate is only boxed when it is read through {@link #getValue()}.
+ * <p/>
+ * A data point that received a single value reads back as that value, and {@link Aggregate#MIN} and
+ * {@link Aggregate#MAX} read back as the chosen value, so the type of integral values is kept. Other results read back
+ * as a <code>Double</code>, or an <code>Integer</code> for {@link Aggregate#COUNT}.
+ */
+public class ValueAccumulator {
+
+  private final Aggregate aggregate;
+  private long count;
+  private double sum;
+  private Number first;
+  private Number min;
+  private Number max;
+  private double minValue;
+  private double maxValue;
+
+  public ValueAccumulator( Aggregate aggregate ) {
+    if ( aggregate == null ) {
+      throw new NullPointerException();
+    }
+    this.aggregate = aggregate;
+  }
+
+  public Aggregate getAggregate() {
+    return aggregate;
+  }
+
+  public void add( Number value ) {
+    if ( value == null ) {
+      return;
+    }
+    double doubleValue = value.doubleValue();
+    if ( count == 0 ) {
+      first = value;
+      min = value;
+      max = value;
+      minValue = doubleValue;
+      maxValue = doubleValue;
+    } else {
+      if ( doubleValue < minValue ) {
+        min = value;
+        minValue = doubleValue;
+      }
+      if ( doubleValue > maxValue ) {
+        max = value;
+        maxValue = doubleValue;
+      }
+    }
+    sum += doubleValue;
+    count++;
+  }
+
+  /**
+   * Adds the values added to the given accumulator, as if they had been added to this one after its own.
+   *
+   * @throws IllegalArgumentException if the given accumulator computes a different aggregate.
+   */
+  public void addAll( ValueAccumulator accumulator ) {
+    if ( accumulator.aggregate != aggregate ) {
+      throw new IllegalArgumentException();
+    }
+    if ( accumulator.count == 0 ) {
+      return;
+    }
+    if ( count == 0 ) {
+      first = accumulator.first;
+      min = accumulator.min;
+      max = accumulator.max;
+      minValue = accumulator.minValue;
+      maxValue = accumulator.maxValue;
+    } else {
+      if ( accumulator.minValue < minValue ) {
+        min = accumulator.min;
+        minValue = accumulator.minValue;
+      }
+      if ( accumulator.maxValue > maxValue ) {
+        max = accumulator.max;
+        maxValue = accumulator.maxValue;
+      }
+    }
+    sum += accumulator.sum;
+    count += accumulator.count;
+  }
+
+  /**
+   * @return whether a non-null value was added.
+   */
+  public boolean isPresent() {
+    return count > 0;
+  }
+
+  /**
+   * @return the number of non-null values added.
+   */
+  public long getCount() {
+    return count;
+  }
+
+  /**
+   * @return the aggregate as a primitive, or <code>Double.NaN</code> if no value was added.
+   */
+  public double getDoubleValue() {
+    if ( count == 0 ) {
+      return Double.NaN;
+    }
+    switch ( aggregate ) {
+      case COUNT:
+        return count;
+      case MIN:
+        return minValue;
+      case MAX:
+        return maxValue;
+      case AVG:
+        return sum / count;
+      default:
+        return sum;
+    }
+  }
+
+  /**
+   * @return the aggregate, or null if no value was added.
+   */
+  public Number getValue() {
+    if ( count == 0 ) {
+      return null;
+    }
+    switch ( aggregate ) {
+      case COUNT:
+        if ( count <= Integer.MAX_VALUE ) {
+          return Integer.valueOf( (int) count );
+        }
+        return Long.valueOf( count );
+      case MIN:
+        return min;
+      case MAX:
+        return max;
+      default:
+        return ( count == 1 ) ? first : Double.valueOf( getDoubleValue() );
+    }
+  }
+}
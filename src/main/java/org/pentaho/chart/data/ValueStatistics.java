@@ -0,0 +1,110 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+/**
+ * The count, sum, minimum and maximum of a set of values, along with the separate totals of its positive and negative
+ * values, which are the extents of the values when they are stacked. Zero counts as a positive value.
+ * <p/>
+ * {@link NamedValuesDataModel}, {@link XYDataModel} and {@link BasicDataModel} update their statistics as values are
+ * added, and recompute them on the first read after a value was removed or changed in place.
+ * {@link MultiSeriesXYDataModel} counts the points added through it, and {@link MultiSeriesDataModel} recomputes its
+ * statistics on the first read after any change.
+ */
+public class ValueStatistics {
+
+  private int count;
+  private double sum;
+  private double min = Double.POSITIVE_INFINITY;
+  private double max = Double.NEGATIVE_INFINITY;
+  private double positiveTotal;
+  private double negativeTotal;
+
+  void add( double value ) {
+    if ( count == 0 ) {
+      min = value;
+      max = value;
+    } else {
+      min = Math.min( min, value );
+      max = Math.max( max, value );
+    }
+    sum += value;
+    if ( value < 0 ) {
+      negativeTotal += value;
+    } else {
+      positiveTotal += value;
+    }
+    count++;
+  }
+
+  /**
+   * Adds the values counted by the given statistics, with the same result as adding them one by one apart from the
+   * grouping of the sums.
+   */
+  void addAll( ValueStatistics statistics ) {
+    if ( statistics.count == 0 ) {
+      return;
+    }
+    if ( count == 0 ) {
+      min = statistics.min;
+      max = statistics.max;
+    } else {
+      min = Math.min( min, statistics.min );
+      max = Math.max( max, statistics.max );
+    }
+    sum += statistics.sum;
+    positiveTotal += statistics.positiveTotal;
+    negativeTotal += statistics.negativeTotal;
+    count += statistics.count;
+  }
+
+  /**
+   * @return the number of values.
+   */
+  public int getCount() {
+    return count;
+  }
+
+  public double getSum() {
+    return sum;
+  }
+
+  /**
+   * @return the lowest value, or <code>Double.NaN</code> if there are no values.
+   */
+  public double getMin() {
+    return count > 0 ? min : Double.NaN;
+  }
+
+  /**
+   * @return the highest value, or <code>Double.NaN</code> if there are no values.
+   */
+  public double getMax() {
+    return count > 0 ? max : Double.NaN;
+  }
+
+  /**
+   * @return the total of the values that are zero or more, which is where a stack of the values ends.
+   */
+  public double getPositiveTotal() {
+    return positiveTotal;
+  }
+
+  /**
+   * @return the total of the values below zero, which is where a stack of the values starts.
+   */
+  public double getNegativeTotal() {
+    return negativeTotal;
+  }
+}
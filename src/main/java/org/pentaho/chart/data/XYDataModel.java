@@ -14,7 +14,149 @@
 package org.pentaho.chart.data;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 public class XYDataModel extends ArrayList<XYDataPoint> implements IChartDataModel {
 
+  /**
+   * Statistics of the non-null x and y values, updated as points are added and recomputed on the first read after a
+   * point is removed, replaced or changed. Null when they have to be recomputed.
+   */
+  private transient ValueStatistics domainStatistics = new ValueStatistics();
+  private transient ValueStatistics rangeStatistics = new ValueStatistics();
+
+  /**
+   * The <code>modCount</code> of the list when the statistics were last brought up to date, so that points removed by
+   * any of the list's methods are noticed.
+   */
+  private transient int statisticsModCount;
+
+  /**
+   * Set when points may have changed without this model being told: when a point of this model was taken by another
+   * model, which is then the one told of its changes, or when a sub list, which replaces points directly, was taken.
+   * The statistics are recomputed on every read from then on.
+   */
+  private transient boolean untracked;
+
+  @Override
+  public boolean add( XYDataPoint point ) {
+    boolean upToDate = isStatisticsUpToDate();
+    int size = size();
+    super.add( point );
+    pointsAdded( upToDate, size, size() );
+    return true;
+  }
+
+  @Override
+  public void add( int index, XYDataPoint point ) {
+    boolean upToDate = isStatisticsUpToDate();
+    super.add( index, point );
+    pointsAdded( upToDate, index, index + 1 );
+  }
+
+  @Override
+  public boolean addAll( Collection<? extends XYDataPoint> points ) {
+    boolean upToDate = isStatisticsUpToDate();
+    int size = size();
+    boolean added = super.addAll( points );
+    pointsAdded( upToDate, size, size() );
+    return added;
+  }
+
+  @Override
+  public boolean addAll( int index, Collection<? extends XYDataPoint> points ) {
+    boolean upToDate = isStatisticsUpToDate();
+    int size = size();
+    boolean added = super.addAll( index, points );
+    pointsAdded( upToDate, index, index + size() - size );
+    return added;
+  }
+
+  @Override
+  public XYDataPoint set( int index, XYDataPoint point ) {
+    XYDataPoint previous = super.set( index, point );
+    pointChanged();
+    return previous;
+  }
+
+  @Override
+  public List<XYDataPoint> subList( int fromIndex, int toIndex ) {
+    untracked = true;
+    return super.subList( fromIndex, toIndex );
+  }
+
+  @Override
+  public Object clone() {
+    XYDataModel clone = (XYDataModel) super.clone();
+    clone.domainStatistics = null;
+    clone.rangeStatistics = null;
+    return clone;
+  }
+
+  /**
+   * @return the statistics of the x values of the points, not counting null values.
+   */
+  public ValueStatistics getDomainStatistics() {
+    updateStatistics();
+    return domainStatistics;
+  }
+
+  /**
+   * @return the statistics of the y values of the points, not counting null values.
+   */
+  public ValueStatistics getRangeStatistics() {
+    updateStatistics();
+    return rangeStatistics;
+  }
+
+  void pointChanged() {
+    domainStatistics = null;
+    rangeStatistics = null;
+  }
+
+  private boolean isStatisticsUpToDate() {
+    return !untracked && ( domainStatistics != null ) && ( statisticsModCount == modCount );
+  }
+
+  private void pointsAdded( boolean upToDate, int fromIndex, int toIndex ) {
+    if ( upToDate ) {
+      for ( int idx = fromIndex; idx < toIndex; idx++ ) {
+        countPoint( domainStatistics, rangeStatistics, get( idx ) );
+      }
+      statisticsModCount = modCount;
+    }
+  }
+
+  private void updateStatistics() {
+    if ( isStatisticsUpToDate() ) {
+      return;
+    }
+    ValueStatistics newDomainStatistics = new ValueStatistics();
+    ValueStatistics newRangeStatistics = new ValueStatistics();
+    for ( XYDataPoint point : this ) {
+      countPoint( newDomainStatistics, newRangeStatistics, point );
+    }
+    domainStatistics = newDomainStatistics;
+    rangeStatistics = newRangeStatistics;
+    statisticsModCount = modCount;
+  }
+
+  private void countPoint( ValueStatistics domainStatistics, ValueStatistics rangeStatistics, XYDataPoint point ) {
+    if ( point == null ) {
+      return;
+    }
+    if ( point.owner != this ) {
+      if ( point.owner != null ) {
+        point.owner.untracked = true;
+      }
+      point.owner = this;
+    }
+    if ( point.getDomainValue() != null ) {
+      domainStatistics.add( point.getDomainValue().doubleValue() );
+    }
+    if ( point.getRangeValue() != null ) {
+      rangeStatistics.add( point.getRangeValue().doubleValue() );
+    }
+  }
 }
@@ -19,6 +19,11 @@ public class XYDataPoint {
 
   Number domainValue;
   Number rangeValue;
+
+  /**
+   * The model whose statistics count this point, told when the point changes.
+   */
+  XYDataModel owner;
   
   public XYDataPoint() {
     
@@ -71,10 +76,16 @@ public class XYDataPoint {
   
   public void setDomainValue(Number value) {
     domainValue = value;
+    if (owner != null) {
+      owner.pointChanged();
+    }
   }
   
   public void setRangeValue(Number value) {
     rangeValue = value;
+    if (owner != null) {
+      owner.pointChanged();
+    }
   }
   
   public Number getDomainValue() {
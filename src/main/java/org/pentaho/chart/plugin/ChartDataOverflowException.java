@@ -13,10 +13,13 @@
 
 package org.pentaho.chart.plugin;
 
+import org.pentaho.util.messages.Messages;
+
 public class ChartDataOverflowException extends ChartProcessingException
 {
   int numberOfDataPoints;
   int maxAllowedDataPoints;
+  int rowsRead = -1;
   
   public ChartDataOverflowException(int numberOfDataPoints, int maxAllowedDataPoints)
   {
@@ -24,6 +27,15 @@ public class ChartDataOverflowException extends ChartProcessingException
     this.maxAllowedDataPoints = maxAllowedDataPoints;
   }
 
+  public ChartDataOverflowException(int numberOfDataPoints, int maxAllowedDataPoints, int rowsRead)
+  {
+    super(Messages.getErrorString("ChartDataOverflowException.ERROR_0001_TOO_MANY_DATA_POINTS", //$NON-NLS-1$
+        String.valueOf(maxAllowedDataPoints), String.valueOf(rowsRead)));
+    this.numberOfDataPoints = numberOfDataPoints;
+    this.maxAllowedDataPoints = maxAllowedDataPoints;
+    this.rowsRead = rowsRead;
+  }
+
   public int getNumberOfDataPoints() {
     return numberOfDataPoints;
   }
@@ -32,4 +44,11 @@ public class ChartDataOverflowException extends ChartProcessingException
     return maxAllowedDataPoints;
   }
 
+  /**
+   * @return the number of rows that had been read when the limit was exceeded, or -1 if unknown.
+   */
+  public int getRowsRead() {
+    return rowsRead;
+  }
+
 }
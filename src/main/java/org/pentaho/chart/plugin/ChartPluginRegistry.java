@@ -0,0 +1,106 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
+
+/**
+ * The chart plugins available to {@link org.pentaho.chart.ChartBeanFactory} and {@link org.pentaho.chart.ChartFactory},
+ * indexed by plugin id.
+ * <p/>
+ * Until plugins are loaded, a single shared instance of the JFreeChart and OpenFlashChart plugins is used. Loading
+ * plugins replaces all of them at once, so a concurrent lookup sees either the old or the new plugins, never a mix.
+ */
+public class ChartPluginRegistry {
+
+  private static volatile Registry registry = new Registry();
+
+  private ChartPluginRegistry() {
+  }
+
+  /**
+   * @return the plugin with the given id, or null if there is none. If several loaded plugins have the same id, the
+   * last one wins.
+   */
+  public static IChartPlugin getPlugin( String pluginId ) {
+    return registry.getPlugin( pluginId );
+  }
+
+  /**
+   * @return the loaded plugins, in the order they were loaded.
+   */
+  public static List<IChartPlugin> getPlugins() {
+    return registry.plugins;
+  }
+
+  /**
+   * Replaces the loaded plugins. Passing null or an empty list restores the default plugins.
+   */
+  public static void loadPlugins( List<IChartPlugin> plugins ) {
+    registry = new Registry( plugins );
+  }
+
+  private static class Registry {
+
+    private final List<IChartPlugin> plugins;
+    private final Map<String, IChartPlugin> pluginsById;
+
+    Registry() {
+      this( null );
+    }
+
+    Registry( List<IChartPlugin> plugins ) {
+      List<IChartPlugin> pluginList = new ArrayList<IChartPlugin>();
+      Map<String, IChartPlugin> pluginMap = new HashMap<String, IChartPlugin>();
+      if ( plugins != null ) {
+        for ( IChartPlugin plugin : plugins ) {
+          pluginList.add( plugin );
+          pluginMap.put( plugin.getPluginId(), plugin );
+        }
+      }
+      this.plugins = Collections.unmodifiableList( pluginList );
+      this.pluginsById = pluginMap;
+    }
+
+    IChartPlugin getPlugin( String pluginId ) {
+      if ( plugins.isEmpty() ) {
+        return DefaultPlugins.PLUGINS_BY_ID.get( pluginId );
+      }
+      return pluginsById.get( pluginId );
+    }
+  }
+
+  /**
+   * Creates the default plugins the first time they are needed.
+   */
+  private static class DefaultPlugins {
+
+    static final Map<String, IChartPlugin> PLUGINS_BY_ID;
+
+    static {
+      Map<String, IChartPlugin> pluginMap = new HashMap<String, IChartPlugin>();
+      pluginMap.put( JFreeChartPlugin.PLUGIN_ID, new JFreeChartPlugin() );
+      pluginMap.put( OpenFlashChartPlugin.PLUGIN_ID, new OpenFlashChartPlugin() );
+      PLUGINS_BY_ID = Collections.unmodifiableMap( pluginMap );
+    }
+  }
+}
@@ -0,0 +1,142 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin;
+
+import java.math.BigDecimal;
+
+/**
+ * Divides chart values by a data model's scaling factor, the way both chart engines always have: the result is
+ * rounded to the number of fractional digits of the original value, kept between 2 and 6, if it has more than that.
+ * <p/>
+ * Fractional digits are counted as they appear in <code>toString()</code>. For doubles in the range where
+ * <code>Double.toString</code> uses plain notation, and for integral types, they are determined arithmetically
+ * instead of by formatting the value.
+ */
+public class NumberScaler {
+
+  private static final int MIN_PREFERRED_DIGITS = 2;
+
+  private static final int MAX_PREFERRED_DIGITS = 6;
+
+  private static final double[] POWERS_OF_TEN = { 1, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6 };
+
+  /**
+   * <code>Double.toString</code> uses plain notation for magnitudes in [10^-3, 10^7)
+   */
+  private static final double MIN_PLAIN_DOUBLE = 1e-3;
+
+  private static final double MAX_PLAIN_DOUBLE = 1e7;
+
+  private NumberScaler() {
+  }
+
+  /**
+   * @return the scaled value, or the given number itself if there is nothing to scale by.
+   */
+  public static Number scaleNumber( Number number, Number scale ) {
+    if ( ( number == null ) || isIdentity( scale ) ) {
+      return number;
+    }
+    return scale( number.doubleValue(), fractionDigits( number ), scale.doubleValue() );
+  }
+
+  /**
+   * @return whether scaling by the given scale returns numbers unchanged.
+   */
+  public static boolean isIdentity( Number scale ) {
+    return ( scale == null ) || scale.equals( 1 ) || scale.equals( 0 );
+  }
+
+  /**
+   * Scales a double the same way {@link #scaleNumber(Number, Number)} scales a <code>Double</code> by a
+   * <code>Double</code>.
+   */
+  public static double scale( double value, double scale ) {
+    return scale( value, fractionDigits( value ), scale );
+  }
+
+  private static double scale( double value, int startingFractionDigits, double scale ) {
+    int preferredDigits = Math.max( MIN_PREFERRED_DIGITS, Math.min( startingFractionDigits, MAX_PREFERRED_DIGITS ) );
+    double scaled = value / scale;
+    // Non-finite results have no decimal point and were always rounded
+    if ( Double.isNaN( scaled ) || Double.isInfinite( scaled ) || ( fractionDigits( scaled ) > preferredDigits ) ) {
+      double multiplier = Math.pow( 10, preferredDigits );
+      scaled = Math.round( scaled * multiplier ) / multiplier;
+    }
+    return scaled;
+  }
+
+  /**
+   * @return the number of fractional digits of the number's <code>toString()</code>, or any value above
+   * {@link #MAX_PREFERRED_DIGITS} if there are more than that.
+   */
+  private static int fractionDigits( Number number ) {
+    if ( number instanceof Integer ) {
+      return 0;
+    }
+    if ( number instanceof Double ) {
+      return fractionDigits( number.doubleValue() );
+    }
+    if ( ( number instanceof Long ) || ( number instanceof Short ) || ( number instanceof Byte ) ) {
+      return 0;
+    }
+    if ( number instanceof BigDecimal ) {
+      BigDecimal decimal = (BigDecimal) number;
+      int scale = decimal.scale();
+      // toString() has no decimal point for scale 0, and is scientific for negative scales
+      if ( scale == 0 ) {
+        return 0;
+      }
+      if ( ( scale > 1 ) && ( decimal.precision() - scale - 1 >= -6 ) ) {
+        return scale;
+      }
+    }
+    return fractionDigits( number.toString() );
+  }
+
+  private static int fractionDigits( double value ) {
+    double magnitude = Math.abs( value );
+    if ( ( magnitude >= MIN_PLAIN_DOUBLE ) && ( magnitude < MAX_PLAIN_DOUBLE ) ) {
+      // The shortest decimal that rounds to the value has k fractional digits if a k-digit fraction round-trips
+      for ( int digits = 0; digits <= MAX_PREFERRED_DIGITS; digits++ ) {
+        double multiplier = POWERS_OF_TEN[ digits ];
+        if ( Math.rint( value * multiplier ) / multiplier == value ) {
+          return digits;
+        }
+      }
+      return MAX_PREFERRED_DIGITS + 1;
+    }
+    if ( ( value == 0 ) || Double.isNaN( value ) || Double.isInfinite( value ) ) {
+      return 0;
+    }
+    return fractionDigits( Double.toString( value ) );
+  }
+
+  /**
+   * Counts the characters after the decimal point, as the engines originally did, including those of an exponent.
+   * A single zero does not count.
+   */
+  private static int fractionDigits( String text ) {
+    int indexOfDecimalPoint = text.indexOf( '.' );
+    if ( indexOfDecimalPoint < 0 ) {
+      return 0;
+    }
+    String fractionalPart = text.substring( indexOfDecimalPoint + 1 );
+    if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
+      return fractionalPart.length();
+    }
+    return 0;
+  }
+}
@@ -20,6 +20,7 @@ import java.awt.GradientPaint;
 import java.awt.Point;
 import java.awt.Stroke;
 import java.io.Serializable;
+import java.text.NumberFormat;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -33,6 +34,7 @@ import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.axis.ValueAxis;
 import org.jfree.chart.block.BlockBorder;
 import org.jfree.chart.labels.StandardPieSectionLabelGenerator;
+import org.jfree.chart.labels.StandardPieToolTipGenerator;
 import org.jfree.chart.plot.CategoryPlot;
 import org.jfree.chart.plot.PiePlot;
 import org.jfree.chart.plot.PlotOrientation;
@@ -92,6 +94,7 @@ import org.pentaho.chart.model.DialPlot.DialRange;
 import org.pentaho.chart.model.LinePlot.LinePlotFlavor;
 import org.pentaho.chart.model.Plot.Orientation;
 import org.pentaho.chart.plugin.IChartPlugin;
+import org.pentaho.chart.plugin.NumberScaler;
 import org.pentaho.chart.plugin.api.ChartResult;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.jfreechart.chart.area.JFreeAreaChartGeneratorFactory;
@@ -105,6 +108,7 @@ import org.pentaho.chart.plugin.jfreechart.chart.dial.JFreeDialChartGenerator.Va
 import org.pentaho.chart.plugin.jfreechart.chart.line.JFreeLineChartGeneratorFactory;
 import org.pentaho.chart.plugin.jfreechart.chart.multi.JFreeMultiChartGeneratorFactory;
 import org.pentaho.chart.plugin.jfreechart.chart.pie.JFreePieChartGeneratorFactory;
+import org.pentaho.chart.plugin.jfreechart.dataset.MultiSeriesCategoryDataset;
 import org.pentaho.chart.plugin.jfreechart.outputs.JFreeChartOutput;
 import org.pentaho.chart.plugin.jfreechart.utils.JFreeChartUtils;
 import org.pentaho.reporting.libraries.css.values.CSSConstant;
@@ -117,6 +121,42 @@ public class JFreeChartFactoryEngine implements Serializable {
     String rangeAxisLabel = "";
   }
 
+  /**
+   * Labels pie sections with a known total, instead of summing the dataset again for every label.
+   */
+  private static class FixedTotalPieSectionLabelGenerator extends StandardPieSectionLabelGenerator {
+    private static final long serialVersionUID = 1L;
+
+    private final double total;
+
+    FixedTotalPieSectionLabelGenerator( double total ) {
+      this.total = total;
+    }
+
+    @Override
+    protected Object[] createItemArray( PieDataset dataset, Comparable key ) {
+      return createPieItemArray( dataset, key, total, getNumberFormat(), getPercentFormat() );
+    }
+  }
+
+  /**
+   * Generates pie section tooltips with a known total, instead of summing the dataset again for every tooltip.
+   */
+  private static class FixedTotalPieToolTipGenerator extends StandardPieToolTipGenerator {
+    private static final long serialVersionUID = 1L;
+
+    private final double total;
+
+    FixedTotalPieToolTipGenerator( double total ) {
+      this.total = total;
+    }
+
+    @Override
+    protected Object[] createItemArray( PieDataset dataset, Comparable key ) {
+      return createPieItemArray( dataset, key, total, getNumberFormat(), getPercentFormat() );
+    }
+  }
+
   private static final Log logger = LogFactory.getLog( JFreeChartFactoryEngine.class );
 
   private static final long serialVersionUID = -1079376910255750394L;
@@ -129,29 +169,29 @@ public class JFreeChartFactoryEngine implements Serializable {
   }
 
   public IOutput makeChart( ChartModel chartModel, IChartDataModel chartDataModel, IChartLinkGenerator linkGenerator ) {
-    IOutput chartOutput = null;
+    JFreeChart chart = null;
     if ( chartModel.getPlot() instanceof BarPlot ) {
-      chartOutput =
-        new JFreeChartOutput( makeBarChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator ) );
+      chart = makeBarChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator );
     } else if ( chartModel.getPlot() instanceof LinePlot ) {
-      chartOutput =
-        new JFreeChartOutput( makeLineChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator ) );
+      chart = makeLineChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator );
     } else if ( chartModel.getPlot() instanceof AreaPlot ) {
-      chartOutput =
-        new JFreeChartOutput( makeAreaChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator ) );
+      chart = makeAreaChart( chartModel, (MultiSeriesDataModel) chartDataModel, linkGenerator );
     } else if ( chartModel.getPlot() instanceof DialPlot ) {
-      chartOutput = new JFreeChartOutput( makeDialChart( chartModel, (BasicDataModel) chartDataModel ) );
+      chart = makeDialChart( chartModel, (BasicDataModel) chartDataModel );
     } else if ( chartModel.getPlot() instanceof org.pentaho.chart.model.PiePlot ) {
-      chartOutput =
-        new JFreeChartOutput( makePieChart( chartModel, (NamedValuesDataModel) chartDataModel, linkGenerator ) );
+      chart = makePieChart( chartModel, (NamedValuesDataModel) chartDataModel, linkGenerator );
     } else if ( chartModel.getPlot() instanceof ScatterPlot ) {
       if ( chartDataModel instanceof MultiSeriesXYDataModel ) {
-        chartOutput = new JFreeChartOutput( makeScatterChart( chartModel, (MultiSeriesXYDataModel) chartDataModel ) );
+        chart = makeScatterChart( chartModel, (MultiSeriesXYDataModel) chartDataModel );
       } else {
-        chartOutput = new JFreeChartOutput( makeScatterChart( chartModel, (XYDataModel) chartDataModel ) );
+        chart = makeScatterChart( chartModel, (XYDataModel) chartDataModel );
       }
     }
-    return chartOutput;
+    if ( chart == null ) {
+      return null;
+    }
+    // Entities are only needed to build the image map of links
+    return new JFreeChartOutput( chart, linkGenerator != null );
   }
 
   public JFreeChart makePieChart( ChartModel chartModel, NamedValuesDataModel dataModel,
@@ -188,6 +228,13 @@ public class JFreeChartFactoryEngine implements Serializable {
       } );
     }
 
+    // The labels, legend items and tooltips would otherwise each sum the whole dataset for their percentage
+    Double pieTotal = getPieTotal( dataModel, dataset );
+    if ( pieTotal != null ) {
+      jFreePiePlot.setToolTipGenerator( new FixedTotalPieToolTipGenerator( pieTotal ) );
+      jFreePiePlot.setLegendLabelGenerator( new FixedTotalPieSectionLabelGenerator( pieTotal ) );
+    }
+
     jFreePiePlot.setNoDataMessage( "No data available" ); //$NON-NLS-1$
     jFreePiePlot.setCircular( true );
     jFreePiePlot.setLabelGap( 0.02 );
@@ -206,7 +253,8 @@ public class JFreeChartFactoryEngine implements Serializable {
     }
 
     if ( chartBeansPiePlot.getLabels().getVisible() ) {
-      jFreePiePlot.setLabelGenerator( new StandardPieSectionLabelGenerator() );
+      jFreePiePlot.setLabelGenerator( ( pieTotal != null ) ? new FixedTotalPieSectionLabelGenerator( pieTotal )
+        : new StandardPieSectionLabelGenerator() );
 
       Font font = ChartUtils
         .getFont( chartBeansPiePlot.getLabels().getFontFamily(), chartBeansPiePlot.getLabels().getFontStyle(),
@@ -231,6 +279,39 @@ public class JFreeChartFactoryEngine implements Serializable {
     return chart;
   }
 
+  /**
+   * @return the total of the positive values of the dataset, which is what a pie is drawn from, taken from the
+   * statistics of the data model, or null if the dataset does not hold the model's values unchanged.
+   */
+  private static Double getPieTotal( NamedValuesDataModel dataModel, PieDataset dataset ) {
+    // Values without a name are left out of the dataset, and values that share a name replace each other in it
+    if ( !NumberScaler.isIdentity( dataModel.getScalingFactor() ) || ( dataset.getItemCount() != dataModel.size() ) ) {
+      return null;
+    }
+    double positiveTotal = dataModel.getStatistics().getPositiveTotal();
+    // The dataset skips NaN values when it sums them
+    return Double.isNaN( positiveTotal ) ? null : positiveTotal;
+  }
+
+  /**
+   * @return the items of a pie section label, as <code>AbstractPieItemLabelGenerator</code> creates them, but for the
+   * given total.
+   */
+  private static Object[] createPieItemArray( PieDataset dataset, Comparable key, double total,
+                                              NumberFormat numberFormat, NumberFormat percentFormat ) {
+    Object[] result = new Object[ 4 ];
+    result[ 0 ] = key.toString();
+    Number value = dataset.getValue( key );
+    result[ 1 ] = ( value != null ) ? numberFormat.format( value ) : "null";
+    double percent = 0.0;
+    if ( ( value != null ) && ( value.doubleValue() > 0.0 ) ) {
+      percent = value.doubleValue() / total;
+    }
+    result[ 2 ] = percentFormat.format( percent );
+    result[ 3 ] = numberFormat.format( total );
+    return result;
+  }
+
   protected JFreeChart makeDialChart( ChartModel chartModel, BasicDataModel data ) {
     DialPlot chartBeansDialPlot = (DialPlot) chartModel.getPlot();
 
@@ -424,7 +505,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    */
   public JFreeChart makeAreaChart( ChartModel chartModel, MultiSeriesDataModel dataModel,
                                    IChartLinkGenerator linkGenerator ) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset( dataModel );
+    CategoryDataset categoryDataset = createCategoryDatasetView( dataModel );
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot) chartModel.getPlot();
 
     String title = "";
@@ -455,7 +536,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    */
   public JFreeChart makeLineChart( ChartModel chartModel, MultiSeriesDataModel dataModel,
                                    IChartLinkGenerator linkGenerator ) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset( dataModel );
+    CategoryDataset categoryDataset = createCategoryDatasetView( dataModel );
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot) chartModel.getPlot();
 
     String title = "";
@@ -565,6 +646,13 @@ public class JFreeChartFactoryEngine implements Serializable {
     return chart;
   }
 
+  /**
+   * Copies the values of the given model into a new dataset.
+   *
+   * @deprecated the category charts read their values through {@link #createCategoryDatasetView(MultiSeriesDataModel)},
+   * which does not copy them.
+   */
+  @Deprecated
   protected DefaultCategoryDataset createCategoryDataset( MultiSeriesDataModel data ) {
     DefaultCategoryDataset categoryDataset = new DefaultCategoryDataset();
     for ( DomainData category : data.getDomainData() ) {
@@ -578,6 +666,21 @@ public class JFreeChartFactoryEngine implements Serializable {
     return categoryDataset;
   }
 
+  /**
+   * @return a dataset that reads the values of the given model, without copying them, and scales them with
+   * {@link #scaleNumber(Number, Number)}. The range of an unscaled model is read from its statistics, so an override
+   * of <code>scaleNumber</code> must return values unchanged for an identity scale, as the default does.
+   */
+  protected CategoryDataset createCategoryDatasetView( MultiSeriesDataModel data ) {
+    return new MultiSeriesCategoryDataset( data, new MultiSeriesCategoryDataset.Scaler() {
+      private static final long serialVersionUID = 1L;
+
+      public Number scaleNumber( Number number, Number scale ) {
+        return JFreeChartFactoryEngine.this.scaleNumber( number, scale );
+      }
+    } );
+  }
+
   private AxesLabels getAxesLabels( ChartModel chartModel ) {
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot) chartModel.getPlot();
     AxesLabels graphLabelsAndFonts = new AxesLabels();
@@ -806,7 +909,7 @@ public class JFreeChartFactoryEngine implements Serializable {
    */
   public JFreeChart makeBarChart( ChartModel chartModel, MultiSeriesDataModel dataModel,
                                   IChartLinkGenerator linkGenerator ) {
-    DefaultCategoryDataset categoryDataset = createCategoryDataset( dataModel );
+    CategoryDataset categoryDataset = createCategoryDatasetView( dataModel );
     org.pentaho.chart.model.TwoAxisPlot twoAxisPlot = (org.pentaho.chart.model.TwoAxisPlot) chartModel.getPlot();
 
     String title = "";
@@ -1066,35 +1169,6 @@ public class JFreeChartFactoryEngine implements Serializable {
   }
 
   protected Number scaleNumber( Number number, Number scale ) {
-    Number scaledNumber = number;
-    if ( ( number != null ) && ( scale != null ) && !scale.equals( 1 ) && !scale.equals( 0 ) ) {
-
-      int startingSignificantDigits = 0;
-      if ( !( number instanceof Integer ) ) {
-        int indexOfDecimalPoint = number.toString().indexOf( "." );
-        if ( indexOfDecimalPoint >= 0 ) {
-          String fractionalPart = number.toString().substring( indexOfDecimalPoint + 1 );
-          if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
-            startingSignificantDigits = fractionalPart.length();
-          }
-        }
-      }
-
-      int preferredSignificantDigits = Math.max( 2, Math.min( startingSignificantDigits, 6 ) );
-
-      scaledNumber = number.doubleValue() / scale.doubleValue();
-      int scaledSignificantDigits = 0;
-      int indexOfDecimalPoint = scaledNumber.toString().indexOf( "." );
-      String fractionalPart = scaledNumber.toString().substring( indexOfDecimalPoint + 1 );
-      if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
-        scaledSignificantDigits = fractionalPart.length();
-      }
-
-      if ( scaledSignificantDigits > preferredSignificantDigits ) {
-        double multiplier = Math.pow( 10, preferredSignificantDigits );
-        scaledNumber = Math.round( scaledNumber.doubleValue() * multiplier ) / multiplier;
-      }
-    }
-    return scaledNumber;
+    return NumberScaler.scaleNumber( number, scale );
   }
 }
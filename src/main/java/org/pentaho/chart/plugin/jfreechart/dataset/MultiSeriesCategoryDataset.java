@@ -0,0 +1,206 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.List;
+
+import org.jfree.data.Range;
+import org.jfree.data.RangeInfo;
+import org.jfree.data.UnknownKeyException;
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.general.AbstractDataset;
+import org.pentaho.chart.data.FormattableName;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.data.ValueStatistics;
+import org.pentaho.chart.plugin.NumberScaler;
+
+/**
+ * A read-only <code>CategoryDataset</code> backed by a <code>MultiSeriesDataModel</code>, so that category charts are
+ * drawn without copying their data. Rows are the series and columns the categories of the model, in the model's order,
+ * keyed by their <code>FormattableName</code>s. Values are read from the model's cells by index and scaled by the
+ * model's scaling factor as they are read, by the {@link NumberScaler} or by the given {@link Scaler}.
+ * <p/>
+ * The range of the values is taken from the model's statistics when the model is not scaled, so the range axis does
+ * not have to scan the values. Changes made to the model are seen by the
+ * dataset, but no change event is sent for them.
+ */
+public class MultiSeriesCategoryDataset extends AbstractDataset implements CategoryDataset, RangeInfo {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Scales values as they are read from the model. A scaler must return values unchanged when the scale
+   * {@link NumberScaler#isIdentity(Number) is the identity}, as the range of an unscaled model is read from its
+   * statistics.
+   */
+  public interface Scaler extends Serializable {
+    Number scaleNumber(Number number, Number scale);
+  }
+
+  /**
+   * Scales values with {@link NumberScaler#scaleNumber(Number, Number)}
+   */
+  public static final Scaler NUMBER_SCALER = new DefaultScaler();
+
+  private final MultiSeriesDataModel dataModel;
+
+  private final Scaler scaler;
+
+  private final List<FormattableName> rowKeys = new AbstractList<FormattableName>() {
+    public FormattableName get(int row) {
+      return getRowKey(row);
+    }
+
+    public int size() {
+      return getRowCount();
+    }
+  };
+
+  private final List<FormattableName> columnKeys = new AbstractList<FormattableName>() {
+    public FormattableName get(int column) {
+      return getColumnKey(column);
+    }
+
+    public int size() {
+      return getColumnCount();
+    }
+  };
+
+  public MultiSeriesCategoryDataset(MultiSeriesDataModel dataModel) {
+    this(dataModel, NUMBER_SCALER);
+  }
+
+  public MultiSeriesCategoryDataset(MultiSeriesDataModel dataModel, Scaler scaler) {
+    if (dataModel == null || scaler == null) {
+      throw new NullPointerException();
+    }
+    this.dataModel = dataModel;
+    this.scaler = scaler;
+  }
+
+  public MultiSeriesDataModel getDataModel() {
+    return dataModel;
+  }
+
+  public int getRowCount() {
+    return dataModel.getSeriesCount();
+  }
+
+  public int getColumnCount() {
+    return dataModel.getCategoryCount();
+  }
+
+  public Number getValue(int row, int column) {
+    return scaler.scaleNumber(dataModel.getValue(row, column), dataModel.getScalingFactor());
+  }
+
+  public FormattableName getRowKey(int row) {
+    return dataModel.getSeriesName(row);
+  }
+
+  public int getRowIndex(Comparable key) {
+    if (key == null) {
+      throw new IllegalArgumentException("Null 'key' argument.");
+    }
+    return (key instanceof FormattableName) ? dataModel.getSeriesIndex(((FormattableName) key).getKey()) : -1;
+  }
+
+  public List getRowKeys() {
+    return rowKeys;
+  }
+
+  public FormattableName getColumnKey(int column) {
+    return dataModel.getCategoryName(column);
+  }
+
+  public int getColumnIndex(Comparable key) {
+    if (key == null) {
+      throw new IllegalArgumentException("Null 'key' argument.");
+    }
+    return (key instanceof FormattableName) ? dataModel.getCategoryIndex(((FormattableName) key).getKey()) : -1;
+  }
+
+  public List getColumnKeys() {
+    return columnKeys;
+  }
+
+  public Number getValue(Comparable rowKey, Comparable columnKey) {
+    int row = getRowIndex(rowKey);
+    if (row < 0) {
+      throw new UnknownKeyException("Unrecognised rowKey: " + rowKey);
+    }
+    int column = getColumnIndex(columnKey);
+    if (column < 0) {
+      throw new UnknownKeyException("Unrecognised columnKey: " + columnKey);
+    }
+    return getValue(row, column);
+  }
+
+  public double getRangeLowerBound(boolean includeInterval) {
+    Range range = getRangeBounds(includeInterval);
+    return (range != null) ? range.getLowerBound() : Double.NaN;
+  }
+
+  public double getRangeUpperBound(boolean includeInterval) {
+    Range range = getRangeBounds(includeInterval);
+    return (range != null) ? range.getUpperBound() : Double.NaN;
+  }
+
+  /**
+   * @return the range of the non-NaN values, the way <code>DatasetUtilities</code> finds it by iterating over them, or
+   * null if there are none.
+   */
+  public Range getRangeBounds(boolean includeInterval) {
+    if (NumberScaler.isIdentity(dataModel.getScalingFactor())) {
+      ValueStatistics statistics = dataModel.getStatistics();
+      if (statistics.getCount() == 0) {
+        return null;
+      }
+      // A NaN value spoils the statistics; iterating skips it
+      if (!Double.isNaN(statistics.getMin()) && !Double.isNaN(statistics.getMax())) {
+        return new Range(statistics.getMin(), statistics.getMax());
+      }
+    }
+
+    double minimum = Double.POSITIVE_INFINITY;
+    double maximum = Double.NEGATIVE_INFINITY;
+    for (int row = 0; row < getRowCount(); row++) {
+      for (int column = 0; column < getColumnCount(); column++) {
+        Number value = getValue(row, column);
+        if (value != null) {
+          double doubleValue = value.doubleValue();
+          if (!Double.isNaN(doubleValue)) {
+            minimum = Math.min(minimum, doubleValue);
+            maximum = Math.max(maximum, doubleValue);
+          }
+        }
+      }
+    }
+    return (minimum == Double.POSITIVE_INFINITY) ? null : new Range(minimum, maximum);
+  }
+
+  private static class DefaultScaler implements Scaler {
+    private static final long serialVersionUID = 1L;
+
+    public Number scaleNumber(Number number, Number scale) {
+      return NumberScaler.scaleNumber(number, scale);
+    }
+
+    private Object readResolve() {
+      return NUMBER_SCALER;
+    }
+  }
+}
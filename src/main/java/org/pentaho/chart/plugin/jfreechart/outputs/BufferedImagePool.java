@@ -0,0 +1,224 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A thread-safe pool of the images charts are drawn into, so that rendering a chart does not allocate a new image the
+ * size of the chart every time.
+ * <p/>
+ * Images are pooled in buckets whose sides are rounded up to a multiple of {@link #BUCKET_SIZE} pixels, so that charts
+ * of similar sizes share images. A chart is drawn into a view of the top left corner of the pooled image.
+ */
+public class BufferedImagePool {
+
+  public static final int BUCKET_SIZE = 64;
+
+  public static final int DEFAULT_MAX_IMAGES_PER_BUCKET = 4;
+
+  public static final long DEFAULT_MAX_POOLED_BYTES = 64L * 1024 * 1024;
+
+  private static final BufferedImagePool instance =
+      new BufferedImagePool(DEFAULT_MAX_IMAGES_PER_BUCKET, DEFAULT_MAX_POOLED_BYTES);
+
+  private final int maxImagesPerBucket;
+  private final long maxPooledBytes;
+  private final ConcurrentHashMap<Bucket, ConcurrentLinkedQueue<BufferedImage>> buckets =
+      new ConcurrentHashMap<Bucket, ConcurrentLinkedQueue<BufferedImage>>();
+
+  private final AtomicLong pooledBytes = new AtomicLong();
+  private final AtomicLong allocationCount = new AtomicLong();
+  private final AtomicLong reuseCount = new AtomicLong();
+  private final AtomicLong discardCount = new AtomicLong();
+
+  public static BufferedImagePool getInstance() {
+    return instance;
+  }
+
+  public BufferedImagePool(final int maxImagesPerBucket, final long maxPooledBytes) {
+    this.maxImagesPerBucket = maxImagesPerBucket;
+    this.maxPooledBytes = maxPooledBytes;
+  }
+
+  /**
+   * Returns a cleared image of the given size and type, reusing a pooled image if there is one. The image must be
+   * released when it is no longer used.
+   *
+   * @param imageType one of <code>BufferedImage.TYPE_INT_ARGB</code> or <code>BufferedImage.TYPE_INT_RGB</code>
+   */
+  public PooledImage acquire(final int width, final int height, final int imageType) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException();
+    }
+    final Bucket bucket = new Bucket(roundUp(width), roundUp(height), imageType);
+    final ConcurrentLinkedQueue<BufferedImage> queue = buckets.get(bucket);
+    BufferedImage image = (queue != null) ? queue.poll() : null;
+    if (image != null) {
+      pooledBytes.addAndGet(-bucket.getBytes());
+      reuseCount.incrementAndGet();
+      clear(image);
+    } else {
+      allocationCount.incrementAndGet();
+      image = new BufferedImage(bucket.width, bucket.height, imageType);
+    }
+    return new PooledImage(this, bucket, image, width, height);
+  }
+
+  private void release(final Bucket bucket, final BufferedImage image) {
+    ConcurrentLinkedQueue<BufferedImage> queue = buckets.get(bucket);
+    if (queue == null) {
+      buckets.putIfAbsent(bucket, new ConcurrentLinkedQueue<BufferedImage>());
+      queue = buckets.get(bucket);
+    }
+    if (queue.size() >= maxImagesPerBucket) {
+      discardCount.incrementAndGet();
+      return;
+    }
+    if (pooledBytes.addAndGet(bucket.getBytes()) > maxPooledBytes) {
+      pooledBytes.addAndGet(-bucket.getBytes());
+      discardCount.incrementAndGet();
+      return;
+    }
+    queue.offer(image);
+  }
+
+  /**
+   * Removes all pooled images
+   */
+  public void clear() {
+    for (final Bucket bucket : buckets.keySet()) {
+      final ConcurrentLinkedQueue<BufferedImage> queue = buckets.get(bucket);
+      while (queue != null && queue.poll() != null) {
+        pooledBytes.addAndGet(-bucket.getBytes());
+      }
+    }
+  }
+
+  /**
+   * @return the number of images that had to be allocated
+   */
+  public long getAllocationCount() {
+    return allocationCount.get();
+  }
+
+  /**
+   * @return the number of times a pooled image was reused
+   */
+  public long getReuseCount() {
+    return reuseCount.get();
+  }
+
+  /**
+   * @return the number of released images that were not pooled because the pool was full
+   */
+  public long getDiscardCount() {
+    return discardCount.get();
+  }
+
+  /**
+   * @return the number of bytes held by the pooled images
+   */
+  public long getPooledBytes() {
+    return pooledBytes.get();
+  }
+
+  private static int roundUp(final int size) {
+    return ((size + BUCKET_SIZE - 1) / BUCKET_SIZE) * BUCKET_SIZE;
+  }
+
+  private static void clear(final BufferedImage image) {
+    final DataBuffer dataBuffer = image.getRaster().getDataBuffer();
+    if (dataBuffer instanceof DataBufferInt) {
+      Arrays.fill(((DataBufferInt) dataBuffer).getData(), 0);
+    } else {
+      for (int bank = 0; bank < dataBuffer.getNumBanks(); bank++) {
+        for (int i = 0; i < dataBuffer.getSize(); i++) {
+          dataBuffer.setElem(bank, i, 0);
+        }
+      }
+    }
+  }
+
+  /**
+   * An image taken from the pool
+   */
+  public static class PooledImage {
+    private final BufferedImagePool pool;
+    private final Bucket bucket;
+    private BufferedImage pooledImage;
+    private final BufferedImage image;
+
+    PooledImage(final BufferedImagePool pool, final Bucket bucket, final BufferedImage pooledImage,
+                final int width, final int height) {
+      this.pool = pool;
+      this.bucket = bucket;
+      this.pooledImage = pooledImage;
+      this.image = (pooledImage.getWidth() == width && pooledImage.getHeight() == height)
+          ? pooledImage : pooledImage.getSubimage(0, 0, width, height);
+    }
+
+    /**
+     * @return an image of the requested size, which must not be used after this image is released
+     */
+    public BufferedImage getImage() {
+      return image;
+    }
+
+    /**
+     * Returns the image to the pool. Releasing an image more than once has no effect.
+     */
+    public synchronized void release() {
+      if (pooledImage != null) {
+        pool.release(bucket, pooledImage);
+        pooledImage = null;
+      }
+    }
+  }
+
+  private static class Bucket {
+    private final int width;
+    private final int height;
+    private final int imageType;
+
+    Bucket(final int width, final int height, final int imageType) {
+      this.width = width;
+      this.height = height;
+      this.imageType = imageType;
+    }
+
+    long getBytes() {
+      return 4L * width * height;
+    }
+
+    public boolean equals(final Object o) {
+      if (!(o instanceof Bucket)) {
+        return false;
+      }
+      final Bucket other = (Bucket) o;
+      return width == other.width && height == other.height && imageType == other.imageType;
+    }
+
+    public int hashCode() {
+      return (31 * width + height) * 31 + imageType;
+    }
+  }
+}
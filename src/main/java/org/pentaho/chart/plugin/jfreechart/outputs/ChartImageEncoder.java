@@ -0,0 +1,141 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+
+/**
+ * Encodes chart images as PNG or JPEG, reusing the underlying image writers instead of looking up and creating new
+ * ones for every chart. Encoded images are buffered in memory rather than in a temporary file.
+ * <p/>
+ * If a {@link PngEncodingProfile} is set, PNG images are encoded by the {@link PngEncoder} according to that profile
+ * instead of by an image writer.
+ */
+public class ChartImageEncoder {
+
+  /**
+   * The JPEG quality used by JFreeChart's <code>ChartUtilities.writeChartAsJPEG</code>
+   */
+  public static final float DEFAULT_JPEG_QUALITY = 0.95f;
+
+  public static final String FORMAT_PNG = "png"; //$NON-NLS-1$
+
+  public static final String FORMAT_JPEG = "jpeg"; //$NON-NLS-1$
+
+  private static final int MAX_POOLED_WRITERS = 16;
+
+  private static final ChartImageEncoder pngEncoder = new ChartImageEncoder(FORMAT_PNG);
+
+  private static final ChartImageEncoder jpegEncoder = new ChartImageEncoder(FORMAT_JPEG);
+
+  private static volatile PngEncodingProfile pngEncodingProfile;
+
+  private final String format;
+
+  private final ConcurrentLinkedQueue<ImageWriter> writers = new ConcurrentLinkedQueue<ImageWriter>();
+
+  private ChartImageEncoder(final String format) {
+    this.format = format;
+  }
+
+  public static ChartImageEncoder getPngEncoder() {
+    return pngEncoder;
+  }
+
+  public static ChartImageEncoder getJpegEncoder() {
+    return jpegEncoder;
+  }
+
+  /**
+   * @return the profile used to encode PNG images, or <code>null</code> if they are encoded with the image writer's
+   * defaults
+   */
+  public static PngEncodingProfile getPngEncodingProfile() {
+    return pngEncodingProfile;
+  }
+
+  public static void setPngEncodingProfile(final PngEncodingProfile profile) {
+    pngEncodingProfile = profile;
+  }
+
+  /**
+   * Writes the image to the given stream. The stream is neither flushed nor closed.
+   */
+  public void encode(final BufferedImage image, final OutputStream outputStream) throws IOException {
+    final PngEncodingProfile profile = pngEncodingProfile;
+    if (profile != null && FORMAT_PNG.equals(format)) {
+      PngEncoder.encode(image, profile, outputStream);
+      return;
+    }
+
+    final ImageWriter writer = acquireWriter();
+    final ImageOutputStream imageOutputStream = new MemoryCacheImageOutputStream(outputStream);
+    boolean reusable = false;
+    try {
+      writer.setOutput(imageOutputStream);
+      writer.write(null, new IIOImage(image, null, null), createWriteParam(writer));
+      imageOutputStream.flush();
+      reusable = true;
+    } finally {
+      writer.reset();
+      imageOutputStream.close();
+      if (reusable) {
+        releaseWriter(writer);
+      } else {
+        writer.dispose();
+      }
+    }
+  }
+
+  private ImageWriteParam createWriteParam(final ImageWriter writer) {
+    final ImageWriteParam param = writer.getDefaultWriteParam();
+    if (FORMAT_JPEG.equals(format)) {
+      param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+      param.setCompressionQuality(DEFAULT_JPEG_QUALITY);
+    }
+    return param;
+  }
+
+  private ImageWriter acquireWriter() throws IOException {
+    final ImageWriter writer = writers.poll();
+    if (writer != null) {
+      return writer;
+    }
+    final Iterator<ImageWriter> iterator = ImageIO.getImageWritersByFormatName(format);
+    if (!iterator.hasNext()) {
+      throw new IOException("No image writer available for format " + format); //$NON-NLS-1$
+    }
+    return iterator.next();
+  }
+
+  private void releaseWriter(final ImageWriter writer) {
+    if (writers.size() < MAX_POOLED_WRITERS) {
+      writers.offer(writer);
+    } else {
+      writer.dispose();
+    }
+  }
+}
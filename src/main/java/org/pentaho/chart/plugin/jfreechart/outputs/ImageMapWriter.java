@@ -0,0 +1,210 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.Shape;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.jfree.chart.entity.ChartEntity;
+import org.jfree.chart.entity.EntityCollection;
+import org.jfree.chart.imagemap.ImageMapUtilities;
+import org.jfree.chart.imagemap.StandardToolTipTagFragmentGenerator;
+import org.jfree.chart.imagemap.StandardURLTagFragmentGenerator;
+import org.jfree.chart.imagemap.ToolTipTagFragmentGenerator;
+import org.jfree.chart.imagemap.URLTagFragmentGenerator;
+import org.jfree.util.StringUtils;
+
+/**
+ * Writes the HTML image map of a chart's entities area by area, instead of building it as one string the way
+ * <code>ImageMapUtilities.getImageMap</code> does. With the default settings the output is identical.
+ * <p/>
+ * Coordinates can be snapped to a coarser grid, in which case repeated polygon points are dropped, and areas that
+ * repeat an area already written can be skipped.
+ */
+public class ImageMapWriter {
+
+  private final ToolTipTagFragmentGenerator toolTipTagFragmentGenerator;
+  private final URLTagFragmentGenerator urlTagFragmentGenerator;
+  private int coordinateGrid = 1;
+  private boolean deduplicateAreas;
+
+  public ImageMapWriter() {
+    this(new StandardToolTipTagFragmentGenerator(), new StandardURLTagFragmentGenerator());
+  }
+
+  public ImageMapWriter(final ToolTipTagFragmentGenerator toolTipTagFragmentGenerator,
+                        final URLTagFragmentGenerator urlTagFragmentGenerator) {
+    if (toolTipTagFragmentGenerator == null || urlTagFragmentGenerator == null) {
+      throw new NullPointerException();
+    }
+    this.toolTipTagFragmentGenerator = toolTipTagFragmentGenerator;
+    this.urlTagFragmentGenerator = urlTagFragmentGenerator;
+  }
+
+  public ToolTipTagFragmentGenerator getToolTipTagFragmentGenerator() {
+    return toolTipTagFragmentGenerator;
+  }
+
+  public URLTagFragmentGenerator getURLTagFragmentGenerator() {
+    return urlTagFragmentGenerator;
+  }
+
+  public int getCoordinateGrid() {
+    return coordinateGrid;
+  }
+
+  /**
+   * @param coordinateGrid the size, in pixels, of the grid the area coordinates are rounded to. The default of 1
+   *                       keeps the coordinates exact.
+   */
+  public void setCoordinateGrid(final int coordinateGrid) {
+    if (coordinateGrid < 1) {
+      throw new IllegalArgumentException();
+    }
+    this.coordinateGrid = coordinateGrid;
+  }
+
+  public boolean isDeduplicateAreas() {
+    return deduplicateAreas;
+  }
+
+  /**
+   * @param deduplicateAreas whether areas with the same shape, tooltip and link as an area already written are
+   *                         skipped. Since areas are written top-most first, a repeated area can never be hit.
+   */
+  public void setDeduplicateAreas(final boolean deduplicateAreas) {
+    this.deduplicateAreas = deduplicateAreas;
+  }
+
+  /**
+   * Writes the image map to the given writer. The writer is neither flushed nor closed.
+   */
+  public void write(final Writer writer, final String mapName, final EntityCollection entities) throws IOException {
+    final String lineSeparator = StringUtils.getLineSeparator();
+    final String escapedName = ImageMapUtilities.htmlEscape(mapName);
+    writer.write("<map id=\""); //$NON-NLS-1$
+    writer.write(escapedName);
+    writer.write("\" name=\""); //$NON-NLS-1$
+    writer.write(escapedName);
+    writer.write("\">"); //$NON-NLS-1$
+    writer.write(lineSeparator);
+
+    if (entities != null) {
+      final Set<String> writtenAreas = deduplicateAreas ? new HashSet<String>() : null;
+      final StringBuilder area = new StringBuilder(128);
+      // Entities added last are drawn on top, and browsers use the first area that matches
+      for (int i = entities.getEntityCount() - 1; i >= 0; i--) {
+        area.setLength(0);
+        appendArea(area, entities.getEntity(i));
+        if (area.length() == 0) {
+          continue;
+        }
+        if (writtenAreas != null && !writtenAreas.add(area.toString())) {
+          continue;
+        }
+        writer.append(area);
+        writer.write(lineSeparator);
+      }
+    }
+    writer.write("</map>"); //$NON-NLS-1$
+  }
+
+  /**
+   * Appends the same area tag as <code>ChartEntity.getImageMapAreaTag</code>, or nothing if the entity has neither a
+   * tooltip nor a link.
+   */
+  private void appendArea(final StringBuilder area, final ChartEntity entity) {
+    final String toolTipText = entity.getToolTipText();
+    final String urlText = entity.getURLText();
+    final boolean hasToolTip = toolTipText != null && toolTipText.length() > 0;
+    final boolean hasURL = urlText != null && urlText.length() > 0;
+    if (!hasToolTip && !hasURL) {
+      return;
+    }
+
+    final Shape shape = entity.getArea();
+    if (shape instanceof Rectangle2D) {
+      // The same arithmetic as ChartEntity.getRectCoords, which truncates the size separately and never writes an
+      // empty rectangle
+      final Rectangle2D r = (Rectangle2D) shape;
+      final int x1 = (int) r.getX();
+      final int y1 = (int) r.getY();
+      int x2 = x1 + (int) r.getWidth();
+      int y2 = y1 + (int) r.getHeight();
+      if (x2 == x1) {
+        x2++;
+      }
+      if (y2 == y1) {
+        y2++;
+      }
+      area.append("<area shape=\"rect\" coords=\""); //$NON-NLS-1$
+      area.append(snap(x1)).append(',');
+      area.append(snap(y1)).append(',');
+      area.append(snap(x2)).append(',');
+      area.append(snap(y2));
+    } else {
+      area.append("<area shape=\"poly\" coords=\""); //$NON-NLS-1$
+      appendPolygonCoordinates(area, shape);
+    }
+    area.append('"');
+
+    if (hasToolTip) {
+      area.append(toolTipTagFragmentGenerator.generateToolTipFragment(toolTipText));
+    }
+    if (hasURL) {
+      area.append(urlTagFragmentGenerator.generateURLFragment(urlText));
+    } else {
+      area.append(" nohref=\"nohref\""); //$NON-NLS-1$
+    }
+    if (!hasToolTip) {
+      area.append(" alt=\"\""); //$NON-NLS-1$
+    }
+    area.append("/>"); //$NON-NLS-1$
+  }
+
+  private void appendPolygonCoordinates(final StringBuilder area, final Shape shape) {
+    final float[] coords = new float[6];
+    boolean first = true;
+    int lastX = 0;
+    int lastY = 0;
+    for (final PathIterator iterator = shape.getPathIterator(null, 1.0); !iterator.isDone(); iterator.next()) {
+      iterator.currentSegment(coords);
+      final int x = snap((int) coords[0]);
+      final int y = snap((int) coords[1]);
+      if (!first && coordinateGrid > 1 && x == lastX && y == lastY) {
+        continue;
+      }
+      if (!first) {
+        area.append(',');
+      }
+      area.append(x).append(',').append(y);
+      first = false;
+      lastX = x;
+      lastY = y;
+    }
+  }
+
+  private int snap(final int coordinate) {
+    if (coordinateGrid == 1) {
+      return coordinate;
+    }
+    return Math.round((float) coordinate / coordinateGrid) * coordinateGrid;
+  }
+}
@@ -13,6 +13,9 @@
 
 package org.pentaho.chart.plugin.jfreechart.outputs;
 
+import java.awt.Graphics2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
@@ -20,10 +23,8 @@ import java.io.Writer;
 import java.io.StringWriter;
 
 import org.jfree.chart.ChartRenderingInfo;
-import org.jfree.chart.ChartUtilities;
 import org.jfree.chart.JFreeChart;
 import org.jfree.chart.entity.StandardEntityCollection;
-import org.jfree.chart.imagemap.ImageMapUtilities;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.api.PersistenceException;
 
@@ -34,16 +35,75 @@ import org.pentaho.chart.plugin.api.PersistenceException;
  */
 public class JFreeChartOutput implements IOutput {
 
+  private static volatile ImageMapWriter defaultImageMapWriter = new ImageMapWriter();
+
   private JFreeChart chart;
   private ChartRenderingInfo info;
+  private boolean entityCollectionEnabled;
+  private int renderedWidth;
+  private int renderedHeight;
+  private ImageMapWriter imageMapWriter;
 
   public JFreeChartOutput(final JFreeChart chart)
+  {
+    this(chart, true);
+  }
+
+  /**
+   * @param entityCollectionEnabled whether the entities (bars, points, slices...) of the chart are collected when it
+   *                                is rendered. Only the image map is built from them, so they can be skipped for
+   *                                charts without links.
+   */
+  public JFreeChartOutput(final JFreeChart chart, final boolean entityCollectionEnabled)
   {
     if (chart == null)
     {
       throw new NullPointerException();
     }
     this.chart = chart;
+    this.entityCollectionEnabled = entityCollectionEnabled;
+    this.imageMapWriter = defaultImageMapWriter;
+  }
+
+  public static ImageMapWriter getDefaultImageMapWriter()
+  {
+    return defaultImageMapWriter;
+  }
+
+  /**
+   * Sets the image map writer used by outputs created from now on.
+   */
+  public static void setDefaultImageMapWriter(final ImageMapWriter imageMapWriter)
+  {
+    if (imageMapWriter == null)
+    {
+      throw new NullPointerException();
+    }
+    defaultImageMapWriter = imageMapWriter;
+  }
+
+  public ImageMapWriter getImageMapWriter()
+  {
+    return imageMapWriter;
+  }
+
+  public void setImageMapWriter(final ImageMapWriter imageMapWriter)
+  {
+    if (imageMapWriter == null)
+    {
+      throw new NullPointerException();
+    }
+    this.imageMapWriter = imageMapWriter;
+  }
+
+  public boolean isEntityCollectionEnabled()
+  {
+    return entityCollectionEnabled;
+  }
+
+  public void setEntityCollectionEnabled(final boolean entityCollectionEnabled)
+  {
+    this.entityCollectionEnabled = entityCollectionEnabled;
   }
 
   //  /* (non-Javadoc)
@@ -73,7 +133,10 @@ public class JFreeChartOutput implements IOutput {
    * @see org.pentaho.chart.plugin.api.IOutput#persistChart(java.io.OutputStream, int)
    */
   public OutputStream persistChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height) throws PersistenceException {
-    info = new ChartRenderingInfo(new StandardEntityCollection());
+    // Without rendering info JFreeChart creates no entities and does no hit-test geometry work
+    info = entityCollectionEnabled ? new ChartRenderingInfo(new StandardEntityCollection()) : null;
+    renderedWidth = width;
+    renderedHeight = height;
     if (outputStream == null) {
       outputStream = new ByteArrayOutputStream();
     }
@@ -84,19 +147,35 @@ public class JFreeChartOutput implements IOutput {
       throw new PersistenceException(e1);
     }
     if (fileType == IOutput.OutputTypes.FILE_TYPE_JPEG) {
-      try {
-        ChartUtilities.writeChartAsJPEG(outputStream, chart, width, height, info);
-      } catch (IOException e) {
-        throw new PersistenceException(e);
-      }
+      writeChart(outputStream, BufferedImage.TYPE_INT_RGB, ChartImageEncoder.getJpegEncoder(), width, height);
     } else if ((fileType == IOutput.OutputTypes.FILE_TYPE_PNG) || (fileType == null)) {
+      writeChart(outputStream, BufferedImage.TYPE_INT_ARGB, ChartImageEncoder.getPngEncoder(), width, height);
+    }
+    return outputStream;
+  }
+
+  /**
+   * Draws the chart into a pooled image, the same way <code>ChartUtilities.writeChartAsPNG</code> and
+   * <code>writeChartAsJPEG</code> do, and encodes it to the given stream.
+   */
+  private void writeChart(final OutputStream outputStream, final int imageType, final ChartImageEncoder encoder,
+                          final int width, final int height) throws PersistenceException {
+    final BufferedImagePool.PooledImage pooledImage =
+        BufferedImagePool.getInstance().acquire(width, height, imageType);
+    try {
+      final BufferedImage image = pooledImage.getImage();
+      final Graphics2D g2 = image.createGraphics();
       try {
-        ChartUtilities.writeChartAsPNG(outputStream, chart, width, height, info);
-      } catch (IOException e) {
-        throw new PersistenceException(e);
+        chart.draw(g2, new Rectangle2D.Double(0, 0, width, height), null, info);
+      } finally {
+        g2.dispose();
       }
+      encoder.encode(image, outputStream);
+    } catch (IOException e) {
+      throw new PersistenceException(e);
+    } finally {
+      pooledImage.release();
     }
-    return outputStream;
   }
 
   /* (non-Javadoc)
@@ -107,9 +186,8 @@ public class JFreeChartOutput implements IOutput {
       outputStream = new StringWriter();
     }
 
-    final String mapString = getMap(mapName);
     try {
-      outputStream.write(mapString);
+      imageMapWriter.write(outputStream, mapName, getRenderingInfo().getEntityCollection());
       outputStream.flush();
     } catch (IOException e) {
       throw new PersistenceException(e);
@@ -121,7 +199,40 @@ public class JFreeChartOutput implements IOutput {
    * @see org.pentaho.chart.plugin.api.IOutput#getMap(java.lang.String)
    */
   public String getMap(String mapName) {
-    return ImageMapUtilities.getImageMap(mapName, info);
+    final StringWriter writer = new StringWriter();
+    try {
+      imageMapWriter.write(writer, mapName, getRenderingInfo().getEntityCollection());
+    } catch (IOException e) {
+      // A StringWriter does not throw
+      throw new IllegalStateException(e);
+    }
+    return writer.toString();
+  }
+
+  /**
+   * Returns the rendering info of the last rendering of the chart. If the chart was rendered without collecting its
+   * entities, it is drawn again, at the same size, to collect them.
+   */
+  private ChartRenderingInfo getRenderingInfo() {
+    if (info == null) {
+      final ChartRenderingInfo renderingInfo = new ChartRenderingInfo(new StandardEntityCollection());
+      if (renderedWidth > 0 && renderedHeight > 0) {
+        final BufferedImagePool.PooledImage pooledImage =
+            BufferedImagePool.getInstance().acquire(renderedWidth, renderedHeight, BufferedImage.TYPE_INT_ARGB);
+        try {
+          final Graphics2D g2 = pooledImage.getImage().createGraphics();
+          try {
+            chart.draw(g2, new Rectangle2D.Double(0, 0, renderedWidth, renderedHeight), null, renderingInfo);
+          } finally {
+            g2.dispose();
+          }
+        } finally {
+          pooledImage.release();
+        }
+      }
+      info = renderingInfo;
+    }
+    return info;
   }
 //
 //  /* (non-Javadoc)
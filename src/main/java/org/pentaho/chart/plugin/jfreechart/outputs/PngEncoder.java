@@ -0,0 +1,413 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Encodes images as 8-bit PNG according to a {@link PngEncodingProfile}.
+ * <p/>
+ * Images with at most 256 distinct colors are written with a palette if the profile allows it, other opaque images as
+ * RGB and the remaining images as RGBA. Fully transparent pixels are all written as transparent black.
+ */
+public class PngEncoder {
+
+  private static final byte[] SIGNATURE = {(byte) 137, 80, 78, 71, 13, 10, 26, 10};
+
+  private static final int COLOR_TYPE_TRUECOLOR = 2;
+  private static final int COLOR_TYPE_INDEXED = 3;
+  private static final int COLOR_TYPE_TRUECOLOR_ALPHA = 6;
+
+  private static final int FILTER_NONE = 0;
+  private static final int FILTER_SUB = 1;
+  private static final int FILTER_UP = 2;
+  private static final int FILTER_AVERAGE = 3;
+  private static final int FILTER_PAETH = 4;
+
+  private static final int MAX_PALETTE_SIZE = 256;
+  private static final int IDAT_CHUNK_SIZE = 32 * 1024;
+  private static final int MAX_POOLED_DEFLATERS = 16;
+
+  private static final ConcurrentLinkedQueue<Deflater> deflaters = new ConcurrentLinkedQueue<Deflater>();
+
+  private PngEncoder() {
+  }
+
+  /**
+   * Writes the image to the given stream. The stream is neither flushed nor closed.
+   */
+  public static void encode(final BufferedImage image, final PngEncodingProfile profile,
+                            final OutputStream outputStream) throws IOException {
+    final int width = image.getWidth();
+    final int height = image.getHeight();
+    final int[] pixels = new int[width];
+
+    // Find out whether the image is opaque and, if a palette may be used, whether its colors fit in one
+    boolean opaque = true;
+    Palette palette = profile.isIndexedPalette() ? new Palette() : null;
+    for (int y = 0; y < height && (opaque || palette != null); y++) {
+      readRow(image, y, pixels);
+      for (int x = 0; x < width; x++) {
+        final int argb = pixels[x];
+        if ((argb >>> 24) != 0xFF) {
+          opaque = false;
+        }
+        if (palette != null && !palette.add(argb)) {
+          palette = null;
+        }
+      }
+    }
+
+    final int colorType;
+    final int bytesPerPixel;
+    if (palette != null) {
+      colorType = COLOR_TYPE_INDEXED;
+      bytesPerPixel = 1;
+    } else if (opaque) {
+      colorType = COLOR_TYPE_TRUECOLOR;
+      bytesPerPixel = 3;
+    } else {
+      colorType = COLOR_TYPE_TRUECOLOR_ALPHA;
+      bytesPerPixel = 4;
+    }
+
+    outputStream.write(SIGNATURE);
+    final ChunkOutputStream header = new ChunkOutputStream(outputStream, "IHDR", 13); //$NON-NLS-1$
+    writeInt(header, width);
+    writeInt(header, height);
+    header.write(8);
+    header.write(colorType);
+    header.write(0);
+    header.write(0);
+    header.write(0);
+    header.finish();
+    if (palette != null) {
+      palette.write(outputStream);
+    }
+
+    final Deflater deflater = acquireDeflater(profile.getCompressionLevel());
+    try {
+      final ChunkOutputStream data = new ChunkOutputStream(outputStream, "IDAT", IDAT_CHUNK_SIZE); //$NON-NLS-1$
+      final DeflaterOutputStream compressed = new DeflaterOutputStream(data, deflater, 8192);
+      final RowEncoder rowEncoder = new RowEncoder(width * bytesPerPixel, bytesPerPixel,
+          (palette != null && profile.getRowFilter() == PngEncodingProfile.RowFilter.ADAPTIVE)
+              ? PngEncodingProfile.RowFilter.NONE : profile.getRowFilter());
+      for (int y = 0; y < height; y++) {
+        readRow(image, y, pixels);
+        final byte[] raw = rowEncoder.getRawRow();
+        int i = 0;
+        for (int x = 0; x < width; x++) {
+          final int argb = pixels[x];
+          if (palette != null) {
+            raw[i++] = (byte) palette.indexOf(argb);
+          } else {
+            raw[i++] = (byte) (argb >> 16);
+            raw[i++] = (byte) (argb >> 8);
+            raw[i++] = (byte) argb;
+            if (!opaque) {
+              raw[i++] = (byte) (argb >>> 24);
+            }
+          }
+        }
+        rowEncoder.writeRow(compressed);
+      }
+      compressed.finish();
+      data.finish();
+    } finally {
+      releaseDeflater(deflater);
+    }
+
+    new ChunkOutputStream(outputStream, "IEND", 0).finish(); //$NON-NLS-1$
+  }
+
+  private static void readRow(final BufferedImage image, final int y, final int[] pixels) {
+    image.getRGB(0, y, pixels.length, 1, pixels, 0, pixels.length);
+    for (int x = 0; x < pixels.length; x++) {
+      if ((pixels[x] >>> 24) == 0) {
+        pixels[x] = 0;
+      }
+    }
+  }
+
+  private static void writeInt(final OutputStream out, final int value) throws IOException {
+    out.write(value >>> 24);
+    out.write(value >>> 16);
+    out.write(value >>> 8);
+    out.write(value);
+  }
+
+  private static Deflater acquireDeflater(final int level) {
+    Deflater deflater = deflaters.poll();
+    if (deflater == null) {
+      deflater = new Deflater(level);
+    } else {
+      deflater.setLevel(level);
+    }
+    return deflater;
+  }
+
+  private static void releaseDeflater(final Deflater deflater) {
+    deflater.reset();
+    if (deflaters.size() < MAX_POOLED_DEFLATERS) {
+      deflaters.offer(deflater);
+    } else {
+      deflater.end();
+    }
+  }
+
+  /**
+   * Filters rows of pixel bytes and writes them with their filter type
+   */
+  private static class RowEncoder {
+    private final int bytesPerPixel;
+    private final PngEncodingProfile.RowFilter rowFilter;
+    private byte[] raw;
+    private byte[] previous;
+    private byte[] filtered;
+    private byte[] candidate;
+
+    RowEncoder(final int rowLength, final int bytesPerPixel, final PngEncodingProfile.RowFilter rowFilter) {
+      this.bytesPerPixel = bytesPerPixel;
+      this.rowFilter = rowFilter;
+      this.raw = new byte[rowLength];
+      this.previous = new byte[rowLength];
+      this.filtered = new byte[rowLength];
+      this.candidate = new byte[rowLength];
+    }
+
+    byte[] getRawRow() {
+      return raw;
+    }
+
+    void writeRow(final OutputStream out) throws IOException {
+      int filterType;
+      switch (rowFilter) {
+        case NONE:
+          filterType = FILTER_NONE;
+          break;
+        case SUB:
+          filterType = FILTER_SUB;
+          break;
+        case UP:
+          filterType = FILTER_UP;
+          break;
+        case AVERAGE:
+          filterType = FILTER_AVERAGE;
+          break;
+        case PAETH:
+          filterType = FILTER_PAETH;
+          break;
+        default:
+          filterType = -1;
+      }
+
+      if (filterType >= 0) {
+        filter(filterType, filtered);
+      } else {
+        long bestSum = Long.MAX_VALUE;
+        for (int type = FILTER_NONE; type <= FILTER_PAETH; type++) {
+          final long sum = filter(type, candidate);
+          if (sum < bestSum) {
+            bestSum = sum;
+            filterType = type;
+            final byte[] swap = filtered;
+            filtered = candidate;
+            candidate = swap;
+          }
+        }
+      }
+
+      out.write(filterType);
+      out.write(filtered, 0, filtered.length);
+
+      final byte[] swap = previous;
+      previous = raw;
+      raw = swap;
+    }
+
+    /**
+     * @return the sum of the absolute values of the filtered bytes
+     */
+    private long filter(final int filterType, final byte[] out) {
+      long sum = 0;
+      for (int i = 0; i < raw.length; i++) {
+        final int left = (i >= bytesPerPixel) ? raw[i - bytesPerPixel] & 0xFF : 0;
+        final int up = previous[i] & 0xFF;
+        final int predictor;
+        switch (filterType) {
+          case FILTER_SUB:
+            predictor = left;
+            break;
+          case FILTER_UP:
+            predictor = up;
+            break;
+          case FILTER_AVERAGE:
+            predictor = (left + up) >>> 1;
+            break;
+          case FILTER_PAETH:
+            predictor = paeth(left, up, (i >= bytesPerPixel) ? previous[i - bytesPerPixel] & 0xFF : 0);
+            break;
+          default:
+            predictor = 0;
+        }
+        final byte value = (byte) (raw[i] - predictor);
+        out[i] = value;
+        sum += Math.abs(value);
+      }
+      return sum;
+    }
+
+    private static int paeth(final int left, final int up, final int upLeft) {
+      final int estimate = left + up - upLeft;
+      final int leftDistance = Math.abs(estimate - left);
+      final int upDistance = Math.abs(estimate - up);
+      final int upLeftDistance = Math.abs(estimate - upLeft);
+      if (leftDistance <= upDistance && leftDistance <= upLeftDistance) {
+        return left;
+      }
+      return (upDistance <= upLeftDistance) ? up : upLeft;
+    }
+  }
+
+  /**
+   * The distinct colors of an image, up to the maximum palette size, in an open addressing hash table
+   */
+  private static class Palette {
+    private static final int TABLE_SIZE = 1024;
+    private final int[] keys = new int[TABLE_SIZE];
+    private final short[] indexes = new short[TABLE_SIZE];
+    private final boolean[] used = new boolean[TABLE_SIZE];
+    private final int[] colors = new int[MAX_PALETTE_SIZE];
+    private int size;
+
+    /**
+     * @return <code>false</code> if the color does not fit in the palette
+     */
+    boolean add(final int argb) {
+      int slot = slotOf(argb);
+      if (used[slot]) {
+        return true;
+      }
+      if (size == MAX_PALETTE_SIZE) {
+        return false;
+      }
+      used[slot] = true;
+      keys[slot] = argb;
+      indexes[slot] = (short) size;
+      colors[size++] = argb;
+      return true;
+    }
+
+    int indexOf(final int argb) {
+      return indexes[slotOf(argb)];
+    }
+
+    private int slotOf(final int argb) {
+      int slot = (argb * 0x9E3779B9) >>> 22;
+      while (used[slot] && keys[slot] != argb) {
+        slot = (slot + 1) & (TABLE_SIZE - 1);
+      }
+      return slot;
+    }
+
+    void write(final OutputStream out) throws IOException {
+      final ChunkOutputStream plte = new ChunkOutputStream(out, "PLTE", size * 3); //$NON-NLS-1$
+      int transparentEntries = 0;
+      for (int i = 0; i < size; i++) {
+        plte.write(colors[i] >> 16);
+        plte.write(colors[i] >> 8);
+        plte.write(colors[i]);
+        if ((colors[i] >>> 24) != 0xFF) {
+          transparentEntries = i + 1;
+        }
+      }
+      plte.finish();
+
+      if (transparentEntries > 0) {
+        final ChunkOutputStream trns = new ChunkOutputStream(out, "tRNS", transparentEntries); //$NON-NLS-1$
+        for (int i = 0; i < transparentEntries; i++) {
+          trns.write(colors[i] >>> 24);
+        }
+        trns.finish();
+      }
+    }
+  }
+
+  /**
+   * Writes the bytes written to it as PNG chunks of a given type, starting a new chunk whenever the current one is full
+   */
+  private static class ChunkOutputStream extends OutputStream {
+    private final OutputStream out;
+    private final byte[] type;
+    private final byte[] buffer;
+    private final CRC32 crc = new CRC32();
+    private int count;
+    private boolean written;
+
+    ChunkOutputStream(final OutputStream out, final String type, final int chunkSize) {
+      this.out = out;
+      this.type = new byte[]{(byte) type.charAt(0), (byte) type.charAt(1), (byte) type.charAt(2),
+          (byte) type.charAt(3)};
+      this.buffer = new byte[chunkSize];
+    }
+
+    public void write(final int b) throws IOException {
+      if (count == buffer.length) {
+        writeChunk();
+      }
+      buffer[count++] = (byte) b;
+    }
+
+    public void write(final byte[] b, int off, int len) throws IOException {
+      while (len > 0) {
+        if (count == buffer.length) {
+          writeChunk();
+        }
+        final int n = Math.min(len, buffer.length - count);
+        System.arraycopy(b, off, buffer, count, n);
+        count += n;
+        off += n;
+        len -= n;
+      }
+    }
+
+    /**
+     * Writes the remaining bytes as a last chunk. A chunk is always written, even if it is empty.
+     */
+    void finish() throws IOException {
+      if (count > 0 || !written) {
+        writeChunk();
+      }
+    }
+
+    private void writeChunk() throws IOException {
+      writeInt(out, count);
+      out.write(type);
+      out.write(buffer, 0, count);
+      crc.reset();
+      crc.update(type);
+      crc.update(buffer, 0, count);
+      writeInt(out, (int) crc.getValue());
+      count = 0;
+      written = true;
+    }
+  }
+}
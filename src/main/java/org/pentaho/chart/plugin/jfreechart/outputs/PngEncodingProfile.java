@@ -0,0 +1,83 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import java.util.zip.Deflater;
+
+/**
+ * Settings for encoding charts as PNG with the {@link PngEncoder}.
+ *
+ * @see ChartImageEncoder#setPngEncodingProfile(PngEncodingProfile)
+ */
+public class PngEncodingProfile {
+
+  /**
+   * The filter applied to each row of pixels before it is compressed. {@link #ADAPTIVE} picks, for each row, the
+   * filter that produces the smallest sum of absolute differences.
+   */
+  public enum RowFilter {
+    NONE, SUB, UP, AVERAGE, PAETH, ADAPTIVE
+  }
+
+  /**
+   * Favors encoding speed over size
+   */
+  public static final PngEncodingProfile FAST = new PngEncodingProfile(Deflater.BEST_SPEED, RowFilter.SUB, true);
+
+  /**
+   * A balance of encoding speed and size
+   */
+  public static final PngEncodingProfile DEFAULT =
+      new PngEncodingProfile(Deflater.DEFAULT_COMPRESSION, RowFilter.ADAPTIVE, true);
+
+  /**
+   * Favors size over encoding speed
+   */
+  public static final PngEncodingProfile SMALL =
+      new PngEncodingProfile(Deflater.BEST_COMPRESSION, RowFilter.ADAPTIVE, true);
+
+  private final int compressionLevel;
+  private final RowFilter rowFilter;
+  private final boolean indexedPalette;
+
+  /**
+   * @param compressionLevel the deflate level, from 0 to 9, or -1 for the default level
+   * @param rowFilter        the filter applied to each row of pixels
+   * @param indexedPalette   whether images with at most 256 colors are encoded with an 8-bit palette
+   */
+  public PngEncodingProfile(final int compressionLevel, final RowFilter rowFilter, final boolean indexedPalette) {
+    if (compressionLevel < Deflater.DEFAULT_COMPRESSION || compressionLevel > Deflater.BEST_COMPRESSION) {
+      throw new IllegalArgumentException();
+    }
+    if (rowFilter == null) {
+      throw new NullPointerException();
+    }
+    this.compressionLevel = compressionLevel;
+    this.rowFilter = rowFilter;
+    this.indexedPalette = indexedPalette;
+  }
+
+  public int getCompressionLevel() {
+    return compressionLevel;
+  }
+
+  public RowFilter getRowFilter() {
+    return rowFilter;
+  }
+
+  public boolean isIndexedPalette() {
+    return indexedPalette;
+  }
+}
@@ -58,6 +58,7 @@ import org.pentaho.chart.data.IChartDataModel;
 import org.pentaho.chart.data.MultiSeriesXYDataModel;
 import org.pentaho.chart.data.NamedValue;
 import org.pentaho.chart.data.NamedValuesDataModel;
+import org.pentaho.chart.data.ValueStatistics;
 import org.pentaho.chart.data.XYDataModel;
 import org.pentaho.chart.data.XYDataPoint;
 import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
@@ -78,6 +79,7 @@ import org.pentaho.chart.model.Axis.LabelOrientation;
 import org.pentaho.chart.model.BarPlot.BarPlotFlavor;
 import org.pentaho.chart.model.Plot.Orientation;
 import org.pentaho.chart.plugin.IChartPlugin;
+import org.pentaho.chart.plugin.NumberScaler;
 import org.pentaho.chart.plugin.api.ChartResult;
 import org.pentaho.chart.plugin.api.IOutput;
 import org.pentaho.chart.plugin.jfreechart.utils.ColorFactory;
@@ -433,67 +435,22 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     return palette;
   }
 
-  private AxisConfiguration getAxisConfiguration( NumericAxis axis, List<Number> axisValues ) {
-
+  private AxisConfiguration getAxisConfiguration( NumericAxis axis, ValueStatistics statistics ) {
     Number minValue = axis.getMinValue();
     Number maxValue = axis.getMaxValue();
 
     boolean calculateMinValue = ( minValue == null );
-    boolean calculateMaxValue = ( maxValue == null );
-
-    boolean hasChartData = false;
-
-    for ( Number value : axisValues ) {
-      if ( calculateMaxValue ) {
-        if ( maxValue == null ) {
-          maxValue = value;
-        } else if ( value != null ) {
-          maxValue = Math.max( maxValue.doubleValue(), value.doubleValue() );
-        }
-      }
 
-      if ( calculateMinValue ) {
-        if ( minValue == null ) {
-          minValue = value;
-        } else if ( value != null ) {
-          minValue = Math.min( minValue.doubleValue(), value.doubleValue() );
-        }
-      }
-
-      hasChartData = hasChartData || ( value != null );
+    if ( statistics.getCount() == 0 ) {
+      return null;
     }
-
-    AxisConfiguration rangeDescription = null;
-
-    if ( hasChartData ) {
-      if ( calculateMinValue ) {
-        minValue = Math.min( 0, minValue.doubleValue() );
-      }
-      minValue = Math.floor( minValue.doubleValue() );
-      maxValue = Math.ceil( maxValue.doubleValue() );
-
-      if ( maxValue.equals( minValue ) ) {
-        maxValue = maxValue.intValue() + 1;
-      }
-
-      Number spread = maxValue.doubleValue() - minValue.doubleValue();
-
-      int exponent = Integer.toString( Math.abs( spread.intValue() ) ).length() - 1;
-
-      int stepSize =
-        (int) ( ( (long) ( spread.intValue() / Math.pow( 10, exponent ) ) ) * Math.pow( 10, exponent - 1 ) ) * 2;
-      if ( stepSize < 1 ) {
-        stepSize = 1;
-      }
-
-      if ( ( maxValue.doubleValue() % stepSize ) != 0 ) {
-        maxValue = ( maxValue.doubleValue() - ( maxValue.doubleValue() % stepSize ) ) + stepSize;
-      }
-
-      rangeDescription = new AxisConfiguration( minValue.intValue(), maxValue.intValue(), stepSize );
+    if ( calculateMinValue ) {
+      minValue = statistics.getMin();
     }
-
-    return rangeDescription;
+    if ( maxValue == null ) {
+      maxValue = statistics.getMax();
+    }
+    return createAxisConfiguration( minValue, maxValue, calculateMinValue );
   }
 
   private AxisConfiguration getAxisConfiguration( TwoAxisPlot twoAxisPlot, MultiSeriesDataModel chartTableModel ) {
@@ -507,7 +464,20 @@ public class OpenFlashChartFactoryEngine implements Serializable {
 
     List<SeriesData> seriesList = chartTableModel.getSeriesData();
 
-    if ( ( twoAxisPlot instanceof BarPlot ) && ( ( (BarPlot) twoAxisPlot ).getFlavor() == BarPlotFlavor.STACKED ) ) {
+    boolean stacked =
+      ( twoAxisPlot instanceof BarPlot ) && ( ( (BarPlot) twoAxisPlot ).getFlavor() == BarPlotFlavor.STACKED );
+    if ( NumberScaler.isIdentity( chartTableModel.getScalingFactor() ) ) {
+      // Unscaled values are read as they are, so the model's statistics describe them exactly
+      hasChartData = chartTableModel.getStatistics().getCount() > 0;
+      if ( hasChartData ) {
+        if ( calculateMinValue ) {
+          minValue = stacked ? chartTableModel.getMinStackTotal() : chartTableModel.getStatistics().getMin();
+        }
+        if ( calculateMaxValue ) {
+          maxValue = stacked ? chartTableModel.getMaxStackTotal() : chartTableModel.getStatistics().getMax();
+        }
+      }
+    } else if ( stacked ) {
       int numCategories = chartTableModel.getDomainData().size();
       Number[][] stackRanges = new Number[ numCategories ][];
       for ( SeriesData series : seriesList ) {
@@ -584,37 +554,38 @@ public class OpenFlashChartFactoryEngine implements Serializable {
       }
     }
 
-    AxisConfiguration rangeDescription = null;
-
-    if ( hasChartData ) {
-      if ( calculateMinValue ) {
-        minValue = Math.min( 0, minValue.doubleValue() );
-      }
-      minValue = Math.floor( minValue.doubleValue() );
-      maxValue = Math.ceil( maxValue.doubleValue() );
+    if ( !hasChartData ) {
+      return null;
+    }
+    return createAxisConfiguration( minValue, maxValue, calculateMinValue );
+  }
 
-      if ( maxValue.equals( minValue ) ) {
-        maxValue = maxValue.intValue() + 1;
-      }
+  private AxisConfiguration createAxisConfiguration( Number minValue, Number maxValue, boolean calculateMinValue ) {
+    if ( calculateMinValue ) {
+      minValue = Math.min( 0, minValue.doubleValue() );
+    }
+    minValue = Math.floor( minValue.doubleValue() );
+    maxValue = Math.ceil( maxValue.doubleValue() );
 
-      Number spread = maxValue.doubleValue() - minValue.doubleValue();
+    if ( maxValue.equals( minValue ) ) {
+      maxValue = maxValue.intValue() + 1;
+    }
 
-      int exponent = Integer.toString( Math.abs( spread.intValue() ) ).length() - 1;
+    Number spread = maxValue.doubleValue() - minValue.doubleValue();
 
-      int stepSize =
-        (int) ( ( (long) ( spread.intValue() / Math.pow( 10, exponent ) ) ) * Math.pow( 10, exponent - 1 ) ) * 2;
-      if ( stepSize < 1 ) {
-        stepSize = 1;
-      }
+    int exponent = Integer.toString( Math.abs( spread.intValue() ) ).length() - 1;
 
-      if ( ( maxValue.doubleValue() % stepSize ) != 0 ) {
-        maxValue = ( maxValue.doubleValue() - ( maxValue.doubleValue() % stepSize ) ) + stepSize;
-      }
+    int stepSize =
+      (int) ( ( (long) ( spread.intValue() / Math.pow( 10, exponent ) ) ) * Math.pow( 10, exponent - 1 ) ) * 2;
+    if ( stepSize < 1 ) {
+      stepSize = 1;
+    }
 
-      rangeDescription = new AxisConfiguration( minValue.intValue(), maxValue.intValue(), stepSize );
+    if ( ( maxValue.doubleValue() % stepSize ) != 0 ) {
+      maxValue = ( maxValue.doubleValue() - ( maxValue.doubleValue() % stepSize ) ) + stepSize;
     }
 
-    return rangeDescription;
+    return new AxisConfiguration( minValue.intValue(), maxValue.intValue(), stepSize );
   }
 
   private StackedBarChart makeStackedBarChart( ChartModel chartModel, MultiSeriesDataModel chartTableModel,
@@ -670,17 +641,10 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     ScatterPlot scatterPlot = (ScatterPlot) chartModel.getPlot();
     Chart chart = null;
 
-    List<Number> axisValues = new ArrayList<Number>();
-    for ( XYDataPoint xyDataPoint : chartTableModel ) {
-      axisValues.add( xyDataPoint.getX() );
-    }
-    AxisConfiguration xAxisConfiguration = getAxisConfiguration( scatterPlot.getXAxis(), axisValues );
-
-    axisValues.clear();
-    for ( XYDataPoint xyDataPoint : chartTableModel ) {
-      axisValues.add( xyDataPoint.getY() );
-    }
-    AxisConfiguration yAxisConfiguration = getAxisConfiguration( scatterPlot.getYAxis(), axisValues );
+    AxisConfiguration xAxisConfiguration =
+      getAxisConfiguration( scatterPlot.getXAxis(), chartTableModel.getDomainStatistics() );
+    AxisConfiguration yAxisConfiguration =
+      getAxisConfiguration( scatterPlot.getYAxis(), chartTableModel.getRangeStatistics() );
 
     if ( ( xAxisConfiguration != null ) && ( yAxisConfiguration != null ) ) {
       chart = createBasicGraphChart( chartModel );
@@ -713,16 +677,10 @@ public class OpenFlashChartFactoryEngine implements Serializable {
     ScatterPlot scatterPlot = (ScatterPlot) chartModel.getPlot();
     Chart chart = null;
 
-    List<Number> xAxisValues = new ArrayList<Number>();
-    List<Number> yAxisValues = new ArrayList<Number>();
-    for ( org.pentaho.chart.data.MultiSeriesXYDataModel.Series series : chartTableModel.getSeries() ) {
-      for ( XYDataPoint xyDataPoint : series ) {
-        xAxisValues.add( xyDataPoint.getX() );
-        yAxisValues.add( xyDataPoint.getY() );
-      }
-    }
-    AxisConfiguration xAxisConfiguration = getAxisConfiguration( scatterPlot.getXAxis(), xAxisValues );
-    AxisConfiguration yAxisConfiguration = getAxisConfiguration( scatterPlot.getXAxis(), yAxisValues );
+    AxisConfiguration xAxisConfiguration =
+      getAxisConfiguration( scatterPlot.getXAxis(), chartTableModel.getDomainStatistics() );
+    AxisConfiguration yAxisConfiguration =
+      getAxisConfiguration( scatterPlot.getXAxis(), chartTableModel.getRangeStatistics() );
 
     if ( ( xAxisConfiguration != null ) && ( yAxisConfiguration != null ) ) {
       chart = createBasicGraphChart( chartModel );
@@ -884,7 +842,7 @@ public class OpenFlashChartFactoryEngine implements Serializable {
         index++;
       }
 
-      List<DomainData> categories = dataModel.getDomainData();
+      List<DomainData> categories = new ArrayList<DomainData>( dataModel.getDomainData() );
       // BISERVER-3075 hack for bug in OFC2 where categories are rendered backwards...
       Collections.reverse( categories );
       chart.setYAxis( createYAxis( barPlot, categories ) );
@@ -1576,35 +1534,6 @@ public class OpenFlashChartFactoryEngine implements Serializable {
   }
 
   protected Number scaleNumber( Number number, Number scale ) {
-    Number scaledNumber = number;
-    if ( ( number != null ) && ( scale != null ) && !scale.equals( 1 ) && !scale.equals( 0 ) ) {
-
-      int startingSignificantDigits = 0;
-      if ( !( number instanceof Integer ) ) {
-        int indexOfDecimalPoint = number.toString().indexOf( "." );
-        if ( indexOfDecimalPoint >= 0 ) {
-          String fractionalPart = number.toString().substring( indexOfDecimalPoint + 1 );
-          if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
-            startingSignificantDigits = fractionalPart.length();
-          }
-        }
-      }
-
-      int preferredSignificantDigits = Math.max( 2, Math.min( startingSignificantDigits, 6 ) );
-
-      scaledNumber = number.doubleValue() / scale.doubleValue();
-      int scaledSignificantDigits = 0;
-      int indexOfDecimalPoint = scaledNumber.toString().indexOf( "." );
-      String fractionalPart = scaledNumber.toString().substring( indexOfDecimalPoint + 1 );
-      if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
-        scaledSignificantDigits = fractionalPart.length();
-      }
-
-      if ( scaledSignificantDigits > preferredSignificantDigits ) {
-        double multiplier = Math.pow( 10, preferredSignificantDigits );
-        scaledNumber = Math.round( scaledNumber.doubleValue() * multiplier ) / multiplier;
-      }
-    }
-    return scaledNumber;
+    return NumberScaler.scaleNumber( number, scale );
   }
 }
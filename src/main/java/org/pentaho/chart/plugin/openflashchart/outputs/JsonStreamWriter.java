@@ -0,0 +1,191 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.openflashchart.outputs;
+
+import java.io.FilterWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Passes JSON text through to another writer, rounding the numbers in it to a maximum number of fractional digits.
+ * Text is written through in runs as it arrives; only the number currently being read is buffered.
+ */
+public class JsonStreamWriter extends FilterWriter {
+
+  /**
+   * Leaves numbers as they are
+   */
+  public static final int FULL_PRECISION = -1;
+
+  private static final int MAX_NUMBER_LENGTH = 64;
+
+  private final int precision;
+  private final char[] number = new char[MAX_NUMBER_LENGTH];
+  private final char[] chunk = new char[4096];
+  private int numberLength;
+  private boolean inString;
+  private boolean escaped;
+  private boolean skippingNumber;
+
+  /**
+   * @param precision the maximum number of fractional digits of numbers, or {@link #FULL_PRECISION}
+   */
+  public JsonStreamWriter(final Writer out, final int precision) {
+    super(out);
+    if (precision < FULL_PRECISION) {
+      throw new IllegalArgumentException();
+    }
+    this.precision = precision;
+  }
+
+  public void write(final int c) throws IOException {
+    write(new char[]{(char) c}, 0, 1);
+  }
+
+  public void write(final String str, int off, int len) throws IOException {
+    if (precision == FULL_PRECISION) {
+      out.write(str, off, len);
+      return;
+    }
+    while (len > 0) {
+      final int n = Math.min(len, chunk.length);
+      str.getChars(off, off + n, chunk, 0);
+      write(chunk, 0, n);
+      off += n;
+      len -= n;
+    }
+  }
+
+  public void write(final char[] cbuf, final int off, final int len) throws IOException {
+    if (precision == FULL_PRECISION) {
+      out.write(cbuf, off, len);
+      return;
+    }
+    final int end = off + len;
+    int runStart = off;
+    for (int i = off; i < end; i++) {
+      final char c = cbuf[i];
+      if (inString) {
+        if (escaped) {
+          escaped = false;
+        } else if (c == '\\') {
+          escaped = true;
+        } else if (c == '"') {
+          inString = false;
+        }
+      } else if (skippingNumber && isNumberPart(c)) {
+        // The rest of a number too long to round, written through as part of the run
+      } else if (numberLength > 0 ? isNumberPart(c) : (c == '-' || (c >= '0' && c <= '9'))) {
+        if (numberLength == 0) {
+          out.write(cbuf, runStart, i - runStart);
+        } else if (numberLength == MAX_NUMBER_LENGTH) {
+          out.write(number, 0, numberLength);
+          numberLength = 0;
+          skippingNumber = true;
+          runStart = i;
+          continue;
+        }
+        number[numberLength++] = c;
+        runStart = i + 1;
+      } else {
+        skippingNumber = false;
+        if (numberLength > 0) {
+          writeNumber();
+          runStart = i;
+        }
+        if (c == '"') {
+          inString = true;
+        }
+      }
+    }
+    if (numberLength == 0) {
+      out.write(cbuf, runStart, end - runStart);
+    }
+  }
+
+  /**
+   * Flushes the text written so far, except for a number that may not be complete yet.
+   */
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  /**
+   * Writes any pending number and flushes, without closing the underlying writer.
+   */
+  public void finish() throws IOException {
+    if (numberLength > 0) {
+      writeNumber();
+    }
+    out.flush();
+  }
+
+  public void close() throws IOException {
+    if (numberLength > 0) {
+      writeNumber();
+    }
+    out.close();
+  }
+
+  private static boolean isNumberPart(final char c) {
+    return (c >= '0' && c <= '9') || c == '.' || c == '-' || c == '+' || c == 'e' || c == 'E';
+  }
+
+  private void writeNumber() throws IOException {
+    final int length = numberLength;
+    numberLength = 0;
+
+    int fractionDigits = 0;
+    boolean inFraction = false;
+    for (int i = 0; i < length; i++) {
+      final char c = number[i];
+      if (c == '.') {
+        inFraction = true;
+      } else if (c == 'e' || c == 'E') {
+        break;
+      } else if (inFraction) {
+        fractionDigits++;
+      }
+    }
+    if (fractionDigits <= precision) {
+      out.write(number, 0, length);
+      return;
+    }
+
+    final BigDecimal value;
+    try {
+      value = new BigDecimal(number, 0, length);
+    } catch (NumberFormatException e) {
+      out.write(number, 0, length);
+      return;
+    }
+    if (value.scale() <= precision) {
+      out.write(number, 0, length);
+      return;
+    }
+    BigDecimal rounded = value.setScale(precision, RoundingMode.HALF_UP);
+    if (rounded.signum() == 0) {
+      rounded = BigDecimal.ZERO;
+    } else if (rounded.scale() > 0) {
+      rounded = rounded.stripTrailingZeros();
+      if (rounded.scale() < 0) {
+        rounded = rounded.setScale(0);
+      }
+    }
+    out.write(rounded.toPlainString());
+  }
+}
@@ -20,6 +20,7 @@ import java.io.OutputStreamWriter;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
 import java.io.Writer;
+import java.util.zip.GZIPOutputStream;
 
 import ofc4j.OFCException;
  import ofc4j.model.Chart;
@@ -36,12 +37,85 @@ import org.pentaho.chart.plugin.api.PersistenceException;
  */
 public class OpenFlashChartOutput implements IOutput {
 
+  private static volatile int defaultNumericPrecision = JsonStreamWriter.FULL_PRECISION;
+  private static volatile boolean defaultGzipEnabled;
+
   private Chart chart;
   private ChartRenderingInfo info;
+  private int numericPrecision;
+  private boolean gzipEnabled;
   private static final String OPEN_FLASHCHART_JSON = "{\"bg_colour\":\"#FFFFFF\",\"inner_bg_colour\":\"#EEEEEE\",\"title\":{\"text\":\"Bar Chart\",\"style\":\"font-family: Arial; font-size: 14px; font-weight: bold; font-style: normal;\"},\"y_legend\":{\"text\":\"Sales\",\"style\":\"font-family: Arial; font-size: 12px; font-weight: normal; font-style: normal;\"},\"x_legend\":{\"text\":\"Years\",\"style\":\"font-family: Arial; font-size: 12px; font-weight: normal; font-style: normal;\"},\"y_axis\":{\"min\":0,\"steps\":204252,\"stroke\":1,\"grid-colour\":\"#aaaaaa\",\"colour\":\"#000000\",\"max\":2246772},\"x_axis\":{\"stroke\":1,\"grid-colour\":\"#aaaaaa\",\"colour\":\"#000000\",\"labels\":{\"labels\":[\"2003\",\"2004\",\"2005\"]},\"offset\":1},\"elements\":[{\"text\":\"Classic Cars\",\"type\":\"bar\",\"values\":[{\"top\":1514407.42},{\"top\":1838274.85},{\"top\":738737.6}],\"colour\":\"#387179\"},{\"text\":\"Vintage Cars\",\"type\":\"bar\",\"values\":[{\"top\":679948.55},{\"top\":997559.65},{\"top\":388718.19}],\"colour\":\"#626638\"},{\"text\":\"Trucks and Buses\",\"type\":\"bar\",\"values\":[{\"top\":420429.93},{\"top\":531975.89},{\"top\":201874.75}],\"colour\":\"#A8979A\"},{\"text\":\"Motorcycles\",\"type\":\"bar\",\"values\":[{\"top\":397219.71},{\"top\":590580.25},{\"top\":286325.23}],\"colour\":\"#B09A6B\"},{\"text\":\"Planes\",\"type\":\"bar\",\"values\":[{\"top\":347755.01},{\"top\":528927.94},{\"top\":200074.17}],\"colour\":\"#772200\"},{\"text\":\"Ships\",\"type\":\"bar\",\"values\":[{\"top\":244821.09},{\"top\":375671.69},{\"top\":128178.07}],\"colour\":\"#C52F0D\"},{\"text\":\"Trains\",\"type\":\"bar\",\"values\":[{\"top\":72802.29},{\"top\":124749.57},{\"top\":36917.33}],\"colour\":\"#123D82\"}]}";
   public OpenFlashChartOutput(Chart chart)
   {
     this.chart = chart;
+    this.numericPrecision = defaultNumericPrecision;
+    this.gzipEnabled = defaultGzipEnabled;
+  }
+
+  public static int getDefaultNumericPrecision()
+  {
+    return defaultNumericPrecision;
+  }
+
+  /**
+   * Sets the numeric precision of outputs created from now on.
+   *
+   * @see #setNumericPrecision(int)
+   */
+  public static void setDefaultNumericPrecision(final int numericPrecision)
+  {
+    if (numericPrecision < JsonStreamWriter.FULL_PRECISION)
+    {
+      throw new IllegalArgumentException();
+    }
+    defaultNumericPrecision = numericPrecision;
+  }
+
+  public static boolean isDefaultGzipEnabled()
+  {
+    return defaultGzipEnabled;
+  }
+
+  /**
+   * Sets whether outputs created from now on gzip their JSON.
+   *
+   * @see #setGzipEnabled(boolean)
+   */
+  public static void setDefaultGzipEnabled(final boolean gzipEnabled)
+  {
+    defaultGzipEnabled = gzipEnabled;
+  }
+
+  public int getNumericPrecision()
+  {
+    return numericPrecision;
+  }
+
+  /**
+   * @param numericPrecision the maximum number of fractional digits of the numbers in the JSON, or
+   *                         {@link JsonStreamWriter#FULL_PRECISION} to keep them as they are
+   */
+  public void setNumericPrecision(final int numericPrecision)
+  {
+    if (numericPrecision < JsonStreamWriter.FULL_PRECISION)
+    {
+      throw new IllegalArgumentException();
+    }
+    this.numericPrecision = numericPrecision;
+  }
+
+  public boolean isGzipEnabled()
+  {
+    return gzipEnabled;
+  }
+
+  /**
+   * @param gzipEnabled whether the JSON is written in gzip format. The caller is responsible for declaring the
+   *                    content encoding, e.g. with a <code>Content-Encoding: gzip</code> header.
+   */
+  public void setGzipEnabled(final boolean gzipEnabled)
+  {
+    this.gzipEnabled = gzipEnabled;
   }
 
   public OutputStream persistChart(OutputStream outputStream, IOutput.OutputTypes fileType, int width, int height) throws PersistenceException {
@@ -54,9 +128,16 @@ public class OpenFlashChartOutput implements IOutput {
       throw new PersistenceException(e1);
     }
     try {
-      OutputStreamWriter outputStreamWriter = new OutputStreamWriter(outputStream, "utf-8"); //$NON-NLS-1$
-      outputStreamWriter.write(chart.toString());
-      outputStreamWriter.flush();
+      // ofc4j can only serialize the chart as a whole; everything after that is written through as it is produced
+      final String json = chart.toString();
+      final GZIPOutputStream gzipOutputStream = gzipEnabled ? new GZIPOutputStream(outputStream, 8192) : null;
+      final JsonStreamWriter jsonWriter = new JsonStreamWriter(new OutputStreamWriter(
+          (gzipOutputStream != null) ? gzipOutputStream : outputStream, "utf-8"), numericPrecision); //$NON-NLS-1$
+      jsonWriter.write(json);
+      jsonWriter.finish();
+      if (gzipOutputStream != null) {
+        gzipOutputStream.finish();
+      }
     } catch (UnsupportedEncodingException e) {
       throw new PersistenceException(e); 
     } catch (OFCException e) {
@@ -15,20 +15,29 @@ package org.pentaho.chart;
 import static org.mockito.Mockito.anyInt;
 import static org.mockito.Mockito.anyString;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import java.text.SimpleDateFormat;
 import java.text.DecimalFormat;
 import java.util.Date;
+import java.util.Iterator;
 
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
+import org.pentaho.chart.data.BasicDataModel;
+import org.pentaho.chart.data.DataModelDownsampler;
 import org.pentaho.chart.data.MultiSeriesDataModel;
 import org.pentaho.chart.data.MultiSeriesXYDataModel;
+import org.pentaho.chart.data.NamedValue;
+import org.pentaho.chart.data.NamedValuesDataModel;
 import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.model.PiePlot;
 import org.pentaho.chart.model.ScatterPlot;
 import org.pentaho.chart.plugin.ChartDataOverflowException;
 import org.pentaho.chart.plugin.NoChartDataException;
@@ -306,4 +315,228 @@ public class ChartBeanFactoryTest {
 
   }
 
+  @Test
+  public void testCreateChartDataModel_Overflow_ReportsRowsRead() throws NoChartDataException {
+    // Two rows per category, one category more than allowed
+    Object[][] rows = new Object[ ( ChartBeanFactory.getMaxDataPointsPerChart() + 1 ) * 2 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ] = new Object[] { "domain" + ( i / 2 ), "series", RANGE };
+    }
+
+    try {
+      ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO, RANGE_COLUMN_INDEX,
+        SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      fail( "Too many categories should overflow" );
+    } catch ( ChartDataOverflowException e ) {
+      assertEquals( ChartBeanFactory.getMaxDataPointsPerChart() + 1, e.getNumberOfDataPoints() );
+      assertEquals( ChartBeanFactory.getMaxDataPointsPerChart() * 2 + 1, e.getRowsRead() );
+    }
+  }
+
+  @Test
+  public void testDownsampleChartDataModel_LinePlotWithoutSeries() throws ChartDataOverflowException {
+    // A line chart without a series column reads its rows into a NamedValuesDataModel
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    for ( int i = 0; i < ChartBeanFactory.getMaxDataPointsPerChart() * 50; i++ ) {
+      model.add( new NamedValue( "domain" + i, i % 10 ) );
+    }
+
+    NamedValuesDataModel downsampled =
+      (NamedValuesDataModel) ChartBeanFactory.downsampleChartDataModel( model, 0, DataModelDownsampler.Method.LTTB );
+    assertEquals( ChartBeanFactory.getMaxDataPointsPerChart(), downsampled.size() );
+    assertEquals( "domain0", downsampled.iterator().next().getName() );
+  }
+
+  @Test
+  public void testDownsampleChartDataModel_RejectsOversizedModelsItCannotReduce() {
+    BasicDataModel model = new BasicDataModel( false );
+    for ( int i = 0; i <= ChartBeanFactory.getMaxDataPointsPerChart(); i++ ) {
+      model.addDataPoint( i );
+    }
+
+    try {
+      ChartBeanFactory.downsampleChartDataModel( model, 0, DataModelDownsampler.Method.LTTB );
+      fail( "A model that cannot be downsampled should still be limited" );
+    } catch ( ChartDataOverflowException e ) {
+      assertEquals( ChartBeanFactory.getMaxDataPointsPerChart() + 1, e.getNumberOfDataPoints() );
+    }
+  }
+
+  @Test
+  public void testCreateChartDataModel_RowIterator_StopsReadingOnOverflow() throws NoChartDataException {
+    chartModel.setPlot( new PiePlot() );
+
+    Iterator<Object[]> rows = new Iterator<Object[]>() {
+      int rowCount = 0;
+
+      public boolean hasNext() {
+        return true;
+      }
+
+      public Object[] next() {
+        rowCount++;
+        return new Object[] { "domain" + rowCount, "series" + rowCount, RANGE };
+      }
+
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+    };
+
+    try {
+      ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO, RANGE_COLUMN_INDEX,
+        SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      fail( "Reading an unbounded row iterator should overflow" );
+    } catch ( ChartDataOverflowException e ) {
+      assertEquals( ChartBeanFactory.getMaxDataPointsPerChart() + 1, e.getNumberOfDataPoints() );
+      assertEquals( ChartBeanFactory.getMaxDataPointsPerChart() + 1, e.getRowsRead() );
+    }
+  }
+
+  @Test
+  public void testCreateChartDataModel_ReadsColumnMetaDataOnce() throws ChartDataOverflowException,
+    NoChartDataException {
+
+    Date otherDate = new Date( 86400000L * 400 );
+    queryResults = new Object[][] {
+      { "domain", sampleDate, RANGE }, { "other", sampleDate, RANGE }, { "domain", otherDate, RANGE } };
+
+    MultiSeriesDataModel model =
+      (MultiSeriesDataModel) ChartBeanFactory
+        .createChartDataModel( queryResults, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, metadata );
+
+    // A mask and a data type for each of the domain and series columns
+    verify( metadata, times( 4 ) ).getAttribute( anyInt(), anyInt(), anyString() );
+    assertEquals( 2, model.getSeriesData().size() );
+    assertEquals( expectedDate, model.getSeriesData().get( 0 ).getSeriesFormattedName() );
+    assertEquals( format.format( otherDate ), model.getSeriesData().get( 1 ).getSeriesFormattedName() );
+  }
+
+  @Test
+  public void testCreateChartDataModel_Parallel_MatchesSequential() throws ChartDataOverflowException,
+    NoChartDataException {
+    Object[][] rows = createLargeQueryResults();
+    int maxDataPoints = ChartBeanFactory.getMaxDataPointsPerChart();
+    ChartBeanFactory.setMaxDataPointsPerChart( 10000 );
+    try {
+      MultiSeriesDataModel sequentialModel =
+        (MultiSeriesDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      ChartBeanFactory.setParallelBuildThreshold( 1 );
+      MultiSeriesDataModel parallelModel =
+        (MultiSeriesDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+
+      assertEquals( sequentialModel.getCategoryCount(), parallelModel.getCategoryCount() );
+      assertEquals( sequentialModel.getSeriesCount(), parallelModel.getSeriesCount() );
+      for ( int categoryIdx = 0; categoryIdx < sequentialModel.getCategoryCount(); categoryIdx++ ) {
+        assertEquals( sequentialModel.getCategoryName( categoryIdx ), parallelModel.getCategoryName( categoryIdx ) );
+      }
+      for ( int seriesIdx = 0; seriesIdx < sequentialModel.getSeriesCount(); seriesIdx++ ) {
+        assertEquals( sequentialModel.getSeriesName( seriesIdx ), parallelModel.getSeriesName( seriesIdx ) );
+        for ( int categoryIdx = 0; categoryIdx < sequentialModel.getCategoryCount(); categoryIdx++ ) {
+          assertEquals( sequentialModel.getValue( seriesIdx, categoryIdx ),
+            parallelModel.getValue( seriesIdx, categoryIdx ) );
+        }
+      }
+    } finally {
+      ChartBeanFactory.setParallelBuildThreshold( 0 );
+      ChartBeanFactory.setMaxDataPointsPerChart( maxDataPoints );
+    }
+  }
+
+  @Test
+  public void testCreateChartDataModel_Parallel_PiePlot_MatchesSequential() throws ChartDataOverflowException,
+    NoChartDataException {
+    chartModel.setPlot( new PiePlot() );
+    Object[][] rows = createLargeQueryResults();
+    try {
+      NamedValuesDataModel sequentialModel =
+        (NamedValuesDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      ChartBeanFactory.setParallelBuildThreshold( 1 );
+      NamedValuesDataModel parallelModel =
+        (NamedValuesDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+
+      assertEquals( sequentialModel.size(), parallelModel.size() );
+      Iterator<NamedValue> parallelValues = parallelModel.iterator();
+      for ( NamedValue sequentialValue : sequentialModel ) {
+        NamedValue parallelValue = parallelValues.next();
+        assertEquals( sequentialValue.getName(), parallelValue.getName() );
+        assertEquals( sequentialValue.getValue(), parallelValue.getValue() );
+      }
+    } finally {
+      ChartBeanFactory.setParallelBuildThreshold( 0 );
+    }
+  }
+
+  @Test
+  public void testCreateChartDataModel_Parallel_ScatterPlot_MatchesSequential() throws ChartDataOverflowException,
+    NoChartDataException {
+    chartModel.setPlot( new ScatterPlot() );
+    Object[][] rows = createLargeQueryResults();
+    for ( int i = 0; i < rows.length; i++ ) {
+      rows[ i ][ DOMAIN_COLUMN_INDEX ] = ( i % 97 ) - 40.5;
+    }
+    int maxDataPoints = ChartBeanFactory.getMaxDataPointsPerChart();
+    ChartBeanFactory.setMaxDataPointsPerChart( rows.length );
+    try {
+      MultiSeriesXYDataModel sequentialModel =
+        (MultiSeriesXYDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      ChartBeanFactory.setParallelBuildThreshold( 1 );
+      MultiSeriesXYDataModel parallelModel =
+        (MultiSeriesXYDataModel) ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO,
+          RANGE_COLUMN_INDEX, SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+
+      assertEquals( sequentialModel.getDataPointCount(), parallelModel.getDataPointCount() );
+      assertEquals( sequentialModel.getSeriesCount(), parallelModel.getSeriesCount() );
+      for ( int seriesIdx = 0; seriesIdx < sequentialModel.getSeriesCount(); seriesIdx++ ) {
+        MultiSeriesXYDataModel.Series sequentialSeries = sequentialModel.getSeries().get( seriesIdx );
+        MultiSeriesXYDataModel.Series parallelSeries = parallelModel.getSeries().get( seriesIdx );
+        assertEquals( sequentialSeries.getSeriesNameInstance(), parallelSeries.getSeriesNameInstance() );
+        assertEquals( sequentialSeries.size(), parallelSeries.size() );
+      }
+      assertEquals( sequentialModel.getDomainStatistics().getCount(), parallelModel.getDomainStatistics().getCount() );
+      assertEquals( sequentialModel.getDomainStatistics().getMin(), parallelModel.getDomainStatistics().getMin(), 0 );
+      assertEquals( sequentialModel.getDomainStatistics().getMax(), parallelModel.getDomainStatistics().getMax(), 0 );
+      assertEquals( sequentialModel.getRangeStatistics().getCount(), parallelModel.getRangeStatistics().getCount() );
+      assertEquals( sequentialModel.getRangeStatistics().getSum(), parallelModel.getRangeStatistics().getSum(), 0 );
+      assertEquals( sequentialModel.getRangeStatistics().getMax(), parallelModel.getRangeStatistics().getMax(), 0 );
+    } finally {
+      ChartBeanFactory.setParallelBuildThreshold( 0 );
+      ChartBeanFactory.setMaxDataPointsPerChart( maxDataPoints );
+    }
+  }
+
+  @Test
+  public void testCreateChartDataModel_Parallel_Overflow_ReportsRowsRead() throws NoChartDataException {
+    Object[][] rows = createLargeQueryResults();
+    ChartBeanFactory.setParallelBuildThreshold( 1 );
+    try {
+      ChartBeanFactory.createChartDataModel( rows, SCALING_FACTOR, CONVERTS_NULL_TO_ZERO, RANGE_COLUMN_INDEX,
+        SERIES_COLUMN_INDEX, DOMAIN_COLUMN_INDEX, chartModel, null );
+      fail( "Too many data points should overflow" );
+    } catch ( ChartDataOverflowException e ) {
+      // Nine categories of 11 series fit, the first row of the tenth category overflows
+      assertEquals( 10 * 11, e.getNumberOfDataPoints() );
+      assertEquals( 9 * 200 + 1, e.getRowsRead() );
+    } finally {
+      ChartBeanFactory.setParallelBuildThreshold( 0 );
+    }
+  }
+
+  /**
+   * @return rows of categories that each span 200 rows and series that first appear in different runs of rows.
+   */
+  private Object[][] createLargeQueryResults() {
+    Object[][] rows = new Object[ 50000 ][];
+    for ( int i = 0; i < rows.length; i++ ) {
+      String series = ( ( i > 40000 ) && ( i % 5 == 0 ) ) ? "late" : "series" + ( i * 31 % 11 );
+      rows[ i ] = new Object[] { "d" + ( i / 200 ), series, i };
+    }
+    return rows;
+  }
 }
@@ -0,0 +1,73 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.junit.Test;
+
+public class ChartOutputBufferTest {
+
+  @Test
+  public void testInputStreamReadsBufferContents() throws IOException {
+    ChartOutputBuffer buffer = ChartOutputBuffer.acquire();
+    buffer.write( new byte[] { 1, 2, 3 } );
+    InputStream in = buffer.toInputStream();
+    byte[] read = new byte[ 3 ];
+    assertEquals( 3, in.read( read, 0, 3 ) );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, read );
+    assertEquals( -1, in.read() );
+    in.close();
+  }
+
+  @Test
+  public void testClosingInputStreamReturnsBufferToPool() throws IOException {
+    ChartOutputBuffer buffer = ChartOutputBuffer.acquire();
+    buffer.write( 42 );
+    InputStream in = buffer.toInputStream();
+    in.close();
+    assertEquals( -1, in.read() );
+    in.close();
+
+    ChartOutputBuffer reused = ChartOutputBuffer.acquire();
+    assertSame( buffer, reused );
+    assertEquals( 0, reused.size() );
+    reused.release();
+  }
+
+  @Test
+  public void testClosedInputStreamReadsAsEmpty() throws IOException {
+    ChartOutputBuffer buffer = ChartOutputBuffer.acquire();
+    buffer.write( new byte[] { 1, 2, 3 } );
+    InputStream in = buffer.toInputStream();
+    assertEquals( 1, in.read() );
+    in.mark( 0 );
+    in.close();
+
+    assertEquals( 0, in.available() );
+    assertEquals( 0, in.skip( 1 ) );
+    assertEquals( -1, in.read( new byte[ 3 ], 0, 3 ) );
+    in.reset();
+    assertArrayEquals( new byte[ 0 ], in.readAllBytes() );
+    assertArrayEquals( new byte[ 0 ], in.readNBytes( 3 ) );
+    assertEquals( 0, in.readNBytes( new byte[ 3 ], 0, 3 ) );
+    assertEquals( 0, in.transferTo( new ByteArrayOutputStream() ) );
+  }
+}
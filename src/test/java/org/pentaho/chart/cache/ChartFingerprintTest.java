@@ -0,0 +1,103 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.jfree.chart.imagemap.StandardURLTagFragmentGenerator;
+import org.jfree.chart.imagemap.ToolTipTagFragmentGenerator;
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.chart.data.BasicDataModel;
+import org.pentaho.chart.model.ChartModel;
+import org.pentaho.chart.plugin.api.IOutput.OutputTypes;
+import org.pentaho.chart.plugin.jfreechart.outputs.ChartImageEncoder;
+import org.pentaho.chart.plugin.jfreechart.outputs.ImageMapWriter;
+import org.pentaho.chart.plugin.jfreechart.outputs.JFreeChartOutput;
+import org.pentaho.chart.plugin.jfreechart.outputs.PngEncodingProfile;
+import org.pentaho.chart.plugin.openflashchart.outputs.OpenFlashChartOutput;
+
+public class ChartFingerprintTest {
+
+  private final PngEncodingProfile pngEncodingProfile = ChartImageEncoder.getPngEncodingProfile();
+  private final ImageMapWriter imageMapWriter = JFreeChartOutput.getDefaultImageMapWriter();
+  private final int numericPrecision = OpenFlashChartOutput.getDefaultNumericPrecision();
+  private final boolean gzipEnabled = OpenFlashChartOutput.isDefaultGzipEnabled();
+
+  @After
+  public void tearDown() {
+    ChartImageEncoder.setPngEncodingProfile( pngEncodingProfile );
+    JFreeChartOutput.setDefaultImageMapWriter( imageMapWriter );
+    OpenFlashChartOutput.setDefaultNumericPrecision( numericPrecision );
+    OpenFlashChartOutput.setDefaultGzipEnabled( gzipEnabled );
+  }
+
+  private static String compute( String mapName ) {
+    BasicDataModel dataModel = new BasicDataModel();
+    dataModel.addDataPoint( 8 );
+    return ChartFingerprint.compute( new ChartModel(), dataModel, OutputTypes.FILE_TYPE_PNG, 400, 300, mapName );
+  }
+
+  @Test
+  public void testPngEncodingProfileChangesTheKey() {
+    String key = compute( null );
+    assertNotNull( key );
+    assertEquals( key, compute( null ) );
+
+    ChartImageEncoder.setPngEncodingProfile( PngEncodingProfile.FAST );
+    String fast = compute( null );
+    assertFalse( key.equals( fast ) );
+    ChartImageEncoder.setPngEncodingProfile( PngEncodingProfile.SMALL );
+    assertFalse( fast.equals( compute( null ) ) );
+  }
+
+  @Test
+  public void testImageMapWriterChangesTheMapKey() {
+    String withMap = compute( "map" );
+    String withoutMap = compute( null );
+
+    ImageMapWriter coarse = new ImageMapWriter();
+    coarse.setCoordinateGrid( 4 );
+    JFreeChartOutput.setDefaultImageMapWriter( coarse );
+    assertFalse( withMap.equals( compute( "map" ) ) );
+    // The image map writer only matters when a map is requested
+    assertEquals( withoutMap, compute( null ) );
+  }
+
+  @Test
+  public void testCustomImageMapFragmentsAreNotCached() {
+    JFreeChartOutput.setDefaultImageMapWriter( new ImageMapWriter( new ToolTipTagFragmentGenerator() {
+      public String generateToolTipFragment( String toolTipText ) {
+        return " data-tip=\"" + toolTipText + "\"";
+      }
+    }, new StandardURLTagFragmentGenerator() ) );
+    assertNull( compute( "map" ) );
+    assertNotNull( compute( null ) );
+  }
+
+  @Test
+  public void testOpenFlashChartDefaultsChangeTheKey() {
+    String key = compute( null );
+
+    OpenFlashChartOutput.setDefaultNumericPrecision( 2 );
+    String rounded = compute( null );
+    assertFalse( key.equals( rounded ) );
+
+    OpenFlashChartOutput.setDefaultGzipEnabled( !gzipEnabled );
+    assertFalse( rounded.equals( compute( null ) ) );
+  }
+}
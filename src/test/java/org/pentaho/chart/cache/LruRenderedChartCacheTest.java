@@ -0,0 +1,72 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.cache;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class LruRenderedChartCacheTest {
+
+  private static RenderedChart chart( int size ) {
+    return new RenderedChart( new byte[ size ], null );
+  }
+
+  @Test
+  public void testGetCountsHitsAndMisses() {
+    LruRenderedChartCache cache = new LruRenderedChartCache( 1000 );
+    RenderedChart a = chart( 10 );
+    cache.put( "a", a );
+    assertSame( a, cache.get( "a" ) );
+    assertNull( cache.get( "b" ) );
+    assertEquals( 1, cache.getHitCount() );
+    assertEquals( 1, cache.getMissCount() );
+    assertEquals( 0, cache.getEvictionCount() );
+  }
+
+  @Test
+  public void testEvictsLeastRecentlyUsedWhenFull() {
+    // Each entry takes 100 bytes of content plus 2 bytes for its key.
+    LruRenderedChartCache cache = new LruRenderedChartCache( 306 );
+    cache.put( "a", chart( 100 ) );
+    cache.put( "b", chart( 100 ) );
+    cache.put( "c", chart( 100 ) );
+    cache.get( "a" );
+    cache.put( "d", chart( 100 ) );
+
+    assertEquals( 3, cache.getEntryCount() );
+    assertEquals( 1, cache.getEvictionCount() );
+    assertNull( cache.get( "b" ) );
+    assertEquals( 306, cache.getCurrentBytes() );
+  }
+
+  @Test
+  public void testReplacingAnEntryReleasesItsBytes() {
+    LruRenderedChartCache cache = new LruRenderedChartCache( 1000 );
+    cache.put( "a", chart( 100 ) );
+    cache.put( "a", new RenderedChart( new byte[ 50 ], "<map/>" ) );
+    assertEquals( 1, cache.getEntryCount() );
+    assertEquals( 2 + 50 + 12, cache.getCurrentBytes() );
+  }
+
+  @Test
+  public void testDoesNotCacheChartsLargerThanTheCache() {
+    LruRenderedChartCache cache = new LruRenderedChartCache( 50 );
+    cache.put( "a", chart( 100 ) );
+    assertEquals( 0, cache.getEntryCount() );
+    assertEquals( 0, cache.getCurrentBytes() );
+  }
+}
@@ -0,0 +1,39 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.cache;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class RenderedChartTest {
+
+  @Test
+  public void testContentCannotBeChangedThroughTheChart() throws IOException {
+    RenderedChart renderedChart = new RenderedChart( new byte[] { 1, 2, 3 }, null );
+
+    byte[] content = renderedChart.getContent();
+    content[ 0 ] = 9;
+    assertArrayEquals( new byte[] { 1, 2, 3 }, renderedChart.getContent() );
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    renderedChart.writeTo( outputStream );
+    assertArrayEquals( new byte[] { 1, 2, 3 }, outputStream.toByteArray() );
+    assertEquals( 1, renderedChart.getInputStream().read() );
+  }
+}
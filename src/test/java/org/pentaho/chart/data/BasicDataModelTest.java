@@ -0,0 +1,55 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class BasicDataModelTest {
+
+  @Test
+  public void testStatisticsFollowAddsRemovalsAndChanges() {
+    BasicDataModel model = new BasicDataModel( false );
+    model.addDataPoint( 3 );
+    model.addDataPoint( null );
+    model.addDataPoint( -1 );
+    ValueStatistics statistics = model.getStatistics();
+    assertEquals( 2, statistics.getCount() );
+    assertEquals( 2, statistics.getSum(), 0 );
+
+    model.addDataPoint( 7 );
+    assertSame( statistics, model.getStatistics() );
+    assertEquals( 7, statistics.getMax(), 0 );
+
+    model.getData().set( 0, 30 );
+    assertEquals( 30, model.getStatistics().getMax(), 0 );
+
+    model.getData().remove( 0 );
+    assertEquals( 6, model.getStatistics().getSum(), 0 );
+  }
+
+  @Test
+  public void testStatisticsOfSummedValues() {
+    BasicDataModel model = new BasicDataModel();
+    assertEquals( 0, model.getStatistics().getCount() );
+
+    model.addDataPoint( 3 );
+    model.addDataPoint( 4 );
+    ValueStatistics statistics = model.getStatistics();
+    assertEquals( 1, statistics.getCount() );
+    assertEquals( 7, statistics.getSum(), 0 );
+  }
+}
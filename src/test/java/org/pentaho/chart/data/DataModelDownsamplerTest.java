@@ -0,0 +1,76 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.pentaho.chart.data.DataModelDownsampler.Method;
+
+public class DataModelDownsamplerTest {
+
+  private static final int CATEGORY_COUNT = 1000;
+
+  private static final int PEAK_CATEGORY = 637;
+
+  private MultiSeriesDataModel createLineData() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    for ( int i = 0; i < CATEGORY_COUNT; i++ ) {
+      model.addValue( "category" + i, "sine", Math.sin( i / 50.0 ) );
+      model.addValue( "category" + i, "spike", i == PEAK_CATEGORY ? 100 : 1 );
+    }
+    model.setScalingFactor( 10 );
+    return model;
+  }
+
+  @Test
+  public void testLargestTriangleThreeBuckets() {
+    MultiSeriesDataModel downsampled = DataModelDownsampler.downsample( createLineData(), 100, Method.LTTB );
+
+    assertEquals( 100, downsampled.getCategoryCount() );
+    assertEquals( 2, downsampled.getSeriesCount() );
+    assertEquals( "category0", downsampled.getCategoryName( 0 ).getKey() );
+    assertEquals( "category" + ( CATEGORY_COUNT - 1 ), downsampled.getCategoryName( 99 ).getKey() );
+    assertTrue( downsampled.getCategoryIndex( "category" + PEAK_CATEGORY ) >= 0 );
+    assertEquals( 10, downsampled.getScalingFactor() );
+  }
+
+  @Test
+  public void testMinMax() {
+    MultiSeriesDataModel downsampled = DataModelDownsampler.downsample( createLineData(), 100, Method.MIN_MAX );
+
+    assertTrue( downsampled.getCategoryCount() <= 100 );
+    assertEquals( "category0", downsampled.getCategoryName( 0 ).getKey() );
+    int peakIdx = downsampled.getCategoryIndex( "category" + PEAK_CATEGORY );
+    assertTrue( peakIdx >= 0 );
+    assertEquals( 100, downsampled.getValue( downsampled.getSeriesIndex( "spike" ), peakIdx ) );
+  }
+
+  @Test
+  public void testScatterDataIsSortedAndReduced() {
+    XYDataModel model = new XYDataModel();
+    for ( int i = CATEGORY_COUNT; i > 0; i-- ) {
+      model.add( new XYDataPoint( i, i % 7 ) );
+    }
+
+    XYDataModel downsampled = DataModelDownsampler.downsample( model, 50, Method.LTTB );
+    assertEquals( 50, downsampled.size() );
+    for ( int i = 1; i < downsampled.size(); i++ ) {
+      assertTrue( downsampled.get( i - 1 ).getX().doubleValue() < downsampled.get( i ).getX().doubleValue() );
+    }
+
+    assertSame( model, DataModelDownsampler.downsample( model, CATEGORY_COUNT, Method.LTTB ) );
+  }
+}
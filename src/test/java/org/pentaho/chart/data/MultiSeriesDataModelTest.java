@@ -0,0 +1,279 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.pentaho.chart.data.MultiSeriesDataModel.DomainData;
+import org.pentaho.chart.data.MultiSeriesDataModel.SeriesData;
+
+public class MultiSeriesDataModelTest {
+
+  @Test
+  public void testAddValueFillsMissingCellsWithNull() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 1 );
+    model.addValue( "2009", "West", 2 );
+
+    assertEquals( 2, model.getCategoryCount() );
+    assertEquals( 2, model.getSeriesCount() );
+
+    List<DomainData> domainData = model.getDomainData();
+    assertEquals( 2, domainData.size() );
+    assertEquals( "2008", domainData.get( 0 ).getDomainName() );
+    assertEquals( Arrays.asList( "East", "West" ), domainData.get( 0 ).getSeries() );
+    assertEquals( 1, domainData.get( 0 ).getNamedValue( "East" ).getValue() );
+    assertNull( domainData.get( 0 ).getNamedValue( "West" ).getValue() );
+    assertNull( domainData.get( 1 ).getNamedValue( "East" ).getValue() );
+    assertEquals( 2, domainData.get( 1 ).getNamedValue( "West" ).getValue() );
+  }
+
+  @Test
+  public void testAddValueSumsDuplicateCells() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", null );
+    model.addValue( "2008", "East", 1 );
+    model.addValue( "2008", "East", null );
+    assertEquals( 1, model.getValue( 0, 0 ) );
+
+    model.addValue( "2008", "East", 2 );
+    assertEquals( 3.0, model.getValue( 0, 0 ) );
+  }
+
+  @Test
+  public void testAddValueAtUsesInternedIndexes() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    int category = model.addCategory( "2008", "FY 2008" );
+    int series = model.addSeries( "East", "East region" );
+    assertEquals( category, model.addCategory( "2008", "ignored" ) );
+    assertEquals( 1, model.addSeries( "West", null ) );
+
+    model.addValueAt( series, category, 1 );
+    model.addValueAt( series, category, 2 );
+    assertEquals( 3.0, model.getValue( series, category ) );
+    assertNull( model.getValue( 1, category ) );
+    assertEquals( "FY 2008", model.getCategoryName( category ).getFormatted() );
+    assertEquals( "East region", model.getSeriesName( series ).getFormatted() );
+
+    try {
+      model.addValueAt( 2, category, 1 );
+      fail( "Unknown series should be rejected" );
+    } catch ( IndexOutOfBoundsException e ) {
+      // correct
+    }
+  }
+
+  @Test
+  public void testSingleValuesAreReadBackUnchanged() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    Number[] cellValues = { 1.1f, new BigDecimal( "12.345" ), ( 1L << 53 ) + 1, 7L, (short) 3, 2.5, 4 };
+    for ( int categoryIdx = 0; categoryIdx < cellValues.length; categoryIdx++ ) {
+      model.addValue( "c" + categoryIdx, "East", cellValues[ categoryIdx ] );
+    }
+    for ( int categoryIdx = 0; categoryIdx < cellValues.length; categoryIdx++ ) {
+      assertEquals( cellValues[ categoryIdx ], model.getValue( 0, categoryIdx ) );
+    }
+
+    model.addValue( "c0", "East", 1 );
+    assertEquals( 1.1f + 1.0, model.getValue( 0, 0 ) );
+
+    MultiSeriesDataModel maxModel = new MultiSeriesDataModel();
+    maxModel.setAggregate( Aggregate.MAX );
+    maxModel.addValue( "2008", "East", 1.1f );
+    maxModel.addValue( "2008", "East", new BigDecimal( "1.25" ) );
+    maxModel.addValue( "2008", "East", 1 );
+    assertEquals( new BigDecimal( "1.25" ), maxModel.getValue( 0, 0 ) );
+  }
+
+  @Test
+  public void testAggregates() {
+    Number[] cellValues = { 4, null, 1.5, 7 };
+    Object[][] expected = {
+      { Aggregate.SUM, 12.5 }, { Aggregate.COUNT, 3 }, { Aggregate.MIN, 1.5 }, { Aggregate.MAX, 7 },
+      { Aggregate.AVG, 12.5 / 3 } };
+    for ( Object[] aggregateAndValue : expected ) {
+      MultiSeriesDataModel model = new MultiSeriesDataModel();
+      model.setAggregate( (Aggregate) aggregateAndValue[ 0 ] );
+      ValueAccumulator accumulator = new ValueAccumulator( (Aggregate) aggregateAndValue[ 0 ] );
+      for ( Number value : cellValues ) {
+        model.addValue( "2008", "East", value );
+        accumulator.add( value );
+      }
+      model.addValue( "2009", "East", 5 );
+      assertEquals( aggregateAndValue[ 1 ], model.getValue( 0, 0 ) );
+      assertEquals( aggregateAndValue[ 1 ], accumulator.getValue() );
+      assertEquals( aggregateAndValue[ 0 ] == Aggregate.COUNT ? 1 : 5, model.getValue( 0, 1 ) );
+    }
+  }
+
+  @Test
+  public void testStatistics() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 4 );
+    model.addValue( "2008", "West", -3 );
+    model.addValue( "2008", "North", 2.5 );
+    model.addValue( "2009", "East", -1 );
+    model.addValue( "2009", "West", 7 );
+
+    assertEquals( 5, model.getStatistics().getCount() );
+    assertEquals( -3, model.getStatistics().getMin(), 0 );
+    assertEquals( 7, model.getStatistics().getMax(), 0 );
+    assertEquals( 9.5, model.getStatistics().getSum(), 0 );
+    assertEquals( 3, model.getSeriesStatistics( 0 ).getSum(), 0 );
+    assertEquals( 1, model.getSeriesStatistics( 2 ).getCount() );
+    assertEquals( 6.5, model.getCategoryStatistics( 0 ).getPositiveTotal(), 0 );
+    assertEquals( -3, model.getCategoryStatistics( 0 ).getNegativeTotal(), 0 );
+    assertEquals( -3, model.getMinStackTotal(), 0 );
+    assertEquals( 7, model.getMaxStackTotal(), 0 );
+
+    // An aggregated cell can decrease, which the statistics must follow
+    model.addValue( "2009", "West", -8 );
+    assertEquals( -3, model.getStatistics().getMin(), 0 );
+    assertEquals( 4, model.getStatistics().getMax(), 0 );
+    assertEquals( -2, model.getCategoryStatistics( 1 ).getNegativeTotal(), 0 );
+    assertEquals( 6.5, model.getMaxStackTotal(), 0 );
+    assertEquals( -3, model.getMinStackTotal(), 0 );
+  }
+
+  @Test
+  public void testStatisticsOfEmptyModel() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", null );
+
+    assertEquals( 0, model.getStatistics().getCount() );
+    assertEquals( 0, model.getCategoryStatistics( 0 ).getCount() );
+    assertTrue( Double.isNaN( model.getStatistics().getMax() ) );
+    assertTrue( Double.isNaN( model.getMaxStackTotal() ) );
+  }
+
+  @Test
+  public void testSeriesDataFollowsCategoryOrder() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    for ( int i = 0; i < 100; i++ ) {
+      model.addValue( "category" + i, "series" + ( i % 40 ), i );
+    }
+
+    List<SeriesData> seriesData = model.getSeriesData();
+    assertEquals( 40, seriesData.size() );
+    SeriesData series = model.getSeriesData( "series3" );
+    assertEquals( "series3", series.getSeriesName() );
+    assertEquals( 100, series.size() );
+    assertEquals( "category0", series.getDomains().get( 0 ) );
+    assertEquals( 43, series.getNamedValue( "category43" ).getValue() );
+    assertNull( series.getNamedValue( "category44" ).getValue() );
+    assertNull( model.getSeriesData( "unknown" ) );
+    assertNull( model.getDomainData( "unknown" ) );
+  }
+
+  @Test
+  public void testViewsAreBackedByModel() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 1 );
+    List<SeriesData> seriesData = model.getSeriesData();
+    SeriesData east = model.getSeriesData( "East" );
+    assertEquals( 1, east.size() );
+
+    model.addValue( "2009", "East", 2 );
+    model.addValue( "2009", "West", 3 );
+    assertEquals( 2, east.size() );
+    assertEquals( 2, east.getNamedValue( "2009" ).getValue() );
+    assertEquals( 2, seriesData.size() );
+    assertEquals( 2, model.getDomainData().size() );
+    assertEquals( 3, model.getDomainData( "2009" ).getNamedValue( "West" ).getValue() );
+    assertEquals( 3, east.getStatistics().getSum(), 0 );
+    assertEquals( 5, model.getDomainData( "2009" ).getStatistics().getSum(), 0 );
+
+    try {
+      east.add( new NamedValue( "2010", 4 ) );
+      fail( "Views should be read-only" );
+    } catch ( UnsupportedOperationException e ) {
+      // correct
+    }
+  }
+
+  @Test
+  public void testViewsReuseTheirNamedValues() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 1 );
+    SeriesData east = model.getSeriesData( "East" );
+    NamedValue namedValue = east.iterator().next();
+    assertSame( namedValue, east.getNamedValue( "2008" ) );
+
+    model.addValue( "2008", "East", 2 );
+    assertSame( namedValue, east.iterator().next() );
+    assertEquals( 3.0, namedValue.getValue() );
+
+    try {
+      namedValue.setValue( 4 );
+      fail( "View values should be read-only" );
+    } catch ( UnsupportedOperationException e ) {
+      // correct
+    }
+  }
+
+  @Test
+  public void testRenameUpdatesLookups() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 1 );
+    model.addValue( "2009", "West", 2 );
+
+    model.getSeriesData( "East" ).setSeriesName( "North" );
+    model.getDomainData( "2008" ).setDomainName( "FY2008" );
+    assertEquals( -1, model.getSeriesIndex( "East" ) );
+    assertEquals( 0, model.getSeriesIndex( "North" ) );
+    assertEquals( 0, model.getCategoryIndex( "FY2008" ) );
+    assertEquals( "North", model.getSeriesData( "North" ).getSeriesName() );
+
+    model.addValue( "FY2008", "North", 5 );
+    assertEquals( 2, model.getSeriesCount() );
+    assertEquals( 2, model.getCategoryCount() );
+    assertEquals( 6.0, model.getValue( 0, 0 ) );
+
+    try {
+      model.getSeriesData( "North" ).setSeriesName( "West" );
+      fail( "Renaming onto another series should be rejected" );
+    } catch ( IllegalArgumentException e ) {
+      // correct
+    }
+  }
+
+  @Test
+  public void testCloneOfViewIsDetachedView() {
+    MultiSeriesDataModel model = new MultiSeriesDataModel();
+    model.addValue( "2008", "East", 1 );
+    model.addValue( "2009", "East", 1.5f );
+    model.addValue( "2009", "West", 3 );
+
+    SeriesData east = (SeriesData) model.getSeriesData( "East" ).clone();
+    DomainData fy2009 = (DomainData) model.getDomainData( "2009" ).clone();
+    model.addValue( "2009", "East", 2 );
+    model.addValue( "2010", "East", 4 );
+
+    assertEquals( "East", east.getSeriesName() );
+    assertEquals( Arrays.asList( "2008", "2009" ), east.getDomains() );
+    assertEquals( 1.5f, east.getNamedValue( "2009" ).getValue() );
+    assertEquals( "2009", fy2009.getDomainName() );
+    assertEquals( Arrays.asList( "East", "West" ), fy2009.getSeries() );
+    assertEquals( 1.5f, fy2009.getNamedValue( "East" ).getValue() );
+    assertEquals( 3, fy2009.getNamedValue( "West" ).getValue() );
+  }
+}
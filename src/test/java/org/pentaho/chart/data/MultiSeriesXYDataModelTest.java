@@ -0,0 +1,55 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class MultiSeriesXYDataModelTest {
+
+  @Test
+  public void testAddAllMergesPointsAndStatistics() {
+    MultiSeriesXYDataModel expected = new MultiSeriesXYDataModel();
+    MultiSeriesXYDataModel model = new MultiSeriesXYDataModel();
+    MultiSeriesXYDataModel part = new MultiSeriesXYDataModel();
+    MultiSeriesXYDataModel emptyPart = new MultiSeriesXYDataModel();
+    for ( int i = 0; i < 10; i++ ) {
+      String seriesKey = ( i % 3 == 0 ) ? "a" : "b";
+      Number rangeValue = ( i == 4 ) ? null : Integer.valueOf( 5 - i );
+      expected.addDataPoint( seriesKey, i, rangeValue );
+      ( i < 6 ? model : part ).addDataPoint( seriesKey, i, rangeValue );
+    }
+    model.addAll( part );
+    model.addAll( emptyPart );
+    emptyPart.addAll( model );
+
+    for ( MultiSeriesXYDataModel merged : new MultiSeriesXYDataModel[] { model, emptyPart } ) {
+      assertEquals( expected.getDataPointCount(), merged.getDataPointCount() );
+      assertEquals( expected.getSeriesCount(), merged.getSeriesCount() );
+      assertEquals( expected.getSeries( "b" ).size(), merged.getSeries( "b" ).size() );
+      assertStatistics( expected.getDomainStatistics(), merged.getDomainStatistics() );
+      assertStatistics( expected.getRangeStatistics(), merged.getRangeStatistics() );
+    }
+  }
+
+  private static void assertStatistics( ValueStatistics expected, ValueStatistics actual ) {
+    assertEquals( expected.getCount(), actual.getCount() );
+    assertEquals( expected.getMin(), actual.getMin(), 0 );
+    assertEquals( expected.getMax(), actual.getMax(), 0 );
+    assertEquals( expected.getSum(), actual.getSum(), 0 );
+    assertEquals( expected.getPositiveTotal(), actual.getPositiveTotal(), 0 );
+    assertEquals( expected.getNegativeTotal(), actual.getNegativeTotal(), 0 );
+  }
+}
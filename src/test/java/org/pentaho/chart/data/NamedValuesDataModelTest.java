@@ -0,0 +1,129 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+import java.util.Iterator;
+
+import org.junit.Test;
+
+public class NamedValuesDataModelTest {
+
+  @Test
+  public void testGetNamedValueKeepsInsertionOrder() {
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    NamedValue b = new NamedValue( "b", 2 );
+    NamedValue a = new NamedValue( "a", 1 );
+    model.add( b );
+    model.add( a );
+
+    assertSame( a, model.getNamedValue( "a" ) );
+    assertSame( b, model.getNamedValue( "b" ) );
+    assertNull( model.getNamedValue( "c" ) );
+    assertNull( model.getNamedValue( null ) );
+
+    NamedValue c = new NamedValue( "c", 3 );
+    model.add( c );
+    assertSame( c, model.getNamedValue( "c" ) );
+    assertEquals( Arrays.asList( "b", "a", "c" ), model.getNames() );
+  }
+
+  @Test
+  public void testGetNamedValueAfterRemoval() {
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    NamedValue first = new NamedValue( "a", 1 );
+    NamedValue second = new NamedValue( "a", 2 );
+    model.add( first );
+    model.add( second );
+    assertSame( first, model.getNamedValue( "a" ) );
+
+    model.remove( first );
+    assertSame( second, model.getNamedValue( "a" ) );
+
+    Iterator<NamedValue> iterator = model.iterator();
+    iterator.next();
+    iterator.remove();
+    assertNull( model.getNamedValue( "a" ) );
+
+    model.add( first );
+    model.clear();
+    assertNull( model.getNamedValue( "a" ) );
+  }
+
+  @Test
+  public void testCloneHasIndependentIndex() {
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    NamedValue a = new NamedValue( "a", 1 );
+    model.add( a );
+    model.getNamedValue( "a" );
+
+    NamedValuesDataModel clone = (NamedValuesDataModel) model.clone();
+    clone.remove( a );
+    assertNull( clone.getNamedValue( "a" ) );
+    assertSame( a, model.getNamedValue( "a" ) );
+  }
+
+  @Test
+  public void testStatisticsFollowAddsRemovalsAndChanges() {
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    NamedValue a = new NamedValue( "a", 4 );
+    model.add( a );
+    model.add( new NamedValue( "b", -1 ) );
+    model.add( new NamedValue( "c", null ) );
+    ValueStatistics statistics = model.getStatistics();
+    assertEquals( 2, statistics.getCount() );
+    assertEquals( 3, statistics.getSum(), 0 );
+    assertEquals( 4, statistics.getPositiveTotal(), 0 );
+    assertEquals( -1, statistics.getNegativeTotal(), 0 );
+
+    model.add( new NamedValue( "d", 6 ) );
+    assertSame( statistics, model.getStatistics() );
+    assertEquals( 6, statistics.getMax(), 0 );
+
+    a.setValue( 10 );
+    assertEquals( 15, model.getStatistics().getSum(), 0 );
+
+    model.remove( a );
+    assertEquals( 5, model.getStatistics().getSum(), 0 );
+
+    Iterator<NamedValue> iterator = model.iterator();
+    iterator.next();
+    iterator.remove();
+    assertEquals( 6, model.getStatistics().getSum(), 0 );
+
+    model.clear();
+    assertEquals( 0, model.getStatistics().getCount() );
+  }
+
+  @Test
+  public void testStatisticsOfValuesTakenByAnotherModel() {
+    NamedValuesDataModel model = new NamedValuesDataModel();
+    NamedValue a = new NamedValue( "a", 1 );
+    model.add( a );
+
+    NamedValuesDataModel other = new NamedValuesDataModel();
+    other.add( a );
+    a.setValue( 2 );
+    assertEquals( 2, model.getStatistics().getSum(), 0 );
+    assertEquals( 2, other.getStatistics().getSum(), 0 );
+
+    NamedValuesDataModel clone = (NamedValuesDataModel) other.clone();
+    a.setValue( 3 );
+    assertEquals( 3, clone.getStatistics().getSum(), 0 );
+    assertEquals( 3, other.getStatistics().getSum(), 0 );
+  }
+}
@@ -0,0 +1,70 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.data;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class XYDataModelTest {
+
+  @Test
+  public void testStatisticsFollowAddsRemovalsAndChanges() {
+    XYDataModel model = new XYDataModel();
+    XYDataPoint first = new XYDataPoint( 1, 10 );
+    model.add( first );
+    model.add( new XYDataPoint( -2, null ) );
+    ValueStatistics domainStatistics = model.getDomainStatistics();
+    assertEquals( 2, domainStatistics.getCount() );
+    assertEquals( -2, domainStatistics.getMin(), 0 );
+    assertEquals( 1, model.getRangeStatistics().getCount() );
+
+    model.addAll( Arrays.asList( new XYDataPoint( 5, 20 ), new XYDataPoint( 3, -30 ) ) );
+    model.add( 0, new XYDataPoint( 0, 0 ) );
+    assertSame( domainStatistics, model.getDomainStatistics() );
+    assertEquals( 5, domainStatistics.getMax(), 0 );
+    assertEquals( -30, model.getRangeStatistics().getMin(), 0 );
+
+    first.setY( 40 );
+    assertEquals( 40, model.getRangeStatistics().getMax(), 0 );
+
+    model.remove( first );
+    assertEquals( 20, model.getRangeStatistics().getMax(), 0 );
+
+    model.set( 0, new XYDataPoint( 8, 1 ) );
+    assertEquals( 8, model.getDomainStatistics().getMax(), 0 );
+
+    model.subList( 0, 1 ).set( 0, new XYDataPoint( 9, 1 ) );
+    assertEquals( 9, model.getDomainStatistics().getMax(), 0 );
+
+    model.clear();
+    assertEquals( 0, model.getDomainStatistics().getCount() );
+  }
+
+  @Test
+  public void testStatisticsOfPointsTakenByAnotherModel() {
+    XYDataModel model = new XYDataModel();
+    XYDataPoint point = new XYDataPoint( 1, 1 );
+    model.add( point );
+
+    XYDataModel other = new XYDataModel();
+    other.addAll( model );
+    point.setX( 2 );
+    assertEquals( 2, model.getDomainStatistics().getSum(), 0 );
+    assertEquals( 2, other.getDomainStatistics().getSum(), 0 );
+  }
+}
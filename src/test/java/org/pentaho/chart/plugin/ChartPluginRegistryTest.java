@@ -0,0 +1,144 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Test;
+import org.pentaho.chart.plugin.jfreechart.JFreeChartPlugin;
+import org.pentaho.chart.plugin.openflashchart.OpenFlashChartPlugin;
+import org.pentaho.chart.plugin.xml.XmlChartPlugin;
+
+public class ChartPluginRegistryTest {
+
+  private static class TestPlugin extends XmlChartPlugin {
+    private final String pluginId;
+
+    TestPlugin( String pluginId ) {
+      this.pluginId = pluginId;
+    }
+
+    public String getPluginId() {
+      return pluginId;
+    }
+  }
+
+  /**
+   * Defines its own copy of the registry classes and records the classes they ask for, so that a test can tell when
+   * the default plugins are created.
+   */
+  private static class RecordingClassLoader extends ClassLoader {
+    final List<String> requested = new ArrayList<String>();
+
+    RecordingClassLoader() {
+      super( ChartPluginRegistryTest.class.getClassLoader() );
+    }
+
+    protected synchronized Class<?> loadClass( String name, boolean resolve ) throws ClassNotFoundException {
+      requested.add( name );
+      if ( !name.startsWith( ChartPluginRegistry.class.getName() ) ) {
+        return super.loadClass( name, resolve );
+      }
+      Class<?> type = findLoadedClass( name );
+      if ( type == null ) {
+        byte[] bytes = readClass( name );
+        type = defineClass( name, bytes, 0, bytes.length );
+      }
+      return type;
+    }
+
+    private byte[] readClass( String name ) throws ClassNotFoundException {
+      InputStream inputStream = getParent().getResourceAsStream( name.replace( '.', '/' ) + ".class" );
+      if ( inputStream == null ) {
+        throw new ClassNotFoundException( name );
+      }
+      try {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        byte[] buffer = new byte[ 4096 ];
+        for ( int read = inputStream.read( buffer ); read >= 0; read = inputStream.read( buffer ) ) {
+          outputStream.write( buffer, 0, read );
+        }
+        inputStream.close();
+        return outputStream.toByteArray();
+      } catch ( IOException e ) {
+        throw new ClassNotFoundException( name, e );
+      }
+    }
+  }
+
+  @After
+  public void tearDown() {
+    ChartPluginRegistry.loadPlugins( null );
+  }
+
+  @Test
+  public void testDefaultPluginsAreShared() {
+    IChartPlugin jFreeChartPlugin = ChartPluginRegistry.getPlugin( JFreeChartPlugin.PLUGIN_ID );
+    assertTrue( jFreeChartPlugin instanceof JFreeChartPlugin );
+    assertSame( jFreeChartPlugin, ChartPluginRegistry.getPlugin( JFreeChartPlugin.PLUGIN_ID ) );
+    assertTrue( ChartPluginRegistry.getPlugin( OpenFlashChartPlugin.PLUGIN_ID ) instanceof OpenFlashChartPlugin );
+    assertNull( ChartPluginRegistry.getPlugin( "unknown" ) );
+    assertTrue( ChartPluginRegistry.getPlugins().isEmpty() );
+
+    ChartPluginRegistry.loadPlugins( new ArrayList<IChartPlugin>() );
+    assertSame( jFreeChartPlugin, ChartPluginRegistry.getPlugin( JFreeChartPlugin.PLUGIN_ID ) );
+  }
+
+  @Test
+  public void testLoadedPluginsReplaceTheDefaults() {
+    IChartPlugin first = new TestPlugin( "a" );
+    IChartPlugin second = new TestPlugin( "b" );
+    IChartPlugin last = new TestPlugin( "a" );
+    ChartPluginRegistry.loadPlugins( Arrays.asList( first, second, last ) );
+
+    assertSame( last, ChartPluginRegistry.getPlugin( "a" ) );
+    assertSame( second, ChartPluginRegistry.getPlugin( "b" ) );
+    assertNull( ChartPluginRegistry.getPlugin( JFreeChartPlugin.PLUGIN_ID ) );
+    assertEquals( Arrays.asList( first, second, last ), ChartPluginRegistry.getPlugins() );
+
+    ChartPluginRegistry.loadPlugins( null );
+    assertTrue( ChartPluginRegistry.getPlugin( JFreeChartPlugin.PLUGIN_ID ) instanceof JFreeChartPlugin );
+  }
+
+  @Test
+  public void testDefaultPluginsAreCreatedOnFirstLookup() throws Exception {
+    RecordingClassLoader classLoader = new RecordingClassLoader();
+    Class<?> registry = classLoader.loadClass( ChartPluginRegistry.class.getName() );
+    Method loadPlugins = registry.getMethod( "loadPlugins", List.class );
+    Method getPlugin = registry.getMethod( "getPlugin", String.class );
+
+    IChartPlugin plugin = new TestPlugin( "a" );
+    loadPlugins.invoke( null, Arrays.asList( plugin ) );
+    assertSame( plugin, getPlugin.invoke( null, "a" ) );
+    assertFalse( classLoader.requested.contains( JFreeChartPlugin.class.getName() ) );
+
+    loadPlugins.invoke( null, (Object) null );
+    assertFalse( classLoader.requested.contains( JFreeChartPlugin.class.getName() ) );
+    assertTrue( getPlugin.invoke( null, JFreeChartPlugin.PLUGIN_ID ) instanceof JFreeChartPlugin );
+    assertTrue( classLoader.requested.contains( JFreeChartPlugin.class.getName() ) );
+  }
+}
@@ -0,0 +1,113 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class NumberScalerTest {
+
+  private static final Number[] SCALES = { 1, 0, 1.0, 0.0, 10, 1000, 1000.0, 3, 7.0, 0.5, 1000000, 1e-4, -100 };
+
+  @Test
+  public void testNothingToScale() {
+    Double value = 12.345;
+    assertSame( value, NumberScaler.scaleNumber( value, 1 ) );
+    assertSame( value, NumberScaler.scaleNumber( value, 0 ) );
+    assertSame( value, NumberScaler.scaleNumber( value, null ) );
+    assertNull( NumberScaler.scaleNumber( null, 1000 ) );
+  }
+
+  @Test
+  public void testMatchesStringBasedScaling() {
+    Random random = new Random( 42 );
+    List<Number> numbers = new ArrayList<Number>();
+    double[] fixed = { 0, -0.0, 1, 0.001, 0.0009999, 9999999.99, 1e7, 2.5e7, 1.5e-5, 123456.789, 0.1, 0.05, 1.005,
+      Double.NaN, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.MAX_VALUE, Double.MIN_VALUE };
+    for ( double value : fixed ) {
+      numbers.add( value );
+      numbers.add( -value );
+    }
+    for ( int i = 0; i < 20000; i++ ) {
+      double magnitude = Math.pow( 10, random.nextInt( 14 ) - 5 );
+      double value = ( random.nextDouble() - 0.3 ) * magnitude;
+      numbers.add( value );
+      numbers.add( Math.round( value * 100 ) / 100.0 );
+      numbers.add( (float) value );
+      numbers.add( (int) value );
+      numbers.add( (long) value );
+      numbers.add( BigDecimal.valueOf( value ) );
+      numbers.add( BigDecimal.valueOf( Math.round( value * 100 ), 2 ) );
+      numbers.add( BigDecimal.valueOf( Math.round( value * 10 ), 1 ) );
+      numbers.add( BigDecimal.valueOf( Math.round( value ), -2 ) );
+    }
+
+    for ( Number number : numbers ) {
+      for ( Number scale : SCALES ) {
+        Number expected = referenceScaleNumber( number, scale );
+        Number actual = NumberScaler.scaleNumber( number, scale );
+        assertEquals( number + " / " + scale, expected.doubleValue(), actual.doubleValue(), 0 );
+        if ( ( number instanceof Double ) && ( scale instanceof Double ) ) {
+          assertEquals( number + " / " + scale, expected.doubleValue(),
+            NumberScaler.scale( number.doubleValue(), scale.doubleValue() ), 0 );
+        }
+      }
+    }
+  }
+
+  /**
+   * The scaling both chart engines used before NumberScaler
+   */
+  private static Number referenceScaleNumber( Number number, Number scale ) {
+    Number scaledNumber = number;
+    if ( ( number != null ) && ( scale != null ) && !scale.equals( 1 ) && !scale.equals( 0 ) ) {
+
+      int startingSignificantDigits = 0;
+      if ( !( number instanceof Integer ) ) {
+        int indexOfDecimalPoint = number.toString().indexOf( "." );
+        if ( indexOfDecimalPoint >= 0 ) {
+          String fractionalPart = number.toString().substring( indexOfDecimalPoint + 1 );
+          if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
+            startingSignificantDigits = fractionalPart.length();
+          }
+        }
+      }
+
+      int preferredSignificantDigits = Math.max( 2, Math.min( startingSignificantDigits, 6 ) );
+
+      scaledNumber = number.doubleValue() / scale.doubleValue();
+      int scaledSignificantDigits = 0;
+      int indexOfDecimalPoint = scaledNumber.toString().indexOf( "." );
+      String fractionalPart = scaledNumber.toString().substring( indexOfDecimalPoint + 1 );
+      if ( ( fractionalPart.length() > 1 ) || Integer.parseInt( fractionalPart ) > 0 ) {
+        scaledSignificantDigits = fractionalPart.length();
+      }
+
+      if ( scaledSignificantDigits > preferredSignificantDigits ) {
+        double multiplier = Math.pow( 10, preferredSignificantDigits );
+        scaledNumber = Math.round( scaledNumber.doubleValue() * multiplier ) / multiplier;
+      }
+    }
+    return scaledNumber;
+  }
+}
@@ -0,0 +1,59 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin.jfreechart;
+
+import static org.junit.Assert.assertEquals;
+
+import org.jfree.data.category.CategoryDataset;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DatasetUtilities;
+import org.junit.Test;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.plugin.NumberScaler;
+
+public class JFreeChartFactoryEngineTest {
+
+  @Test
+  public void testCategoryDatasetViewScalesWithEngine() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue( "a", "b", 2000 );
+    dataModel.addValue( "c", "b", -500 );
+
+    CategoryDataset dataset = new JFreeChartFactoryEngine().createCategoryDatasetView( dataModel );
+    assertEquals( 2000, dataset.getValue( 0, 0 ).intValue() );
+
+    JFreeChartFactoryEngine engine = new JFreeChartFactoryEngine() {
+      protected Number scaleNumber( Number number, Number scale ) {
+        return NumberScaler.isIdentity( scale ) ? number : -number.doubleValue() / scale.doubleValue();
+      }
+    };
+    dataModel.setScalingFactor( 100 );
+    dataset = engine.createCategoryDatasetView( dataModel );
+    assertEquals( -20.0, dataset.getValue( 0, 0 ) );
+    assertEquals( 5.0, dataset.getValue( 0, 1 ) );
+    assertEquals( -20.0, DatasetUtilities.findRangeBounds( dataset ).getLowerBound(), 0 );
+    assertEquals( 5.0, DatasetUtilities.findRangeBounds( dataset ).getUpperBound(), 0 );
+  }
+
+  @Test
+  public void testDeprecatedCategoryDatasetCopiesScaledValues() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue( "a", "b", 2000 );
+    dataModel.setScalingFactor( 100 );
+
+    DefaultCategoryDataset dataset = new JFreeChartFactoryEngine().createCategoryDataset( dataModel );
+    assertEquals( 1, dataset.getRowCount() );
+    assertEquals( 20, dataset.getValue( 0, 0 ).intValue() );
+  }
+}
@@ -0,0 +1,92 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin.jfreechart.dataset;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.jfree.data.Range;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.jfree.data.general.DatasetUtilities;
+import org.junit.Test;
+import org.pentaho.chart.data.FormattableName;
+import org.pentaho.chart.data.MultiSeriesDataModel;
+import org.pentaho.chart.plugin.NumberScaler;
+
+public class MultiSeriesCategoryDatasetTest {
+
+  @Test
+  public void testMatchesDefaultCategoryDataset() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue( "2008", "FY 2008", "east", "East", 10 );
+    dataModel.addValue( "2008", "FY 2008", "west", "West", -4 );
+    dataModel.addValue( "2009", "FY 2009", "east", "East", 7.5 );
+    dataModel.addValue( "2010", "FY 2010", "west", "West", 12 );
+
+    DefaultCategoryDataset expected = new DefaultCategoryDataset();
+    for ( int seriesIdx = 0; seriesIdx < dataModel.getSeriesCount(); seriesIdx++ ) {
+      for ( int categoryIdx = 0; categoryIdx < dataModel.getCategoryCount(); categoryIdx++ ) {
+        expected.addValue( dataModel.getValue( seriesIdx, categoryIdx ), dataModel.getSeriesName( seriesIdx ),
+          dataModel.getCategoryName( categoryIdx ) );
+      }
+    }
+
+    MultiSeriesCategoryDataset dataset = new MultiSeriesCategoryDataset( dataModel );
+    assertEquals( expected.getRowKeys(), dataset.getRowKeys() );
+    assertEquals( expected.getColumnKeys(), dataset.getColumnKeys() );
+    for ( int row = 0; row < expected.getRowCount(); row++ ) {
+      for ( int column = 0; column < expected.getColumnCount(); column++ ) {
+        assertEquals( expected.getValue( row, column ), dataset.getValue( row, column ) );
+        assertEquals( expected.getValue( expected.getRowKey( row ), expected.getColumnKey( column ) ),
+          dataset.getValue( dataset.getRowKey( row ), dataset.getColumnKey( column ) ) );
+      }
+    }
+    assertEquals( 1, dataset.getRowIndex( new FormattableName( "west", "West" ) ) );
+    assertEquals( -1, dataset.getColumnIndex( "2008" ) );
+    assertEquals( DatasetUtilities.iterateRangeBounds( expected ), DatasetUtilities.findRangeBounds( dataset ) );
+  }
+
+  @Test
+  public void testScaledRange() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue( "a", "b", 2000 );
+    dataModel.addValue( "c", "b", -500 );
+    dataModel.setScalingFactor( 1000 );
+
+    MultiSeriesCategoryDataset dataset = new MultiSeriesCategoryDataset( dataModel );
+    assertEquals( new Range( -0.5, 2 ), dataset.getRangeBounds( false ) );
+    assertNull( new MultiSeriesCategoryDataset( new MultiSeriesDataModel() ).getRangeBounds( false ) );
+  }
+
+  @Test
+  public void testValuesAndRangeGoThroughScaler() {
+    MultiSeriesDataModel dataModel = new MultiSeriesDataModel();
+    dataModel.addValue( "a", "b", 3 );
+    dataModel.addValue( "c", "b", -1 );
+
+    MultiSeriesCategoryDataset dataset = new MultiSeriesCategoryDataset( dataModel,
+      new MultiSeriesCategoryDataset.Scaler() {
+        public Number scaleNumber( Number number, Number scale ) {
+          return NumberScaler.isIdentity( scale ) ? number : -number.doubleValue() * scale.doubleValue();
+        }
+      } );
+    // An unscaled model's range comes from its statistics
+    assertEquals( new Range( -1, 3 ), dataset.getRangeBounds( false ) );
+
+    dataModel.setScalingFactor( 10 );
+    assertEquals( -30.0, dataset.getValue( 0, 0 ) );
+    assertEquals( 10.0, dataset.getValue( 0, 1 ) );
+    assertEquals( new Range( -30, 10 ), dataset.getRangeBounds( false ) );
+  }
+}
@@ -0,0 +1,64 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+
+public class BufferedImagePoolTest {
+
+  @Test
+  public void testReusesReleasedImageOfSimilarSize() {
+    BufferedImagePool pool = new BufferedImagePool( 4, 1024 * 1024 );
+    BufferedImagePool.PooledImage first = pool.acquire( 100, 50, BufferedImage.TYPE_INT_ARGB );
+    assertEquals( 100, first.getImage().getWidth() );
+    assertEquals( 50, first.getImage().getHeight() );
+    first.getImage().setRGB( 0, 0, 0xFF123456 );
+    first.release();
+    first.release();
+    assertEquals( 4L * 128 * 64, pool.getPooledBytes() );
+
+    BufferedImagePool.PooledImage second = pool.acquire( 120, 60, BufferedImage.TYPE_INT_ARGB );
+    assertEquals( 120, second.getImage().getWidth() );
+    assertEquals( 60, second.getImage().getHeight() );
+    assertEquals( 0, second.getImage().getRGB( 0, 0 ) );
+    assertEquals( 1, pool.getAllocationCount() );
+    assertEquals( 1, pool.getReuseCount() );
+    assertEquals( 0, pool.getPooledBytes() );
+    second.release();
+  }
+
+  @Test
+  public void testDoesNotShareImagesOfDifferentTypes() {
+    BufferedImagePool pool = new BufferedImagePool( 4, 1024 * 1024 );
+    pool.acquire( 64, 64, BufferedImage.TYPE_INT_ARGB ).release();
+    BufferedImagePool.PooledImage image = pool.acquire( 64, 64, BufferedImage.TYPE_INT_RGB );
+    assertEquals( BufferedImage.TYPE_INT_RGB, image.getImage().getType() );
+    assertEquals( 2, pool.getAllocationCount() );
+  }
+
+  @Test
+  public void testDiscardsImagesBeyondTheByteLimit() {
+    BufferedImagePool pool = new BufferedImagePool( 4, 4L * 64 * 64 );
+    BufferedImagePool.PooledImage first = pool.acquire( 64, 64, BufferedImage.TYPE_INT_ARGB );
+    BufferedImagePool.PooledImage second = pool.acquire( 64, 64, BufferedImage.TYPE_INT_ARGB );
+    first.release();
+    second.release();
+    assertEquals( 1, pool.getDiscardCount() );
+    assertEquals( 4L * 64 * 64, pool.getPooledBytes() );
+  }
+}
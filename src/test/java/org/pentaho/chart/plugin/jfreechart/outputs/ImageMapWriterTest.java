@@ -0,0 +1,87 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Rectangle2D;
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.jfree.chart.ChartRenderingInfo;
+import org.jfree.chart.entity.ChartEntity;
+import org.jfree.chart.entity.StandardEntityCollection;
+import org.jfree.chart.imagemap.ImageMapUtilities;
+import org.jfree.util.StringUtils;
+import org.junit.Test;
+
+public class ImageMapWriterTest {
+
+  @Test
+  public void testDefaultOutputMatchesImageMapUtilities() throws IOException {
+    StandardEntityCollection entities = new StandardEntityCollection();
+    entities.add( new ChartEntity( new Rectangle2D.Double( 10.4, 20.6, 30, 40 ), "Sales <2008>", "drill?x=1" ) );
+    entities.add( new ChartEntity( new Ellipse2D.Double( 5, 5, 50, 50 ), "Slice", null ) );
+    entities.add( new ChartEntity( new Rectangle2D.Double( 0, 0, 5, 5 ), null, "drill?x=2" ) );
+    entities.add( new ChartEntity( new Rectangle2D.Double( 0, 0, 5, 5 ), null, null ) );
+
+    StringWriter writer = new StringWriter();
+    new ImageMapWriter().write( writer, "map \"1\"", entities );
+    assertEquals( ImageMapUtilities.getImageMap( "map \"1\"", new ChartRenderingInfo( entities ) ),
+      writer.toString() );
+  }
+
+  @Test
+  public void testRectangleCoordinatesMatchChartEntity() throws IOException {
+    StandardEntityCollection entities = new StandardEntityCollection();
+    // Truncating the right edge would give 31 and 52; ChartEntity truncates the width and height instead
+    entities.add( new ChartEntity( new Rectangle2D.Double( 10.6, 20.7, 20.6, 31.5 ), "Fractional", "a" ) );
+    // Empty rectangles are widened to one pixel
+    entities.add( new ChartEntity( new Rectangle2D.Double( 5.5, 6.5, 0, 12 ), "Zero width", "b" ) );
+    entities.add( new ChartEntity( new Rectangle2D.Double( 5, 6, 12.9, 0.4 ), "Zero height", "c" ) );
+    entities.add( new ChartEntity( new Rectangle2D.Double( 7, 8, 0, 0 ), "Empty", "d" ) );
+
+    StringWriter writer = new StringWriter();
+    new ImageMapWriter().write( writer, "map", entities );
+    assertEquals( ImageMapUtilities.getImageMap( "map", new ChartRenderingInfo( entities ) ), writer.toString() );
+
+    String lineSeparator = StringUtils.getLineSeparator();
+    assertEquals( "<map id=\"map\" name=\"map\">" + lineSeparator
+      + "<area shape=\"rect\" coords=\"7,8,8,9\" title=\"Empty\" alt=\"\" href=\"d\"/>" + lineSeparator
+      + "<area shape=\"rect\" coords=\"5,6,17,7\" title=\"Zero height\" alt=\"\" href=\"c\"/>" + lineSeparator
+      + "<area shape=\"rect\" coords=\"5,6,6,18\" title=\"Zero width\" alt=\"\" href=\"b\"/>" + lineSeparator
+      + "<area shape=\"rect\" coords=\"10,20,30,51\" title=\"Fractional\" alt=\"\" href=\"a\"/>" + lineSeparator
+      + "</map>", writer.toString() );
+  }
+
+  @Test
+  public void testReducedPrecisionAndDeduplication() throws IOException {
+    StandardEntityCollection entities = new StandardEntityCollection();
+    entities.add( new ChartEntity( new Rectangle2D.Double( 11, 19, 30, 42 ), "A", "a" ) );
+    entities.add( new ChartEntity( new Rectangle2D.Double( 9, 21, 32, 39 ), "A", "a" ) );
+
+    ImageMapWriter imageMapWriter = new ImageMapWriter();
+    imageMapWriter.setCoordinateGrid( 10 );
+    imageMapWriter.setDeduplicateAreas( true );
+    StringWriter writer = new StringWriter();
+    imageMapWriter.write( writer, "map", entities );
+
+    String lineSeparator = StringUtils.getLineSeparator();
+    assertEquals( "<map id=\"map\" name=\"map\">" + lineSeparator
+      + "<area shape=\"rect\" coords=\"10,20,40,60\" title=\"A\" alt=\"\" href=\"a\"/>" + lineSeparator
+      + "</map>", writer.toString() );
+  }
+}
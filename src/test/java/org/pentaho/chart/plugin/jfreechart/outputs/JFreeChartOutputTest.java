@@ -0,0 +1,59 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.StringWriter;
+
+import org.jfree.chart.ChartFactory;
+import org.jfree.chart.JFreeChart;
+import org.jfree.chart.plot.PlotOrientation;
+import org.jfree.data.category.DefaultCategoryDataset;
+import org.junit.Test;
+import org.pentaho.chart.plugin.api.IOutput;
+
+public class JFreeChartOutputTest {
+
+  private static JFreeChart createChart() {
+    DefaultCategoryDataset dataset = new DefaultCategoryDataset();
+    for ( int series = 0; series < 3; series++ ) {
+      for ( int category = 0; category < 8; category++ ) {
+        dataset.addValue( ( series + 1 ) * ( category + 2 ), "Series " + series, "Category " + category );
+      }
+    }
+    // With tooltips and URLs every bar becomes an area of the image map
+    return ChartFactory.createBarChart( "Sales", "Region", "Amount", dataset, PlotOrientation.VERTICAL, true, true,
+      true );
+  }
+
+  @Test
+  public void testMapWithoutEntityCollectionMatchesMapWithEntityCollection() throws Exception {
+    JFreeChartOutput withEntities = new JFreeChartOutput( createChart(), true );
+    withEntities.persistChart( null, IOutput.OutputTypes.FILE_TYPE_PNG, 400, 300 );
+    String expected = withEntities.persistMap( null, "map" ).toString();
+
+    JFreeChartOutput withoutEntities = new JFreeChartOutput( createChart(), false );
+    assertFalse( withoutEntities.isEntityCollectionEnabled() );
+    withoutEntities.persistChart( null, IOutput.OutputTypes.FILE_TYPE_PNG, 400, 300 );
+    String actual = withoutEntities.persistMap( new StringWriter(), "map" ).toString();
+
+    assertTrue( expected.indexOf( "<area shape=\"rect\"" ) >= 0 );
+    assertTrue( expected.indexOf( "href=\"" ) >= 0 );
+    assertEquals( expected, actual );
+    assertEquals( expected, withoutEntities.getMap( "map" ) );
+  }
+}
@@ -0,0 +1,86 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.jfreechart.outputs;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.imageio.ImageIO;
+
+import org.junit.Test;
+
+public class PngEncoderTest {
+
+  @Test
+  public void testFewColorsAreEncodedWithPalette() throws IOException {
+    BufferedImage image = new BufferedImage( 40, 30, BufferedImage.TYPE_INT_ARGB );
+    for ( int y = 0; y < 30; y++ ) {
+      for ( int x = 0; x < 40; x++ ) {
+        image.setRGB( x, y, ( x < 20 ) ? 0xFFFF0000 : ( y < 10 ) ? 0x800000FF : 0x00FFFFFF );
+      }
+    }
+    BufferedImage decoded = roundTrip( image, PngEncodingProfile.DEFAULT );
+    assertTrue( decoded.getColorModel() instanceof IndexColorModel );
+    assertSamePixels( image, decoded );
+  }
+
+  @Test
+  public void testManyColorsAreEncodedAsTrueColor() throws IOException {
+    for ( PngEncodingProfile.RowFilter rowFilter : PngEncodingProfile.RowFilter.values() ) {
+      BufferedImage opaque = gradient( BufferedImage.TYPE_INT_RGB );
+      BufferedImage decoded = roundTrip( opaque, new PngEncodingProfile( 6, rowFilter, true ) );
+      assertEquals( 3, decoded.getColorModel().getNumComponents() );
+      assertSamePixels( opaque, decoded );
+
+      BufferedImage translucent = gradient( BufferedImage.TYPE_INT_ARGB );
+      decoded = roundTrip( translucent, new PngEncodingProfile( 1, rowFilter, false ) );
+      assertEquals( 4, decoded.getColorModel().getNumComponents() );
+      assertSamePixels( translucent, decoded );
+    }
+  }
+
+  private static BufferedImage gradient( int type ) {
+    BufferedImage image = new BufferedImage( 70, 50, type );
+    for ( int y = 0; y < 50; y++ ) {
+      for ( int x = 0; x < 70; x++ ) {
+        image.setRGB( x, y, ( ( 255 - x ) << 24 ) | ( x * 3 << 16 ) | ( y * 5 << 8 ) | ( ( x * y ) & 0xFF ) );
+      }
+    }
+    return image;
+  }
+
+  private static BufferedImage roundTrip( BufferedImage image, PngEncodingProfile profile ) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    PngEncoder.encode( image, profile, out );
+    return ImageIO.read( new ByteArrayInputStream( out.toByteArray() ) );
+  }
+
+  private static void assertSamePixels( BufferedImage expected, BufferedImage actual ) {
+    assertEquals( expected.getWidth(), actual.getWidth() );
+    assertEquals( expected.getHeight(), actual.getHeight() );
+    for ( int y = 0; y < expected.getHeight(); y++ ) {
+      for ( int x = 0; x < expected.getWidth(); x++ ) {
+        int argb = expected.getRGB( x, y );
+        assertEquals( ( ( argb >>> 24 ) == 0 ) ? 0 : argb, actual.getRGB( x, y ) );
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*! ******************************************************************************
+ *
+ * Pentaho
+ *
+ * Copyright (C) 2024 by Hitachi Vantara, LLC : http://www.pentaho.com
+ *
+ * Use of this software is governed by the Business Source License included
+ * in the LICENSE.TXT file.
+ *
+ * Change Date: 2029-07-20
+ ******************************************************************************/
+
+
+
+package org.pentaho.chart.plugin.openflashchart.outputs;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Test;
+
+public class JsonStreamWriterTest {
+
+  private static final String JSON =
+    "{\"text\":\"1.23456 -7.891\",\"values\":[{\"top\":1514407.426},{\"top\":-0.004},{\"top\":72802.2}],"
+      + "\"min\":0,\"max\":1.5E7,\"step\":2.5000,\"alpha\":0.35}";
+
+  @Test
+  public void testRoundsNumbersOutsideStrings() throws IOException {
+    assertEquals( "{\"text\":\"1.23456 -7.891\",\"values\":[{\"top\":1514407.43},{\"top\":0},{\"top\":72802.2}],"
+      + "\"min\":0,\"max\":1.5E7,\"step\":2.5,\"alpha\":0.35}", write( JSON, 2, JSON.length() ) );
+    assertEquals( "{\"text\":\"1.23456 -7.891\",\"values\":[{\"top\":1514407},{\"top\":0},{\"top\":72802}],"
+      + "\"min\":0,\"max\":1.5E7,\"step\":3,\"alpha\":0}", write( JSON, 0, JSON.length() ) );
+  }
+
+  @Test
+  public void testSameOutputWhateverTheChunking() throws IOException {
+    String expected = write( JSON, 1, JSON.length() );
+    for ( int chunkSize = 1; chunkSize < 12; chunkSize++ ) {
+      assertEquals( expected, write( JSON, 1, chunkSize ) );
+    }
+  }
+
+  @Test
+  public void testFullPrecisionLeavesTextUnchanged() throws IOException {
+    assertEquals( JSON, write( JSON, JsonStreamWriter.FULL_PRECISION, 7 ) );
+  }
+
+  private static String write( String json, int precision, int chunkSize ) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStreamWriter writer = new JsonStreamWriter( out, precision );
+    for ( int off = 0; off < json.length(); off += chunkSize ) {
+      writer.write( json, off, Math.min( chunkSize, json.length() - off ) );
+    }
+    writer.finish();
+    return out.toString();
+  }
+}